@@ -0,0 +1,147 @@
+package jim.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sources and class lists shared by the benchmarks.
+ *
+ * The medium source is a hand written class kept as a resource. The huge
+ * source repeats its members in nested classes until it reaches about 20000
+ * lines, well past any file jim would see from the editor.
+ */
+final class BenchmarkData {
+	static final String SMALL = "package dummy;\n\n"
+		+ "import java.util.List;\n\n"
+		+ "public class Small {\n"
+		+ "\tprivate final Map<String, List<Path>> paths = new HashMap<>();\n\n"
+		+ "\tpublic Optional<Path> first(String key) throws IOException {\n"
+		+ "\t\treturn paths.getOrDefault(key, Collections.emptyList()).stream().findFirst();\n"
+		+ "\t}\n"
+		+ "}\n";
+
+	private static final String[][] CLASSES = {
+		{"ArrayList", "java.util.ArrayList"},
+		{"Arrays", "java.util.Arrays"},
+		{"Collections", "java.util.Collections"},
+		{"Collectors", "java.util.stream.Collectors"},
+		{"ConcurrentHashMap", "java.util.concurrent.ConcurrentHashMap"},
+		{"Deque", "java.util.Deque"},
+		{"ArrayDeque", "java.util.ArrayDeque"},
+		{"Files", "java.nio.file.Files"},
+		{"HashMap", "java.util.HashMap"},
+		{"IOException", "java.io.IOException"},
+		{"InputStream", "java.io.InputStream"},
+		{"Iterator", "java.util.Iterator"},
+		{"List", "java.util.List", "java.awt.List"},
+		{"Map", "java.util.Map"},
+		{"Objects", "java.util.Objects"},
+		{"Optional", "java.util.Optional"},
+		{"Override", "java.lang.Override"},
+		{"Path", "java.nio.file.Path"},
+		{"Paths", "java.nio.file.Paths"},
+		{"Pattern", "java.util.regex.Pattern"},
+		{"Set", "java.util.Set"},
+		{"HashSet", "java.util.HashSet"},
+		{"StandardCharsets", "java.nio.charset.StandardCharsets"},
+		{"Stream", "java.util.stream.Stream"},
+		{"String", "java.lang.String"},
+		{"StringBuilder", "java.lang.StringBuilder"},
+		{"TimeUnit", "java.util.concurrent.TimeUnit"},
+		{"UncheckedIOException", "java.io.UncheckedIOException"},
+		{"Function", "java.util.function.Function"},
+		{"Supplier", "java.util.function.Supplier"},
+		{"Entry", "java.util.Map.Entry"},
+		{"Nullable", "javax.annotation.Nullable", "org.jetbrains.annotations.Nullable"}
+	};
+
+	private BenchmarkData(){
+
+	}
+
+	static String medium() throws IOException {
+		try(InputStream input = BenchmarkData.class.getResourceAsStream("/Medium.java.txt")){
+			return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+	static String huge() throws IOException {
+		String medium = medium();
+		int start = medium.indexOf('{', medium.indexOf("public class")) + 1;
+		int end = medium.lastIndexOf('}');
+		String members = medium.substring(start, end);
+		StringBuilder str = new StringBuilder(medium.substring(0, start));
+		int lines = 0;
+
+		for(int i = 0; lines < 20000; i++){
+			String name = String.format("Part%d", i);
+			String copy = String.format("\n\tpublic static class %s {%s}\n", name, members.replace("Medium(", String.format("%s(", name)));
+
+			str.append(copy);
+			lines += copy.split("\n", -1).length - 1;
+		}
+
+		str.append("}\n");
+
+		return str.toString();
+	}
+
+	static String source(String size) throws IOException {
+		switch(size){
+			case "small":
+				return SMALL;
+			case "medium":
+				return medium();
+			case "huge":
+				return huge();
+			default:
+				throw new IllegalArgumentException(String.format("unknown source size - %s", size));
+		}
+	}
+
+	/**
+	 * Class list with every class used by the sources, padded with generated
+	 * classes up to the given number of simple names.
+	 */
+	static Map<String, List<String>> classes(int size){
+		Map<String, List<String>> classes = new HashMap<>();
+
+		for(String[] values : CLASSES){
+			classes.put(values[0], new ArrayList<>(Arrays.asList(values).subList(1, values.length)));
+		}
+
+		for(int i = 0; classes.size() < size; i++){
+			classes.put(String.format("Generated%d", i), new ArrayList<>(Arrays.asList(String.format("com.example.module%d.pkg%d.Generated%d", i % 50, i % 700, i))));
+		}
+
+		return classes;
+	}
+
+	/**
+	 * Text class list in the format read by ClassListDeserializer, with one
+	 * to three classes per line spread over a few thousand packages.
+	 */
+	static byte[] classList(int lines){
+		StringBuilder str = new StringBuilder(lines * 64);
+
+		for(int i = 0; i < lines; i++){
+			str.append("Generated").append(i);
+
+			for(int j = 0; j <= i % 3; j++){
+				str.append(" com.example.module").append((i + j) % 50).append(".pkg").append((i * 7 + j) % 3000).append(".Generated").append(i);
+			}
+
+			str.append('\n');
+		}
+
+		return str.toString().getBytes(StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,48 @@
+package jim.benchmarks;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks like the stock JMH launcher but always adds the gc
+ * profiler, so every result also reports the bytes allocated per operation.
+ */
+public class BenchmarkMain {
+	public static void main(String[] args) throws IOException, RunnerException {
+		CommandLineOptions cli;
+
+		try{
+			cli = new CommandLineOptions(args);
+		}
+		catch(CommandLineOptionException ex){
+			System.err.println(String.format("error parsing command line - %s", ex.getMessage()));
+			System.exit(1);
+
+			return;
+		}
+
+		if(cli.shouldHelp()){
+			cli.showHelp();
+
+			return;
+		}
+
+		Options options = new OptionsBuilder().parent(cli).addProfiler(GCProfiler.class).build();
+		Runner runner = new Runner(options);
+
+		if(cli.shouldList()){
+			runner.list();
+
+			return;
+		}
+
+		runner.run();
+	}
+}
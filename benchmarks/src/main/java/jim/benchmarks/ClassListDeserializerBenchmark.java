@@ -0,0 +1,60 @@
+package jim.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import java.nio.file.FileSystems;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jim.index.CompactClassIndex;
+
+import jim.io.ClassListDeserializer;
+
+/**
+ * Loading a text class list, both into the map read for choices and into the
+ * compact index used for class lookups.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ClassListDeserializerBenchmark {
+	@Param({"10000", "100000", "1000000"})
+	public int lines;
+
+	private ClassListDeserializer deserializer;
+	private byte[] contents;
+
+	@Setup
+	public void setup(){
+		deserializer = new ClassListDeserializer(FileSystems.getDefault());
+		contents = BenchmarkData.classList(lines);
+	}
+
+	@Benchmark
+	public Map<String, List<String>> deserialize() throws IOException {
+		return deserializer.deserialize(new ByteArrayInputStream(contents));
+	}
+
+	@Benchmark
+	public CompactClassIndex deserializeIndex() throws IOException {
+		return deserializer.deserializeIndex(new ByteArrayInputStream(contents));
+	}
+}
@@ -0,0 +1,70 @@
+package jim.benchmarks;
+
+import java.io.IOException;
+
+import java.nio.file.FileSystems;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jim.actions.ParseAction;
+
+import jim.engine.Engine;
+import jim.engine.JavaParserEngine;
+import jim.engine.LexerEngine;
+
+import jim.index.CompactClassIndex;
+
+import jim.models.ParseResult;
+
+/**
+ * The whole of ParseAction.parseJavaSource: extracting the imports and types
+ * and resolving them against a 100k name class index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseBenchmark {
+	@Param({"small", "medium", "huge"})
+	public String size;
+
+	@Param({"javaparser", "lexer"})
+	public String engine;
+
+	private ParseAction action;
+	private String source;
+
+	@Setup
+	public void setup() throws IOException {
+		Engine e = engine.equals("lexer") ? new LexerEngine() : new JavaParserEngine();
+
+		action = new ParseAction(FileSystems.getDefault(), CompactClassIndex.of(BenchmarkData.classes(100000)), new HashMap<>(), e);
+		source = BenchmarkData.source(size);
+
+		ParseResult result = action.parseJavaSource(source);
+
+		if(!result.errorMessages.isEmpty()){
+			throw new IllegalStateException(String.format("%s source does not parse - %s", size, result.errorMessages));
+		}
+	}
+
+	@Benchmark
+	public ParseResult parseJavaSource(){
+		return action.parseJavaSource(source);
+	}
+}
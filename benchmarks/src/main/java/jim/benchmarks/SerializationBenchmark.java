@@ -0,0 +1,78 @@
+package jim.benchmarks;
+
+import java.io.IOException;
+
+import java.nio.file.FileSystems;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.jr.annotationsupport.JacksonAnnotationExtension;
+import com.fasterxml.jackson.jr.ob.JSON;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jim.actions.ParseAction;
+
+import jim.index.CompactClassIndex;
+
+import jim.io.ParseResultWriter;
+
+import jim.models.ParseResult;
+
+/**
+ * Writing a ParseResult as json, with jackson-jr configured the way Main used
+ * to configure it and with the {@link ParseResultWriter} that replaced it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+	@Param({"medium", "huge"})
+	public String size;
+
+	@Param({"false", "true"})
+	public boolean prettyPrint;
+
+	private JSON json;
+	private ParseResultWriter writer;
+	private ParseResult result;
+
+	@Setup
+	public void setup() throws IOException {
+		JSON.Builder builder = JSON.builder().register(JacksonAnnotationExtension.std);
+
+		if(prettyPrint){
+			builder.enable(JSON.Feature.PRETTY_PRINT_OUTPUT);
+		}
+
+		json = builder.build();
+		writer = new ParseResultWriter(prettyPrint);
+
+		//an index without the source's classes leaves every type unresolved, the largest result
+		result = new ParseAction(FileSystems.getDefault(), CompactClassIndex.of(new HashMap<>()), new HashMap<>()).parseJavaSource(BenchmarkData.source(size));
+	}
+
+	@Benchmark
+	public String asString() throws IOException {
+		return json.asString(result);
+	}
+
+	@Benchmark
+	public String writer(){
+		return writer.asString(result);
+	}
+}
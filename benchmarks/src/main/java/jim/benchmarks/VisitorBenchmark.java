@@ -0,0 +1,63 @@
+package jim.benchmarks;
+
+import java.io.IOException;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jim.index.ClassIndex;
+import jim.index.CompactClassIndex;
+
+import jim.javaparser.ClassOrInterfaceTypeVisitor;
+
+import jim.models.FileTypeEntry;
+
+/**
+ * ClassOrInterfaceTypeVisitor on its own, over a compilation unit parsed once
+ * during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VisitorBenchmark {
+	@Param({"small", "medium", "huge"})
+	public String size;
+
+	private ClassIndex classes;
+	private CompilationUnit unit;
+
+	@Setup
+	public void setup() throws IOException {
+		classes = CompactClassIndex.of(BenchmarkData.classes(100000));
+		unit = new JavaParser().parse(BenchmarkData.source(size)).getResult().get();
+	}
+
+	@Benchmark
+	public Map<String, FileTypeEntry> visit(){
+		Map<String, FileTypeEntry> entries = new HashMap<>();
+
+		unit.accept(new ClassOrInterfaceTypeVisitor(classes, new HashSet<>()), entries);
+
+		return entries;
+	}
+}
@@ -7,16 +7,180 @@ if !exists("g:JimJavaOpts")
     let g:JimJavaOpts = ""
 endif
 
+if !exists("g:JimEngine")
+    let g:JimEngine = ""
+endif
+
+if !exists("g:JimClassPath")
+    let g:JimClassPath = ""
+endif
+
+if !exists("g:JimSourcePath")
+    let g:JimSourcePath = ""
+endif
+
+if !exists("g:JimCacheDir")
+    let g:JimCacheDir = ""
+endif
+
+if !exists("g:JimAsync")
+    let g:JimAsync = exists("*job_start") || exists("*jobstart")
+endif
+
+if !exists("g:JimSpeculate")
+    let g:JimSpeculate = 0
+endif
+
+if !exists("g:JimUseCoprocess")
+    let g:JimUseCoprocess = 1
+endif
+
+if !exists("g:JimUseDaemon")
+    let g:JimUseDaemon = 0
+endif
+
+if !exists("g:JimDaemonSocket")
+    let g:JimDaemonSocket = ""
+endif
+
+if !exists("g:JimDaemonIdleTimeout")
+    let g:JimDaemonIdleTimeout = 900
+endif
+
+function! s:JimLoadScript()
+	if s:loadScript
+		execute "py3file " . substitute(s:pluginHome, "\\", "/", "g") . "/pythonx/jim.py"
+
+		let s:loadScript = 0
+	endif
+endfunction
+
 function! <SID>JavaImpInsertMissing() 
 	if has('python3')
-		if s:loadScript
-			execute "py3file " . substitute(s:pluginHome, "\\", "/", "g") . "/pythonx/jim.py"
-
-			let s:loadScript = 0
-		endif
+		call s:JimLoadScript()
 
 		execute "python3 jim_import_missing()"
 	else
 		echom 'JavaImpMissing: No python support'
 	endif
 endfunction
+
+" analyzes the buffer in the background after a write or a pause, so :JIM can use the result
+function! <SID>JimSpeculate()
+	if g:JimSpeculate && has('python3') && str2nr(expand("<abuf>")) == bufnr("%")
+		call s:JimLoadScript()
+
+		execute "python3 jim_speculate()"
+	endif
+endfunction
+
+augroup JimSpeculate
+	autocmd!
+	autocmd BufWritePost,CursorHold *.java call <SID>JimSpeculate()
+augroup END
+
+" jobs run jim without blocking the editor, their output is handed to jim.py as it arrives
+let s:jobs = {}
+
+function! s:JimJobStart(key, command)
+	if has("nvim")
+		let job = jobstart(a:command, {"on_stdout" : function("s:JimJobOutput", [a:key]), "on_stderr" : function("s:JimJobError", [a:key]), "on_exit" : function("s:JimJobExit", [a:key])})
+
+		if job <= 0
+			return 0
+		endif
+	else
+		let job = job_start(a:command, {"mode" : "raw", "noblock" : 1, "out_cb" : function("s:JimJobOutput", [a:key]), "err_cb" : function("s:JimJobError", [a:key]), "close_cb" : function("s:JimJobClose", [a:key]), "exit_cb" : function("s:JimJobExit", [a:key])})
+
+		if job_status(job) ==# "fail"
+			return 0
+		endif
+	endif
+
+	let s:jobs[a:key] = job
+
+	return 1
+endfunction
+
+function! s:JimJobSend(key, text, close)
+	if !has_key(s:jobs, a:key)
+		return 0
+	endif
+
+	let job = s:jobs[a:key]
+
+	if has("nvim")
+		call chansend(job, a:text)
+
+		if a:close
+			call chanclose(job, "stdin")
+		endif
+	else
+		call ch_sendraw(job, a:text)
+
+		if a:close
+			call ch_close_in(job)
+		endif
+	endif
+
+	return 1
+endfunction
+
+function! s:JimJobStop(key)
+	if !has_key(s:jobs, a:key)
+		return 0
+	endif
+
+	if has("nvim")
+		call jobstop(s:jobs[a:key])
+	else
+		call job_stop(s:jobs[a:key])
+	endif
+
+	return 1
+endfunction
+
+" neovim passes a list of lines, the last one continued by the next call
+function! s:JimJobOutput(key, job, data, ...)
+	let text = type(a:data) == v:t_list ? join(a:data, "\n") : a:data
+
+	python3 jim_on_job_output(vim.eval("a:key"), vim.eval("l:text"))
+endfunction
+
+function! s:JimJobError(key, job, data, ...)
+	let text = type(a:data) == v:t_list ? join(a:data, "\n") : a:data
+
+	python3 jim_on_job_error(vim.eval("a:key"), vim.eval("l:text"))
+endfunction
+
+function! s:JimJobClose(key, channel)
+	python3 jim_on_job_close(vim.eval("a:key"))
+endfunction
+
+" neovim calls on_exit once the output is read, so it also closes the job
+function! s:JimJobExit(key, job, status, ...)
+	if has_key(s:jobs, a:key)
+		unlet s:jobs[a:key]
+	endif
+
+	if has("nvim")
+		python3 jim_on_job_close(vim.eval("a:key"))
+	endif
+
+	python3 jim_on_job_exit(vim.eval("a:key"), int(vim.eval("a:status")))
+endfunction
+
+" a pending request is cancelled once its buffer is changed or left
+function! s:JimWatchBuffer()
+	augroup JimPending
+		autocmd!
+		autocmd TextChanged,TextChangedI <buffer> python3 jim_check_requests()
+		autocmd BufLeave <buffer> python3 jim_cancel_requests()
+	augroup END
+endfunction
+
+function! s:JimUnwatchBuffer()
+	augroup JimPending
+		autocmd!
+	augroup END
+endfunction
@@ -1,6 +1,10 @@
+import getpass
 import json
 import os
+import socket
 import subprocess
+import tempfile
+import time
 import vim
 
 from jis import Sorter
@@ -26,19 +30,37 @@ def jim_load_java_imp_class_file(filepath):
     
     return results
 
-def jim_run_java_command():
+def jim_get_java_command():
     opts = vim.eval("g:JimJavaOpts")
     plugin_path = vim.eval("s:pluginHome")
+    native_file = "{0}/java/jim".format(plugin_path)
     jar_file = "{0}/java/jim-1.0-jar-with-dependencies.jar".format(plugin_path)
 
+    #a native image build starts without a jvm, so prefer it when present
+    if os.path.isfile(native_file) and os.access(native_file, os.X_OK):
+        return [native_file]
+
     arguments = ["java"]
 
     if opts:
         arguments.extend(opts.split(" "))
 
+    archive_file = "{0}/java/jim.jsa".format(plugin_path)
+
+    if os.path.isfile(archive_file):
+        arguments.append("-XX:SharedArchiveFile={0}".format(archive_file))
+        #keep jvm warnings, e.g. about an archive built for another jar, out of the json on stdout
+        arguments.append("-Xlog:disable")
+        arguments.append("-Xlog:all=warning:stderr")
+
     arguments.append("-jar")
     arguments.append(jar_file)
 
+    return arguments
+
+def jim_get_class_file_arguments():
+    arguments = []
+
     filename = vim.eval("g:JavaImpClassList")
 
     if os.path.isfile(filename):
@@ -51,9 +73,265 @@ def jim_run_java_command():
         arguments.append("--choice-file")
         arguments.append(filename)
 
-    arguments.append(vim.current.buffer.name)
+    return arguments
+
+def jim_get_engine_arguments():
+    engine = vim.eval("g:JimEngine")
+
+    if not engine:
+        return []
+
+    arguments = ["--engine", engine]
+
+    #the jars and source roots the precise engine resolves against
+    for option, variable in (("--classpath", "g:JimClassPath"), ("--sourcepath", "g:JimSourcePath")):
+        paths = vim.eval(variable)
+
+        if engine == "precise" and paths:
+            arguments.extend([option, os.pathsep.join(os.path.expanduser(p) for p in paths.split(os.pathsep))])
+
+    return arguments
+
+def jim_get_cache_arguments():
+    cache_dir = vim.eval("g:JimCacheDir")
+
+    if cache_dir:
+        return ["--cache-dir", os.path.expanduser(cache_dir)]
+
+    return []
+
+def jim_get_buffer_source():
+    #the live buffer is analyzed, so nothing has to be written to disk first
+    return "\n".join(vim.current.buffer) + "\n"
+
+def jim_use_daemon():
+    try:
+        return int(vim.eval("g:JimUseDaemon")) != 0
+    except (ValueError, vim.error):
+        return False
+
+def jim_get_daemon_socket():
+    socket_path = vim.eval("g:JimDaemonSocket")
+
+    if not socket_path:
+        socket_path = os.path.join(tempfile.gettempdir(), "jim-{0}.sock".format(getpass.getuser()))
+
+    return socket_path
+
+def jim_start_daemon(socket_path):
+    arguments = jim_get_java_command()
+    arguments.extend(["--daemon", "--socket", socket_path, "--idle-timeout", vim.eval("g:JimDaemonIdleTimeout")])
+    arguments.extend(jim_get_engine_arguments())
+    arguments.extend(jim_get_class_file_arguments())
+
+    subprocess.Popen(arguments, stdin=subprocess.DEVNULL, stdout=subprocess.DEVNULL, stderr=subprocess.DEVNULL, start_new_session=True)
+
+def jim_send_daemon_request(socket_path, request):
+    with socket.socket(socket.AF_UNIX, socket.SOCK_STREAM) as client:
+        client.connect(socket_path)
+        client.sendall("{0}\n".format(json.dumps(request)).encode("utf-8"))
+
+        chunks = []
+
+        while True:
+            chunk = client.recv(65536)
+
+            if not chunk:
+                break
+
+            chunks.append(chunk)
+
+    return b"".join(chunks).decode("utf-8")
+
+def jim_get_request():
+    arguments = jim_get_class_file_arguments()
+    request = {"filename" : os.path.abspath(vim.current.buffer.name), "format" : "compact", "source" : jim_get_buffer_source()}
+
+    for index in range(0, len(arguments), 2):
+        if arguments[index] == "--class-file":
+            request["classFile"] = os.path.abspath(arguments[index + 1])
+        else:
+            request["choiceFile"] = os.path.abspath(arguments[index + 1])
+
+    return request
+
+def jim_run_daemon_command():
+    socket_path = jim_get_daemon_socket()
+    request = jim_get_request()
+
+    try:
+        stdout = jim_send_daemon_request(socket_path, request)
+    except OSError:
+        jim_start_daemon(socket_path)
+
+        stdout = None
+
+        #wait for the daemon to load the class list and start listening
+        for attempt in range(100):
+            time.sleep(0.1)
+
+            try:
+                stdout = jim_send_daemon_request(socket_path, request)
+                break
+            except OSError:
+                pass
+
+        if stdout is None:
+            return None
+
+    return subprocess.CompletedProcess([], 0, stdout, "")
+
+#the jim --serve-stdio process kept for the editor session and the arguments it was started with
+jim_coprocess = None
+jim_coprocess_arguments = None
+
+def jim_use_coprocess():
+    try:
+        return int(vim.eval("g:JimUseCoprocess")) != 0
+    except (ValueError, vim.error):
+        return False
+
+def jim_stop_coprocess():
+    global jim_coprocess
+
+    if jim_coprocess is not None:
+        try:
+            jim_coprocess.stdin.close()
+        except OSError:
+            pass
+
+        jim_coprocess.kill()
+        jim_coprocess.wait()
+        jim_coprocess = None
+
+def jim_get_coprocess(arguments):
+    global jim_coprocess, jim_coprocess_arguments
+
+    #a changed engine or class list starts a new process
+    if jim_coprocess is not None and (jim_coprocess.poll() is not None or jim_coprocess_arguments != arguments):
+        jim_stop_coprocess()
+
+    if jim_coprocess is None:
+        jim_coprocess = subprocess.Popen(arguments, stdin=subprocess.PIPE, stdout=subprocess.PIPE, stderr=subprocess.DEVNULL, text=True, encoding="utf-8")
+        jim_coprocess_arguments = arguments
+
+    return jim_coprocess
+
+def jim_send_coprocess_request(process, request):
+    process.stdin.write("{0}\n".format(json.dumps(request)))
+    process.stdin.flush()
+
+    lines = []
+
+    #compact responses end with an empty line
+    while True:
+        line = process.stdout.readline()
+
+        if not line:
+            raise OSError("jim exited")
+
+        if line == "\n":
+            break
+
+        lines.append(line)
+
+    return "".join(lines)
+
+def jim_get_coprocess_arguments():
+    arguments = jim_get_java_command()
+    arguments.append("--serve-stdio")
+    arguments.extend(jim_get_engine_arguments())
+    arguments.extend(jim_get_class_file_arguments())
 
-    return subprocess.run(arguments, capture_output=True, text=True)
+    return arguments
+
+def jim_run_coprocess_command():
+    arguments = jim_get_coprocess_arguments()
+    request = jim_get_request()
+
+    #a process that died since the last call is started again once
+    for attempt in range(2):
+        try:
+            stdout = jim_send_coprocess_request(jim_get_coprocess(arguments), request)
+
+            return subprocess.CompletedProcess([], 0, stdout, "")
+        except (OSError, ValueError):
+            jim_stop_coprocess()
+
+    return None
+
+def jim_get_run_arguments():
+    arguments = jim_get_java_command()
+    arguments.extend(["--format", "compact"])
+    arguments.extend(jim_get_engine_arguments())
+    arguments.extend(jim_get_cache_arguments())
+    arguments.extend(jim_get_class_file_arguments())
+    arguments.extend(["--stdin", "--stdin-filename", vim.current.buffer.name])
+
+    return arguments
+
+def jim_run_java_command():
+    if jim_use_daemon():
+        result = jim_run_daemon_command()
+
+        if result is not None:
+            return result
+    elif jim_use_coprocess():
+        result = jim_run_coprocess_command()
+
+        if result is not None:
+            return result
+
+    return subprocess.run(jim_get_run_arguments(), input=jim_get_buffer_source(), capture_output=True, text=True, encoding="utf-8")
+
+JIM_ESCAPES = {"t" : "\t", "n" : "\n", "r" : "\r"}
+
+def jim_unescape_field(value):
+    if "\\" not in value:
+        return value
+
+    chars = []
+    index = 0
+
+    while index < len(value):
+        char = value[index]
+
+        if char == "\\" and index + 1 < len(value):
+            index = index + 1
+            char = JIM_ESCAPES.get(value[index], value[index])
+
+        chars.append(char)
+        index = index + 1
+
+    return "".join(chars)
+
+def jim_create_compact_result():
+    #the tab separated records written by jim --format compact, kept in the shape of the json result
+    return {"errorMessages" : [], "firstImportStatementLine" : 0, "lastImportStatementLine" : 0, "package" : {"position" : {"line" : 0}}, "imports" : [], "types" : []}
+
+def jim_parse_compact_record(js, line):
+    fields = line.split("\t")
+    kind = fields[0]
+
+    if kind == "T":
+        js["types"].append({"position" : {"line" : int(fields[1]), "column" : int(fields[2])}, "value" : fields[3], "choices" : fields[4:]})
+    elif kind == "I":
+        js["imports"].append({"static" : fields[3] == "1", "value" : fields[4]})
+    elif kind == "R":
+        js["firstImportStatementLine"] = int(fields[1])
+        js["lastImportStatementLine"] = int(fields[2])
+    elif kind == "P":
+        js["package"]["position"]["line"] = int(fields[1])
+    elif kind == "E":
+        js["errorMessages"].append(jim_unescape_field(fields[1]))
+
+def jim_parse_compact_result(stdout):
+    js = jim_create_compact_result()
+
+    for line in stdout.split("\n"):
+        jim_parse_compact_record(js, line)
+
+    return js
 
 def jim_show_error_message(msg):
     try:
@@ -103,7 +381,7 @@ def jim_update_choices(choices, name, selection):
     values.insert(0, selection)
 
 def jim_save_java_imp_class_file(filename, classes):
-    with open(filename, "w") as file:
+    with open(filename, "w", encoding="utf-8") as file:
         for name, values in classes.items():
             line = name
 
@@ -113,10 +391,67 @@ def jim_save_java_imp_class_file(filename, classes):
             file.write(line)
             file.write("\n")
     
+#the choice file is an append only journal, a later line wins over an earlier one
+JIM_CHOICE_COMPACT_SIZE = 64 * 1024
+
+#the journal is only read for compaction once it has grown this many times over since the last check
+JIM_CHOICE_COMPACT_GROWTH = 2
+
+def jim_load_choice_journal(filename):
+    choices = {}
+    lines = 0
+
+    with open(filename, "r", encoding="utf-8") as file:
+        for line in file:
+            values = line.strip().split(" ")
+
+            if len(values) > 1:
+                lines = lines + 1
+
+                for value in reversed(values[1:]):
+                    jim_update_choices(choices, values[0], value)
+
+    return choices, lines
+
+def jim_get_compacted_size(filename):
+    try:
+        with open("{0}.compacted".format(filename), "r", encoding="utf-8") as file:
+            return int(file.read().strip())
+    except (OSError, ValueError):
+        return 0
+
+def jim_set_compacted_size(filename):
+    with open("{0}.compacted".format(filename), "w", encoding="utf-8") as file:
+        file.write(str(os.path.getsize(filename)))
+
+def jim_compact_choices(filename):
+    choices, lines = jim_load_choice_journal(filename)
+
+    #rewrite only once most lines repeat a name
+    if lines > 2 * len(choices):
+        temp_filename = "{0}.tmp".format(filename)
+
+        jim_save_java_imp_class_file(temp_filename, choices)
+        os.replace(temp_filename, filename)
+
+    #checked either way, so it is not read again before it has grown
+    jim_set_compacted_size(filename)
+
+def jim_append_choices(filename, selections):
+    if not selections:
+        return
+
+    with open(filename, "a", encoding="utf-8") as file:
+        for name, selection in selections:
+            file.write("{0} {1}\n".format(name, selection))
+
+    limit = max(JIM_CHOICE_COMPACT_SIZE, JIM_CHOICE_COMPACT_GROWTH * jim_get_compacted_size(filename))
+
+    if os.path.getsize(filename) >= limit:
+        jim_compact_choices(filename)
+
 def jim_process_results(js):
-    filename = "{0}/choices.txt".format(vim.eval("g:JavaImpDataDir"))
-    
-    choices  = jim_load_java_imp_class_file(filename)
+    selections = []
 
     for identifier in js["types"]:
         line = identifier["position"]["line"]
@@ -138,7 +473,7 @@ def jim_process_results(js):
             if selection:
                 js["imports"].append({"value" : selection}) 
 
-                jim_update_choices(choices, identifier["value"], selection) 
+                selections.append((identifier["value"], selection))
         else:
             vim.command("echohl MoreMsg")
             vim.eval("input(\"{0}\")".format("No match found for {0}.".format(identifier["value"])))
@@ -146,7 +481,7 @@ def jim_process_results(js):
 
         vim.eval("matchdelete({0})".format(match_id))
 
-    jim_save_java_imp_class_file(filename, choices)
+    jim_append_choices("{0}/choices.txt".format(vim.eval("g:JavaImpDataDir")), selections)
 
 def jim_insert_import_statements(js):
     start_line = js["firstImportStatementLine"]
@@ -182,22 +517,9 @@ def jim_insert_import_statements(js):
     if import_count > 0:
         vim.current.buffer.append("", start_line + import_count)
 
-def jim_import_missing():
-    cursor_position = vim.eval("getcurpos()")
-
-    result = jim_run_java_command()
-
-    if result.returncode != 0:
-        message = result.stdout
-
-        if message == "":
-            message = result.stderr
-        
-        jim_show_error_message(message)
-
-        return
-
-    js = json.loads(result.stdout) 
+def jim_apply_result(js, cursor_position):
+    #the choices made below reorder the choices of the kept results
+    jim_results.clear()
 
     if js["errorMessages"]:
         jim_show_error_message("\n".join(js["errorMessages"]))
@@ -213,3 +535,286 @@ def jim_import_missing():
         vim.eval("cursor({0}, {1})".format(cursor_position[1], cursor_position[2]))
 
     vim.command("redraw")
+
+def jim_use_async():
+    try:
+        return int(vim.eval("g:JimAsync")) != 0
+    except (ValueError, vim.error):
+        return False
+
+#the jobs started by the plugin script by key, a job is a dict of
+#  arguments, whether it is the session co-process, the partial last line of its output,
+#  its error output, whether its output is closed, its exit status and the requests waiting for it in order
+jim_jobs = {}
+jim_job_count = 0
+jim_coprocess_job = None
+
+#the completed speculative requests by buffer number
+jim_results = {}
+
+def jim_start_job(arguments, persistent):
+    global jim_job_count
+
+    jim_job_count = jim_job_count + 1
+
+    key = "jim-{0}".format(jim_job_count)
+    job = {"key" : key, "arguments" : arguments, "persistent" : persistent, "output" : "", "errors" : [], "closed" : False, "status" : None, "requests" : []}
+
+    if vim.eval("s:JimJobStart(\"{0}\", {1})".format(key, json.dumps(arguments, ensure_ascii=False))) != "1":
+        return None
+
+    jim_jobs[key] = job
+
+    return job
+
+def jim_send_job_input(job, text, close):
+    vim.eval("s:JimJobSend(\"{0}\", {1}, {2})".format(job["key"], json.dumps(text, ensure_ascii=False), 1 if close else 0))
+
+def jim_stop_job(job):
+    vim.eval("s:JimJobStop(\"{0}\")".format(job["key"]))
+
+def jim_get_coprocess_job(arguments):
+    global jim_coprocess_job
+
+    job = jim_coprocess_job
+
+    #a changed engine or class list starts a new process
+    if job is not None and (job["key"] not in jim_jobs or job["arguments"] != arguments):
+        for request in job["requests"]:
+            request["cancelled"] = True
+
+        jim_stop_job(job)
+
+        job = None
+
+    if job is None:
+        job = jim_start_job(arguments, True)
+
+    jim_coprocess_job = job
+
+    return job
+
+def jim_cancel_requests(keep = None):
+    vim.command("call s:JimUnwatchBuffer()")
+
+    for job in list(jim_jobs.values()):
+        kept = False
+
+        for request in job["requests"]:
+            if request is keep:
+                kept = True
+            else:
+                request["cancelled"] = True
+
+        #the co-process still answers, the answer is skipped
+        if not job["persistent"] and not kept:
+            jim_stop_job(job)
+
+def jim_check_requests():
+    #called when the buffer may have changed or been left while a request runs
+    for job in jim_jobs.values():
+        for request in job["requests"]:
+            if not request["cancelled"] and not jim_is_current_request(request):
+                jim_cancel_requests()
+
+                return
+
+def jim_is_current_request(request):
+    return request["buffer"] == int(vim.eval("bufnr(\"%\")")) and request["tick"] == int(vim.eval("b:changedtick"))
+
+def jim_finish_request(request, message):
+    if request["cancelled"]:
+        return
+
+    #kept for the next :JIM, which checks the changedtick
+    if request["speculative"]:
+        if not message:
+            jim_results[request["buffer"]] = request
+
+        return
+
+    vim.command("call s:JimUnwatchBuffer()")
+
+    #a result for an older version of the buffer is dropped
+    if not jim_is_current_request(request):
+        return
+
+    if message:
+        jim_show_error_message(message)
+    else:
+        jim_apply_result(request["js"], request["cursor"])
+
+def jim_on_job_line(job, line):
+    if not job["requests"]:
+        return
+
+    request = job["requests"][0]
+
+    if job["persistent"] and not line:
+        job["requests"].pop(0)
+
+        jim_finish_request(request, None)
+    elif not request["cancelled"]:
+        #records are parsed as they arrive
+        request["output"].append(line)
+
+        jim_parse_compact_record(request["js"], line)
+
+def jim_on_job_output(key, text):
+    job = jim_jobs.get(key)
+
+    if job is None:
+        return
+
+    lines = "{0}{1}".format(job["output"], text).split("\n")
+    job["output"] = lines.pop()
+
+    for line in lines:
+        jim_on_job_line(job, line)
+
+def jim_on_job_error(key, text):
+    job = jim_jobs.get(key)
+
+    if job is not None:
+        job["errors"].append(text)
+
+def jim_end_job(job):
+    if not job["closed"] or job["status"] is None:
+        return
+
+    del jim_jobs[job["key"]]
+
+    if job["output"]:
+        jim_on_job_line(job, job["output"])
+
+    for request in job["requests"]:
+        message = None
+
+        #a co-process only ends early, a single run fails with its status
+        if job["persistent"] or job["status"] != 0:
+            message = "" if job["persistent"] else "\n".join(request["output"])
+
+            if message == "":
+                message = "".join(job["errors"])
+
+            if message == "":
+                message = "jim exited with status {0}".format(job["status"])
+
+        jim_finish_request(request, message)
+
+    job["requests"] = []
+
+def jim_on_job_close(key):
+    job = jim_jobs.get(key)
+
+    if job is not None:
+        job["closed"] = True
+
+        jim_end_job(job)
+
+def jim_on_job_exit(key, status):
+    job = jim_jobs.get(key)
+
+    if job is not None:
+        job["status"] = status
+
+        jim_end_job(job)
+
+def jim_get_job_arguments():
+    if jim_use_coprocess():
+        return jim_get_coprocess_arguments()
+
+    return jim_get_run_arguments()
+
+def jim_is_request_for(request, arguments):
+    return jim_is_current_request(request) and request["arguments"] == arguments
+
+def jim_find_request(arguments):
+    for job in jim_jobs.values():
+        for request in job["requests"]:
+            if not request["cancelled"] and jim_is_request_for(request, arguments):
+                return request
+
+    return None
+
+def jim_start_request(speculative):
+    arguments = jim_get_job_arguments()
+    request = jim_find_request(arguments)
+
+    #a running request for the buffer as it is now is waited for instead of started again
+    if request is not None:
+        if not speculative and request["speculative"]:
+            jim_cancel_requests(request)
+
+            request["speculative"] = False
+            request["cursor"] = vim.eval("getcurpos()")
+
+            vim.command("call s:JimWatchBuffer()")
+
+        return True
+
+    jim_cancel_requests()
+
+    request = {"buffer" : int(vim.eval("bufnr(\"%\")")), "tick" : int(vim.eval("b:changedtick")), "arguments" : arguments, "cursor" : vim.eval("getcurpos()"), "js" : jim_create_compact_result(), "output" : [], "speculative" : speculative, "cancelled" : False}
+
+    if jim_use_coprocess():
+        job = jim_get_coprocess_job(arguments)
+        text = "{0}\n".format(json.dumps(jim_get_request()))
+    else:
+        job = jim_start_job(arguments, False)
+        text = jim_get_buffer_source()
+
+    if job is None:
+        return False
+
+    job["requests"].append(request)
+
+    jim_send_job_input(job, text, not job["persistent"])
+
+    if not speculative:
+        vim.command("call s:JimWatchBuffer()")
+
+    return True
+
+def jim_get_speculative_result():
+    request = jim_results.get(int(vim.eval("bufnr(\"%\")")))
+
+    if request is not None and jim_is_request_for(request, jim_get_job_arguments()):
+        return request
+
+    return None
+
+def jim_speculate():
+    #called on BufWritePost and CursorHold so a following :JIM finds the result ready
+    if not jim_use_async() or jim_use_daemon() or jim_get_speculative_result() is not None:
+        return
+
+    jim_start_request(True)
+
+def jim_import_missing():
+    request = jim_get_speculative_result()
+
+    if request is not None:
+        jim_apply_result(request["js"], vim.eval("getcurpos()"))
+
+        return
+
+    #the daemon answers over a socket the jobs can not read, so it is always waited for
+    if jim_use_async() and not jim_use_daemon() and jim_start_request(False):
+        return
+
+    cursor_position = vim.eval("getcurpos()")
+
+    result = jim_run_java_command()
+
+    if result.returncode != 0:
+        message = result.stdout
+
+        if message == "":
+            message = result.stderr
+        
+        jim_show_error_message(message)
+
+        return
+
+    jim_apply_result(jim_parse_compact_result(result.stdout), cursor_position)
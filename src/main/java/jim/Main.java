@@ -1,33 +1,75 @@
 package jim;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-
-import org.apache.commons.io.IOUtils;
+import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.jr.annotationsupport.JacksonAnnotationExtension;
 import com.fasterxml.jackson.jr.ob.JSON;
 
+import jim.actions.BatchAction;
+import jim.actions.IndexAction;
 import jim.actions.ParseAction;
+import jim.actions.ReportAction;
+
+import jim.engine.Engine;
+import jim.engine.JavaParserEngine;
+import jim.engine.LexerEngine;
+import jim.engine.SymbolSolverEngine;
+
+import jim.index.ChoiceIndex;
+import jim.index.ClassIndex;
 
+import jim.io.ChoiceJournal;
+import jim.io.ClassFileCache;
+import jim.io.ClassIndexSerializer;
 import jim.io.ClassListDeserializer;
+import jim.io.CompactResultWriter;
+import jim.io.ParseResultWriter;
+import jim.io.ResultCache;
 
+import jim.models.IndexResult;
 import jim.models.ParseResult;
+import jim.models.PhaseStats;
+import jim.models.ReportResult;
+import jim.models.ReportSummary;
+
+import jim.server.DaemonServer;
+import jim.server.RequestHandler;
+import jim.server.StdioServer;
+
+import jim.stats.PhaseTimer;
 
 import joptsimple.OptionParser;
 import joptsimple.OptionSet;
 
 public class Main {
+	private static final long DEFAULT_IDLE_TIMEOUT = 900;
+
 	private static void printUsage(String filename, int exitCode) throws IOException {
 		try(InputStream input = Main.class.getClassLoader().getResourceAsStream(filename)){
-			System.out.println(IOUtils.toString(input, StandardCharsets.UTF_8));
+			System.out.println(new String(input.readAllBytes(), StandardCharsets.UTF_8));
 		}
 
 		System.exit(exitCode);
@@ -55,12 +97,329 @@ public class Main {
 		return Map.<String, List<String>>of();
 	}
 
+	private static ChoiceIndex parseChoiceFile(FileSystem fileSystem, String filename, boolean required, boolean useSnapshots){
+		try{
+			return new ChoiceJournal(fileSystem, useSnapshots).read(filename, required);
+		}
+		catch(IOException ex){
+			System.err.println(ex.getMessage());
+			System.exit(-1);
+		}
+
+		return null;
+	}
+
+	private static ClassIndex parseClassIndex(ClassListDeserializer deserializer, String filename, boolean required){
+		try{
+			return deserializer.deserializeIndex(filename, required);
+		}
+		catch(IOException ex){
+			System.err.println(ex.getMessage());
+			System.exit(-1);
+		}
+
+		return null;
+	}
+
+	private static void convertClassFile(FileSystem fileSystem, ClassListDeserializer deserializer, String classFileName, String filename){
+		Map<String, List<String>> classes = parseClassFile(deserializer, classFileName, true);
+
+		try{
+			new ClassIndexSerializer(fileSystem).serialize(classes, filename);
+		}
+		catch(IOException ex){
+			System.err.println(ex.getMessage());
+			System.exit(-1);
+		}
+	}
+
+	private static List<Path> getPaths(FileSystem fileSystem, OptionSet options, String name){
+		List<Path> paths = new ArrayList<>();
+
+		if(!options.has(name)){
+			return paths;
+		}
+
+		for(String entry : options.valueOf(name).toString().split(File.pathSeparator)){
+			if(entry.isEmpty()){
+				continue;
+			}
+
+			Path path = fileSystem.getPath(entry);
+
+			if(!Files.exists(path)){
+				System.err.println(String.format("unable to find %s entry - %s", name, entry));
+				System.exit(-1);
+			}
+
+			paths.add(path);
+		}
+
+		return paths;
+	}
+
+	private static Engine getEngine(FileSystem fileSystem, OptionSet options){
+		String name = options.has("engine") ? options.valueOf("engine").toString() : "javaparser";
+
+		if(name.equals("javaparser")){
+			return new JavaParserEngine();
+		}
+
+		if(name.equals("lexer")){
+			return new LexerEngine();
+		}
+
+		if(name.equals("precise")){
+			return new SymbolSolverEngine(getPaths(fileSystem, options, "classpath"), getPaths(fileSystem, options, "sourcepath"));
+		}
+
+		System.err.println(String.format("unknown engine - %s", name));
+		System.exit(-1);
+
+		return null;
+	}
+
+	private static boolean isCompactFormat(OptionSet options){
+		String name = options.has("format") ? options.valueOf("format").toString() : "json";
+
+		if(name.equals("json")){
+			return false;
+		}
+
+		if(name.equals("compact")){
+			return true;
+		}
+
+		System.err.println(String.format("unknown format - %s", name));
+		System.exit(-1);
+
+		return false;
+	}
+
+	private static ResultCache getResultCache(FileSystem fileSystem, OptionSet options, String classFileName, String choiceFileName, Engine engine){
+		//precise results also depend on the other files of the source path, which the key does not cover
+		if(!options.has("cache-dir") || engine instanceof SymbolSolverEngine){
+			return null;
+		}
+
+		long maxSize = ResultCache.DEFAULT_MAX_SIZE;
+
+		if(options.has("cache-size")){
+			maxSize = Long.parseLong(options.valueOf("cache-size").toString()) * 1024 * 1024;
+		}
+
+		//a result is only reused while the class list, choices and engine that produced it are unchanged
+		String version = String.format("%s|%s|%s", ResultCache.getFileVersion(fileSystem, classFileName),
+			ResultCache.getFileVersion(fileSystem, choiceFileName), engine.getClass().getName());
+
+		return new ResultCache(fileSystem, options.valueOf("cache-dir").toString(), maxSize, version);
+	}
+
+	private static Path getSocketPath(FileSystem fileSystem, OptionSet options){
+		if(options.has("socket")){
+			return fileSystem.getPath(options.valueOf("socket").toString());
+		}
+
+		return fileSystem.getPath(System.getProperty("java.io.tmpdir"), String.format("jim-%s.sock", System.getProperty("user.name")));
+	}
+
+	private static RequestHandler createRequestHandler(FileSystem fileSystem, ClassListDeserializer deserializer, OptionSet options, String classFileName, String choiceFileName){
+		ClassFileCache cache = new ClassFileCache(fileSystem, deserializer, new ChoiceJournal(fileSystem, !options.has("no-snapshot")));
+
+		//load the class list up front so the first request does not pay for it
+		try{
+			cache.getClasses(classFileName, options.has("class-file"));
+		}
+		catch(IOException ex){
+			System.err.println(ex.getMessage());
+			System.exit(-1);
+		}
+
+		return new RequestHandler(fileSystem, cache, classFileName, choiceFileName, getEngine(fileSystem, options));
+	}
+
+	private static void runDaemon(FileSystem fileSystem, ClassListDeserializer deserializer, JSON json, OptionSet options, String classFileName, String choiceFileName) throws IOException {
+		long idleTimeout = DEFAULT_IDLE_TIMEOUT;
+
+		if(options.has("idle-timeout")){
+			idleTimeout = Long.parseLong(options.valueOf("idle-timeout").toString());
+		}
+
+		RequestHandler handler = createRequestHandler(fileSystem, deserializer, options, classFileName, choiceFileName);
+
+		new DaemonServer(getSocketPath(fileSystem, options), idleTimeout * 1000, handler, json).run();
+	}
+
+	private static void runStdio(FileSystem fileSystem, ClassListDeserializer deserializer, JSON json, OptionSet options, String classFileName, String choiceFileName) throws IOException {
+		RequestHandler handler = createRequestHandler(fileSystem, deserializer, options, classFileName, choiceFileName);
+
+		new StdioServer(handler, json).run(System.in, new FileOutputStream(FileDescriptor.out));
+	}
+
+	private static Iterator<String> getBatchFileNames(List<?> nonOptions){
+		if(!nonOptions.isEmpty()){
+			return nonOptions.stream().map(Object::toString).iterator();
+		}
+
+		BufferedReader reader = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+
+		return reader.lines().map(String::trim).filter(line -> !line.isEmpty()).iterator();
+	}
+
+	private static int getThreads(OptionSet options){
+		if(options.has("threads")){
+			return Integer.parseInt(options.valueOf("threads").toString());
+		}
+
+		return Runtime.getRuntime().availableProcessors();
+	}
+
+	private static void runReport(FileSystem fileSystem, ParseAction action, JSON json, OptionSet options, String directory) throws IOException {
+		ReportResult result = new ReportAction(action, getThreads(options)).report(fileSystem.getPath(directory));
+		ReportSummary summary = result.summary;
+
+		System.out.println(json.asString(result));
+		System.err.println(String.format("%d files, %d with issues - %d unresolved types, %d ambiguous types, %d unused imports - %.3fs (%.1f files/sec)",
+			summary.files, summary.filesWithIssues, summary.unresolvedTypes, summary.ambiguousTypes, summary.unusedImports,
+			summary.elapsedMillis / 1000.0, summary.filesPerSecond));
+	}
+
+	private static void runIndex(FileSystem fileSystem, JSON json, OptionSet options, List<?> nonOptions, String classFileName) throws IOException {
+		List<String> archives = nonOptions.stream().map(Object::toString).collect(Collectors.toList());
+		IndexResult result = null;
+
+		try{
+			result = new IndexAction(fileSystem, getThreads(options)).index(archives, !options.has("no-jdk"), classFileName);
+		}
+		catch(InterruptedException ex){
+			Thread.currentThread().interrupt();
+
+			return;
+		}
+
+		System.out.println(json.asString(result));
+		System.err.println(String.format("%d classes from %d archives, %d scanned - %.3fs",
+			result.classes, result.archives, result.scannedArchives, result.elapsedMillis / 1000.0));
+	}
+
+	private static void addRunStats(ParseResult result, PhaseStats load, long mainStart){
+		if(result.stats != null){
+			long uptime = PhaseTimer.getUptime();
+
+			//the jvm startup is the uptime when main was entered
+			result.stats.load = load;
+			result.stats.jvmStartupMillis = uptime - (System.nanoTime() - mainStart) / 1000000;
+			result.stats.jvmUptimeMillis = uptime;
+		}
+	}
+
+	/**
+	 * Streams the result to stdout. Json is written with the same bytes
+	 * System.out.println would have produced for the json string.
+	 */
+	private static void printResult(ParseResult result, boolean prettyPrint, boolean compact) throws IOException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(FileDescriptor.out), Charset.defaultCharset()));
+		CompactResultWriter compactWriter = new CompactResultWriter();
+		ParseResultWriter jsonWriter = new ParseResultWriter(prettyPrint);
+
+		//the stats are part of the output, so the output phase is timed on a first rendering
+		if(result.stats != null){
+			PhaseTimer timer = new PhaseTimer(true);
+
+			if(compact){
+				compactWriter.asString(result);
+			}
+			else{
+				jsonWriter.asString(result);
+			}
+
+			result.stats.output = timer.stop("output");
+			result.stats.jvmUptimeMillis = PhaseTimer.getUptime();
+		}
+
+		if(compact){
+			compactWriter.write(result, writer);
+		}
+		else{
+			jsonWriter.write(result, writer);
+
+			writer.write(System.lineSeparator());
+		}
+
+		writer.flush();
+	}
+
+	private static void runBatch(ParseAction action, OptionSet options, List<?> nonOptions, PhaseStats load, long mainStart) throws IOException {
+		int threads = getThreads(options);
+
+		boolean compact = isCompactFormat(options);
+
+		//one json result per line, so pretty printing is never used here
+		ParseResultWriter resultWriter = new ParseResultWriter(false);
+		CompactResultWriter compactWriter = new CompactResultWriter();
+		Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(FileDescriptor.out), StandardCharsets.UTF_8));
+
+		try{
+			new BatchAction(action, threads).parse(getBatchFileNames(nonOptions), result -> {
+				try{
+					addRunStats(result, load, mainStart);
+
+					//compact records of a file end with an empty line, like --serve-stdio
+					if(compact){
+						compactWriter.write(result, writer);
+					}
+					else{
+						resultWriter.write(result, writer);
+					}
+
+					writer.write('\n');
+					writer.flush();
+				}
+				catch(IOException ex){
+					throw new UncheckedIOException(ex);
+				}
+			});
+		}
+		catch(InterruptedException ex){
+			Thread.currentThread().interrupt();
+		}
+		catch(UncheckedIOException ex){
+			//stdout was closed, like a pipe into head
+			System.err.println(ex.getCause().getMessage());
+			System.exit(-1);
+		}
+
+		writer.flush();
+	}
+
 	public static void main(String[] args) throws IOException {
+		//the management beans are only read for --stats, so only the clock is read here
+		long mainStart = System.nanoTime();
 		OptionParser parser = new OptionParser("hp");
 		parser.accepts("help");
 		parser.accepts("pretty-print");
 		parser.accepts("class-file").withRequiredArg();
 		parser.accepts("choice-file").withRequiredArg();
+		parser.accepts("no-snapshot");
+		parser.accepts("convert-index").withRequiredArg();
+		parser.accepts("batch");
+		parser.accepts("report");
+		parser.accepts("threads").withRequiredArg();
+		parser.accepts("daemon");
+		parser.accepts("socket").withRequiredArg();
+		parser.accepts("idle-timeout").withRequiredArg();
+		parser.accepts("serve-stdio");
+		parser.accepts("engine").withRequiredArg();
+		parser.accepts("index");
+		parser.accepts("no-jdk");
+		parser.accepts("format").withRequiredArg();
+		parser.accepts("stdin");
+		parser.accepts("stdin-filename").withRequiredArg();
+		parser.accepts("cache-dir").withRequiredArg();
+		parser.accepts("cache-size").withRequiredArg();
+		parser.accepts("classpath").withRequiredArg();
+		parser.accepts("sourcepath").withRequiredArg();
+		parser.accepts("stats");
 
 		OptionSet options = parser.parse(args);
 		List<?> nonOptions = options.nonOptionArguments();
@@ -69,10 +428,6 @@ public class Main {
 			printUsage("usage.txt", 0);
 		}
 
-		if(nonOptions.isEmpty()){
-			printUsage("usage.txt", -1);	
-		}
-
 		String classFileName = "classes.jim";
 		String choiceFileName = "choices.jim";
 
@@ -85,14 +440,68 @@ public class Main {
 		}
 
 		FileSystem fileSystem = FileSystems.getDefault();
-		ClassListDeserializer deserializer = new ClassListDeserializer(fileSystem);
+		ClassListDeserializer deserializer = new ClassListDeserializer(fileSystem, !options.has("no-snapshot"));
 		JSON json = createJSON(options.has("p") | options.has("pretty-print"));
 
-		Map<String, List<String>> classes = parseClassFile(deserializer, classFileName, options.has("class-file"));
-		Map<String, List<String>> choices = parseClassFile(deserializer, choiceFileName, options.has("choice-file"));
+		if(options.has("convert-index")){
+			convertClassFile(fileSystem, deserializer, classFileName, options.valueOf("convert-index").toString());
 
-		ParseResult result = new ParseAction(fileSystem, classes, choices).parse(nonOptions.get(0).toString());	
+			return;
+		}
 
-		System.out.println(json.asString(result));
+		if(options.has("index")){
+			runIndex(fileSystem, json, options, nonOptions, classFileName);
+
+			return;
+		}
+
+		if(options.has("daemon")){
+			runDaemon(fileSystem, deserializer, json, options, classFileName, choiceFileName);
+
+			return;
+		}
+
+		if(options.has("serve-stdio")){
+			runStdio(fileSystem, deserializer, json, options, classFileName, choiceFileName);
+
+			return;
+		}
+
+		if(nonOptions.isEmpty() && !options.has("batch") && !options.has("stdin")){
+			printUsage("usage.txt", -1);	
+		}
+
+		PhaseTimer timer = new PhaseTimer(options.has("stats"));
+		ClassIndex classes = parseClassIndex(deserializer, classFileName, options.has("class-file"));
+		ChoiceIndex choices = parseChoiceFile(fileSystem, choiceFileName, options.has("choice-file"), !options.has("no-snapshot"));
+		PhaseStats load = timer.stop("load");
+		Engine engine = getEngine(fileSystem, options);
+		ResultCache cache = getResultCache(fileSystem, options, classFileName, choiceFileName, engine);
+		ParseAction action = new ParseAction(fileSystem, classes, choices, engine, cache, options.has("stats"));
+
+		if(options.has("batch")){
+			runBatch(action, options, nonOptions, load, mainStart);
+
+			return;
+		}
+
+		if(options.has("report")){
+			runReport(fileSystem, action, json, options, nonOptions.get(0).toString());
+
+			return;
+		}
+
+		ParseResult result;
+
+		if(options.has("stdin")){
+			result = action.parse(System.in, options.has("stdin-filename") ? options.valueOf("stdin-filename").toString() : "stdin");
+		}
+		else{
+			result = action.parse(nonOptions.get(0).toString());
+		}
+
+		addRunStats(result, load, mainStart);
+
+		printResult(result, options.has("p") | options.has("pretty-print"), isCompactFormat(options));
 	}
 }
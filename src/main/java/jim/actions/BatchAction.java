@@ -0,0 +1,103 @@
+package jim.actions;
+
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import jim.models.ParseResult;
+
+/**
+ * Runs a single {@link ParseAction} over many files using a pool of worker
+ * threads.
+ *
+ * Results are handed to the consumer as soon as each file finishes, in
+ * completion order. Filenames are pulled from the iterator only when a
+ * worker is about to become free, so an arbitrarily long list of files can
+ * be streamed through with a bounded number of results in memory. A failing
+ * consumer, like one writing to a closed pipe, stops the batch.
+ */
+public class BatchAction implements JimAction<ParseResult> {
+	private final ParseAction action;
+	private final int threads;
+
+	public BatchAction(ParseAction action, int threads){
+		this.action = action;
+		this.threads = Math.max(1, threads);
+	}
+
+	private ParseResult parse(String filename){
+		ParseResult result;
+
+		try{
+			result = action.parse(filename);
+		}
+		catch(RuntimeException ex){
+			result = new ParseResult();
+			result.errorMessages.add(String.format("unable to parse file - %s", ex.getMessage()));
+		}
+
+		result.filename = filename;
+
+		return result;
+	}
+
+	/**
+	 * Parses every file returned by the iterator and returns the number of
+	 * files parsed. The consumer may be called from several threads but never
+	 * concurrently. The first exception thrown by the consumer stops further
+	 * files from being parsed and is rethrown once the running workers finish.
+	 */
+	public int parse(Iterator<String> filenames, Consumer<ParseResult> consumer) throws InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		Semaphore pending = new Semaphore(threads * 2);
+		Object lock = new Object();
+		AtomicReference<RuntimeException> failure = new AtomicReference<>();
+		int count = 0;
+
+		try{
+			while(failure.get() == null && filenames.hasNext()){
+				String filename = filenames.next();
+
+				pending.acquire();
+				count++;
+
+				executor.execute(() -> {
+					try{
+						//files queued before the failure are skipped
+						if(failure.get() != null){
+							return;
+						}
+
+						ParseResult result = parse(filename);
+
+						synchronized(lock){
+							if(failure.get() == null){
+								consumer.accept(result);
+							}
+						}
+					}
+					catch(RuntimeException ex){
+						failure.compareAndSet(null, ex);
+					}
+					finally{
+						pending.release();
+					}
+				});
+			}
+		}
+		finally{
+			executor.shutdown();
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		}
+
+		if(failure.get() != null){
+			throw failure.get();
+		}
+
+		return count;
+	}
+}
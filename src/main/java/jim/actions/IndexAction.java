@@ -0,0 +1,191 @@
+package jim.actions;
+
+import java.io.IOException;
+
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import jim.io.ArchiveCache;
+import jim.io.ArchiveScanner;
+import jim.io.ClassListSerializer;
+
+import jim.models.IndexResult;
+
+/**
+ * Builds a class list from jar files, jmod files and the running java
+ * runtime image.
+ *
+ * Archives are scanned in parallel, one archive (or runtime module) per
+ * task. Archives whose size and modification time match the previous build
+ * are taken from the {@link ArchiveCache} instead of being scanned again.
+ */
+public class IndexAction implements JimAction<IndexResult> {
+	private interface Scanner {
+		List<String> scan() throws IOException;
+	}
+
+	private static class Source {
+		private final String key;
+		private final BasicFileAttributes attributes;
+		private final Scanner scanner;
+
+		private Source(String key, BasicFileAttributes attributes, Scanner scanner){
+			this.key = key;
+			this.attributes = attributes;
+			this.scanner = scanner;
+		}
+	}
+
+	private final FileSystem fileSystem;
+	private final ArchiveScanner scanner;
+	private final int threads;
+
+	public IndexAction(FileSystem fileSystem, int threads){
+		this.fileSystem = fileSystem;
+		this.scanner = new ArchiveScanner();
+		this.threads = Math.max(1, threads);
+	}
+
+	private boolean isArchive(Path path){
+		String name = path.getFileName().toString();
+
+		return (name.endsWith(".jar") || name.endsWith(".jmod")) && Files.isRegularFile(path);
+	}
+
+	private void addArchive(List<Source> sources, Path path) throws IOException {
+		Path absolute = path.toAbsolutePath().normalize();
+
+		sources.add(new Source(absolute.toString(), Files.readAttributes(absolute, BasicFileAttributes.class), () -> scanner.scanArchive(absolute)));
+	}
+
+	private List<Source> getSources(List<String> archives, boolean runtimeImage, List<String> errorMessages){
+		List<Source> sources = new ArrayList<>();
+
+		if(runtimeImage){
+			try{
+				BasicFileAttributes attributes = Files.readAttributes(scanner.getRuntimeImagePath(), BasicFileAttributes.class);
+
+				for(String module : scanner.getRuntimeModules()){
+					sources.add(new Source(String.format("jrt:/%s", module), attributes, () -> scanner.scanRuntimeModule(module)));
+				}
+			}
+			catch(IOException ex){
+				errorMessages.add(String.format("unable to read the runtime image - %s", ex.getMessage()));
+			}
+		}
+
+		for(String archive : archives){
+			Path path = fileSystem.getPath(archive);
+
+			try{
+				if(Files.isDirectory(path)){
+					List<Path> paths;
+
+					try(Stream<Path> stream = Files.walk(path)){
+						paths = stream.filter(this::isArchive).sorted().collect(Collectors.toList());
+					}
+
+					for(Path p : paths){
+						addArchive(sources, p);
+					}
+				}
+				else{
+					addArchive(sources, path);
+				}
+			}
+			catch(IOException ex){
+				errorMessages.add(String.format("unable to read archive - %s", archive));
+			}
+		}
+
+		return sources;
+	}
+
+	private String getSimpleName(String className){
+		return className.substring(className.lastIndexOf('.') + 1);
+	}
+
+	/**
+	 * Scans the given archives, and directories of archives, and writes the
+	 * resulting class list to filename along with its archive cache.
+	 */
+	public IndexResult index(List<String> archives, boolean runtimeImage, String filename) throws IOException, InterruptedException {
+		IndexResult result = new IndexResult();
+		long start = System.nanoTime();
+
+		ArchiveCache cache = new ArchiveCache(fileSystem);
+		Map<String, ArchiveCache.Entry> previous = cache.read(filename);
+		Map<String, ArchiveCache.Entry> entries = new LinkedHashMap<>();
+		Map<Source, Future<List<String>>> pending = new LinkedHashMap<>();
+
+		List<Source> sources = getSources(archives, runtimeImage, result.errorMessages);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+		try{
+			for(Source source : sources){
+				ArchiveCache.Entry entry = previous.get(source.key);
+
+				if(entry != null && entry.matches(source.attributes)){
+					entries.put(source.key, entry);
+				}
+				else{
+					pending.put(source, executor.submit(source.scanner::scan));
+				}
+			}
+
+			for(Map.Entry<Source, Future<List<String>>> entry : pending.entrySet()){
+				Source source = entry.getKey();
+
+				try{
+					entries.put(source.key, new ArchiveCache.Entry(source.attributes, entry.getValue().get()));
+				}
+				catch(ExecutionException ex){
+					result.errorMessages.add(String.format("unable to read archive - %s - %s", source.key, ex.getCause().getMessage()));
+				}
+			}
+		}
+		finally{
+			executor.shutdownNow();
+		}
+
+		Map<String, TreeSet<String>> classes = new TreeMap<>();
+
+		for(ArchiveCache.Entry entry : entries.values()){
+			for(String className : entry.classes){
+				classes.computeIfAbsent(getSimpleName(className), key -> new TreeSet<>()).add(className);
+
+				result.classes++;
+			}
+		}
+
+		new ClassListSerializer(fileSystem).serialize(classes, filename);
+
+		try{
+			cache.write(filename, entries);
+		}
+		catch(IOException ex){
+			//the cache only speeds up the next build
+		}
+
+		result.archives = sources.size();
+		result.scannedArchives = pending.size();
+		result.elapsedMillis = (System.nanoTime() - start) / 1000000;
+
+		return result;
+	}
+}
@@ -1,19 +1,17 @@
 package jim.actions;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.Reader;
-import java.io.StringReader;
 
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystem;
 import java.nio.file.Files;
+import java.nio.file.Path;
 
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -23,99 +21,143 @@ import java.util.Optional;
 import com.github.javaparser.ParseProblemException;
 import com.github.javaparser.Problem;
 import com.github.javaparser.Range;
-import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.TokenRange;
-import com.github.javaparser.ast.CompilationUnit;
-import com.github.javaparser.ast.ImportDeclaration;
-import com.github.javaparser.ast.Node;
-import com.github.javaparser.ast.PackageDeclaration;
 
-import jim.javaparser.ClassOrInterfaceTypeVisitor;
+import jim.engine.Engine;
+import jim.engine.JavaParserEngine;
+import jim.engine.SourceInfo;
+
+import jim.index.ChoiceIndex;
+import jim.index.ClassIndex;
+import jim.index.MapClassIndex;
+
+import jim.io.ResultCache;
 
 import jim.models.FileEntry;
 import jim.models.FileImportEntry;
 import jim.models.FileTypeEntry;
 import jim.models.ParseResult;
-
+import jim.models.ParseStats;
+
+import jim.stats.ParseFileEvent;
+import jim.stats.PhaseTimer;
+
+/**
+ * Resolves the types referenced by a java source file against a class index.
+ *
+ * Instances are immutable and hold no per call state, so one action can be
+ * shared by any number of threads as long as the class index and choices
+ * are not modified while it is in use.
+ */
 public class ParseAction implements JimAction<ParseResult> {
-	private FileSystem fileSystem;
-	private Map<String, List<String>> classes;
-	private Map<String, List<String>> choices;
-
-	public ParseAction(FileSystem fileSystem, Map<String, List<String>> classes, Map<String, List<String>> choices){
+	private final FileSystem fileSystem;
+	private final ClassIndex classes;
+	private final ChoiceIndex choices;
+	private final Engine engine;
+	private final ResultCache cache;
+	private final boolean collectStats;
+
+	/**
+	 * Creates an action that looks source files up in the given result cache
+	 * before parsing them, or always parses them when cache is null, and
+	 * adds {@link ParseStats} to every parsed result when collectStats is set.
+	 */
+	public ParseAction(FileSystem fileSystem, ClassIndex classes, ChoiceIndex choices, Engine engine, ResultCache cache, boolean collectStats){
 		this.fileSystem = fileSystem;	
 		this.classes = classes;
 		this.choices = choices;
+		this.engine = engine;
+		this.cache = cache;
+		this.collectStats = collectStats;
 	}
 
-	public ParseAction(FileSystem fileSystem, Map<String, List<String>> classes){
-		this(fileSystem, classes, new HashMap<String, List<String>>());	
+	public ParseAction(FileSystem fileSystem, ClassIndex classes, ChoiceIndex choices, Engine engine, ResultCache cache){
+		this(fileSystem, classes, choices, engine, cache, false);
 	}
 
-	private void setRange(FileEntry entry, Node node){
-		Optional<Range> range = node.getRange();
-
-		if(range.isPresent()){
-			Range r = range.get();
-
-			entry.position.line = r.begin.line;
-			entry.position.column = r.begin.column;
-		}
+	public ParseAction(FileSystem fileSystem, ClassIndex classes, ChoiceIndex choices, Engine engine){
+		this(fileSystem, classes, choices, engine, null);
 	}
 
-	private Map<String, FileImportEntry> getImportStatements(CompilationUnit unit){
-		Map<String, FileImportEntry> imports = new LinkedHashMap<>();
-
-		for(ImportDeclaration declaration : unit.getImports()){
-			String name = declaration.getName().asString();
-
-			if(declaration.isAsterisk()){
-				name = String.format("%s.*", name);
-			}
+	public ParseAction(FileSystem fileSystem, ClassIndex classes, Map<String, List<String>> choices, Engine engine, ResultCache cache){
+		this(fileSystem, classes, ChoiceIndex.of(choices), engine, cache);
+	}
 
-			FileImportEntry entry = new FileImportEntry();
-			entry.value = name;
-			entry.isStatic = declaration.isStatic();
+	public ParseAction(FileSystem fileSystem, ClassIndex classes, Map<String, List<String>> choices, Engine engine){
+		this(fileSystem, classes, choices, engine, null);
+	}
 
-			setRange(entry, declaration);
+	public ParseAction(FileSystem fileSystem, ClassIndex classes, Map<String, List<String>> choices){
+		this(fileSystem, classes, choices, new JavaParserEngine());
+	}
 
-			imports.put(declaration.getName().removeQualifier().asString(), entry);
-		}
+	public ParseAction(FileSystem fileSystem, Map<String, List<String>> classes, Map<String, List<String>> choices){
+		this(fileSystem, new MapClassIndex(classes), choices);
+	}
 
-		return imports;
+	public ParseAction(FileSystem fileSystem, Map<String, List<String>> classes){
+		this(fileSystem, classes, new HashMap<String, List<String>>());	
 	}
 
+	/**
+	 * Single type imports are keyed by their simple name, so only the first
+	 * segment of a qualified name like Map.Entry can match one. Wildcard
+	 * imports are keyed by their full name and never match here.
+	 */
 	private FileImportEntry getFileImportEntry(Map<String, FileImportEntry> imports, String name){
-		if(imports.containsKey(name)){
-			return imports.get(name);
-		}
+		int index = name.indexOf('.');
 
-		int index = -1;
+		return imports.get(index < 0 ? name : name.substring(0, index));
+	}
 
-		while((index = name.lastIndexOf(".")) > -1){
-			name = name.substring(0, index);
+	/**
+	 * Returns the non static wildcard imports keyed by the package, or outer
+	 * class, they import from.
+	 */
+	private Map<String, FileImportEntry> getWildcardImports(Map<String, FileImportEntry> imports){
+		Map<String, FileImportEntry> wildcards = new LinkedHashMap<>();
 
-			if(imports.containsKey(name)){
-				return imports.get(name);
+		for(FileImportEntry entry : imports.values()){
+			if(!entry.isStatic && entry.value.endsWith(".*")){
+				wildcards.put(entry.value.substring(0, entry.value.length() - 2), entry);
 			}
 		}
 
-		return null;
+		return wildcards;
 	}
 
-	private boolean isFullyQualifiedClassName(Map<String, List<String>> classes, String name){
-		int index = name.lastIndexOf(".");
+	/**
+	 * Resolves a type through the wildcard imports of the file, marking every
+	 * wildcard that provides it as used. Classes of the current package shadow
+	 * wildcard imports and are left to {@link #processFileTypeEntry}, as are
+	 * names several wildcards provide, which still need a single type import.
+	 */
+	private boolean resolveWildcardImport(Map<String, FileImportEntry> wildcards, String packageName, String name){
+		if(wildcards.isEmpty()){
+			return false;
+		}
 
-		if(index > -1){
-			String nm = name.substring(index + 1, name.length());
-			List<String> choices = classes.get(nm);
+		int index = name.indexOf('.');
+		String simpleName = index < 0 ? name : name.substring(0, index);
 
-			if(choices != null){
-				return choices.contains(name);
+		if(hasClassName(packageName, simpleName)){
+			return false;
+		}
+
+		int matches = 0;
+
+		for(Map.Entry<String, FileImportEntry> wildcard : wildcards.entrySet()){
+			if(classes.contains(wildcard.getKey(), simpleName)){
+				wildcard.getValue().isUsed = true;
+				matches++;
 			}
 		}
 
-		return false;
+		return matches == 1 && !hasClassName("java.lang", simpleName);
+	}
+
+	private boolean isFullyQualifiedClassName(ClassIndex classes, String name){
+		return name.indexOf('.') > -1 && classes.contains(name);
 	}
 
 	private boolean isInPackage(String packageName, String className){
@@ -126,8 +168,25 @@ public class ParseAction implements JimAction<ParseResult> {
 		return className.startsWith(packageName);
 	}
 
-	private boolean hasClassName(List<String> choices, String packageName, String className){
-		return choices.contains(String.format("%s.%s", packageName, className));
+	private boolean hasClassName(String packageName, String className){
+		return packageName != null && classes.contains(packageName, className);
+	}
+
+	/**
+	 * Returns true when className is one of the classes indexed under name.
+	 */
+	private boolean isCandidate(String name, String className){
+		if(className.equals(name)){
+			return classes.contains("", name);
+		}
+
+		int length = className.length() - name.length() - 1;
+
+		if(length > 0 && className.endsWith(name) && className.charAt(length) == '.'){
+			return classes.contains(className.substring(0, length), name);
+		}
+
+		return classes.get(name).contains(className);
 	}
 
 	private void addFileImportEntry(Map<String, FileImportEntry> dest, String name){
@@ -138,29 +197,24 @@ public class ParseAction implements JimAction<ParseResult> {
 		dest.put(entry.value, entry);
 	}
 
-	private List<String> get(Map<String, List<String>> values, String name){
-		List<String> result = values.get(name);
-
-		return result == null ? Collections.<String>emptyList() : result;
-	}
-
-	private List<String> getChoices(String name){
-		List<String> options = get(classes, name);
-		List<String> previous = get(choices, name);
-
-		if(!previous.isEmpty()){
-			String value = previous.get(0);
-
-			if(options.contains(value)){
-				options = previous.subList(0, 1);
-			}
+	/**
+	 * Returns the recent choice for the name when it is still a candidate,
+	 * otherwise every candidate. Candidates are the classes of the class list,
+	 * unless the engine narrowed them down.
+	 */
+	private List<String> getChoices(Map<String, List<String>> candidates, String name){
+		List<String> narrowed = candidates.get(name);
+		String previous = choices.getRecentChoice(name);
+
+		if(previous != null && (narrowed == null ? isCandidate(name, previous) : narrowed.contains(previous))){
+			return Collections.singletonList(previous);
 		}
 
-		return options;
+		return narrowed == null ? classes.get(name) : narrowed;
 	}
 
-	private boolean processFileTypeEntry(FileEntry packageInfo, Map<String, FileImportEntry> imports, FileTypeEntry entry){
-		List<String> choices = getChoices(entry.value);
+	private boolean processFileTypeEntry(FileEntry packageInfo, Map<String, FileImportEntry> imports, Map<String, List<String>> candidates, FileTypeEntry entry){
+		List<String> choices = getChoices(candidates, entry.value);
 		boolean result = false;
 
 		if(choices.size() == 1){
@@ -173,7 +227,7 @@ public class ParseAction implements JimAction<ParseResult> {
 			result = true;
 		}
 		else{
-			if(!hasClassName(choices, "java.lang", entry.value) && !hasClassName(choices, packageInfo.value, entry.value)){
+			if(!hasClassName("java.lang", entry.value) && !hasClassName(packageInfo.value, entry.value)){
 				entry.choices.addAll(choices);
 			}
 			else{
@@ -184,33 +238,25 @@ public class ParseAction implements JimAction<ParseResult> {
 		return result;
 	} 
 
-	private void removeUnusedImports(Map<String, FileImportEntry> imports){
+	private void removeUnusedImports(Map<String, FileImportEntry> imports, List<FileImportEntry> unusedImports){
 		Iterator<FileImportEntry> it = imports.values().iterator();
 
 		while(it.hasNext()){
 			FileImportEntry entry = it.next();
 
 			if(!entry.isUsed && !entry.isStatic){
+				unusedImports.add(entry);
 				it.remove();
 			}
 		}
 	}
 
-	private ParseResult parse(ParseResult result, Reader reader) throws IOException {
-		FileEntry packageInfo = new FileEntry();
-
-		CompilationUnit unit = StaticJavaParser.parse(reader);
-		Optional<PackageDeclaration> pkg = unit.getPackageDeclaration();
-
-		if(pkg.isPresent()){
-			PackageDeclaration declaration = pkg.get();
+	private ParseResult resolve(ParseResult result, String source){
+		SourceInfo info = engine.extract(source, classes, collectStats);
+		PhaseTimer timer = new PhaseTimer(collectStats);
+		FileEntry packageInfo = info.pkg;
 
-			packageInfo.value = declaration.getName().asString();
-
-			setRange(packageInfo, declaration);	
-		}
-
-		Map<String, FileImportEntry> imports = getImportStatements(unit);	
+		Map<String, FileImportEntry> imports = info.imports;	
 		int firstImportLine = Integer.MAX_VALUE;
 		int lastImportLine = Integer.MIN_VALUE;
 
@@ -234,12 +280,12 @@ public class ParseAction implements JimAction<ParseResult> {
 			lastImportLine = 0;
 		}
 
-		Map<String, FileTypeEntry> types = new HashMap<>();
-		Collection<String> declaredClasses = new HashSet<>();
-
-		unit.accept(new ClassOrInterfaceTypeVisitor(classes, declaredClasses), types);
+		Map<String, FileTypeEntry> types = info.types;
+		Map<String, FileImportEntry> wildcards = getWildcardImports(imports);
+		Collection<String> declaredClasses = info.declaredClasses;
 
 		Iterator<FileTypeEntry> it = types.values().iterator();
+		int visitedTypes = types.size();
 
 		while(it.hasNext()){
 			FileTypeEntry entry = it.next();
@@ -247,7 +293,7 @@ public class ParseAction implements JimAction<ParseResult> {
 
 			if(imprt == null){
 				if(!isFullyQualifiedClassName(classes, entry.value) && !declaredClasses.contains(entry.value)){
-					boolean resolved = processFileTypeEntry(packageInfo, imports, entry);
+					boolean resolved = resolveWildcardImport(wildcards, packageInfo.value, entry.value) || processFileTypeEntry(packageInfo, imports, info.candidates, entry);
 
 					if(resolved){
 						it.remove();
@@ -263,7 +309,7 @@ public class ParseAction implements JimAction<ParseResult> {
 			}
 		}
 
-		removeUnusedImports(imports);
+		removeUnusedImports(imports, result.unusedImports);
 
 		result.pkg.value = packageInfo.value;
 		result.pkg.position.line = packageInfo.position.line;
@@ -285,6 +331,92 @@ public class ParseAction implements JimAction<ParseResult> {
 			return value;
 		});
 
+		result.stats = info.stats;
+		result.stats.resolve = timer.stop("resolve");
+		result.stats.visitedTypes = visitedTypes;
+		result.stats.resolvedTypes = visitedTypes - result.types.size();
+
+		return result;
+	}
+
+	private ParseResult parseSource(ParseResult result, String source){
+		if(cache == null){
+			return resolve(result, source);
+		}
+
+		String key = cache.getKey(source);
+
+		try{
+			if(cache.read(key, result)){
+				result.stats = new ParseStats();
+				result.stats.cached = true;
+
+				return result;
+			}
+		}
+		catch(IOException ex){
+			//an unreadable entry is parsed again and replaced
+		}
+
+		resolve(result, source);
+
+		try{
+			cache.write(key, result);
+		}
+		catch(IOException ex){
+			//the cache only speeds up later runs
+		}
+
+		return result;
+	}
+
+	private ParseResult parse(ParseResult result, String source){
+		ParseFileEvent event = PhaseTimer.isRecording() ? new ParseFileEvent() : null;
+		boolean recorded = event != null && event.isEnabled();
+
+		if(recorded){
+			event.begin();
+		}
+
+		parseSource(result, source);
+
+		//the counts are only needed for --stats or a recording
+		if(!collectStats && !recorded){
+			result.stats = null;
+
+			return result;
+		}
+
+		ParseStats stats = result.stats;
+		stats.classNames = classes.size();
+		stats.choices = choices.size();
+
+		for(FileTypeEntry entry : result.types){
+			if(entry.choices.isEmpty()){
+				stats.unresolvedTypes++;
+			}
+			else{
+				stats.ambiguousTypes++;
+			}
+		}
+
+		if(recorded){
+			event.end();
+
+			if(event.shouldCommit()){
+				event.cached = stats.cached;
+				event.visitedTypes = stats.visitedTypes;
+				event.resolvedTypes = stats.resolvedTypes;
+				event.ambiguousTypes = stats.ambiguousTypes;
+				event.unresolvedTypes = stats.unresolvedTypes;
+				event.commit();
+			}
+		}
+
+		if(!collectStats){
+			result.stats = null;
+		}
+
 		return result;
 	}
 
@@ -310,14 +442,14 @@ public class ParseAction implements JimAction<ParseResult> {
 	}
 
 	//TODO - log exceptions
-	public ParseResult parse(String filename){
+	public ParseResult parse(Path path){
 		ParseResult result = new ParseResult();
 
-		try(Reader reader = Files.newBufferedReader(fileSystem.getPath(filename))){
-			parse(result, reader);
+		try{
+			parse(result, Files.readString(path));
 		}
 		catch(IOException ex){
-			result.errorMessages.add(String.format("unable to read file - %s", filename));
+			result.errorMessages.add(String.format("unable to read file - %s", path));
 		}
 		catch(ParseProblemException ex){
 			addParseProblem(result, ex);
@@ -326,12 +458,16 @@ public class ParseAction implements JimAction<ParseResult> {
 		return result;
 	}
 
+	public ParseResult parse(String filename){
+		return parse(fileSystem.getPath(filename));
+	}
+
 	//TODO - log exceptions
 	public ParseResult parse(InputStream input){
 		ParseResult result = new ParseResult();
 
-		try(Reader reader = new BufferedReader(new InputStreamReader(input))){
-			parse(result, reader);
+		try(input){
+			parse(result, new String(input.readAllBytes(), Charset.defaultCharset()));
 		}
 		catch(IOException ex){
 			result.errorMessages.add(String.format("unable to read from input stream - %s", ex.getMessage()));
@@ -343,14 +479,34 @@ public class ParseAction implements JimAction<ParseResult> {
 		return result;
 	}
 
-	public ParseResult parseJavaSource(String source){
+	/**
+	 * Parses a source file read from the stream, e.g. an editor buffer piped
+	 * to standard input. The bytes are decoded as UTF-8, like files read by
+	 * {@link #parse(Path)}, and filename only names the source in error
+	 * messages.
+	 */
+	//TODO - log exceptions
+	public ParseResult parse(InputStream input, String filename){
 		ParseResult result = new ParseResult();
 
-		try(Reader reader = new StringReader(source)){
-			parse(result, reader);
+		try(input){
+			parse(result, new String(input.readAllBytes(), StandardCharsets.UTF_8));
 		}
 		catch(IOException ex){
-			result.errorMessages.add(String.format("unable to read from input string - %s", ex.getMessage()));
+			result.errorMessages.add(String.format("unable to read file - %s - %s", filename, ex.getMessage()));
+		}
+		catch(ParseProblemException ex){
+			addParseProblem(result, ex);
+		}
+
+		return result;
+	}
+
+	public ParseResult parseJavaSource(CharSequence source){
+		ParseResult result = new ParseResult();
+
+		try{
+			parse(result, source.toString());
 		}
 		catch(ParseProblemException ex){
 			addParseProblem(result, ex);
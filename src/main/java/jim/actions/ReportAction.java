@@ -0,0 +1,159 @@
+package jim.actions;
+
+import java.io.IOException;
+
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import jim.models.FileReport;
+import jim.models.FileTypeEntry;
+import jim.models.ParseResult;
+import jim.models.ReportResult;
+import jim.models.ReportSummary;
+
+/**
+ * Reports the unresolved types, ambiguous types and unused imports of every
+ * java source file below a directory.
+ *
+ * Each directory is a fork/join task that forks its sub directories and
+ * parses its own files, so idle workers steal whole sub trees and a large
+ * source tree keeps every worker busy.
+ */
+public class ReportAction implements JimAction<ReportResult> {
+	private final ParseAction action;
+	private final int threads;
+
+	private class DirectoryTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final Path directory;
+		private final Collection<FileReport> reports;
+		private final Collection<String> errorMessages;
+
+		private DirectoryTask(Path directory, Collection<FileReport> reports, Collection<String> errorMessages){
+			this.directory = directory;
+			this.reports = reports;
+			this.errorMessages = errorMessages;
+		}
+
+		@Override
+		protected void compute(){
+			List<DirectoryTask> tasks = new ArrayList<>();
+			List<Path> files = new ArrayList<>();
+
+			try(DirectoryStream<Path> stream = Files.newDirectoryStream(directory)){
+				for(Path path : stream){
+					//linked directories are skipped, a link back up the tree would never end
+					if(Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)){
+						tasks.add(new DirectoryTask(path, reports, errorMessages));
+					}
+					else if(path.getFileName().toString().endsWith(".java") && Files.isRegularFile(path)){
+						files.add(path);
+					}
+				}
+			}
+			catch(IOException ex){
+				errorMessages.add(String.format("unable to read directory - %s", directory));
+			}
+
+			for(DirectoryTask task : tasks){
+				task.fork();
+			}
+
+			for(Path path : files){
+				reports.add(createReport(path.toString(), parse(path)));
+			}
+
+			for(DirectoryTask task : tasks){
+				task.join();
+			}
+		}
+	}
+
+	public ReportAction(ParseAction action, int threads){
+		this.action = action;
+		this.threads = Math.max(1, threads);
+	}
+
+	private ParseResult parse(Path path){
+		try{
+			return action.parse(path);
+		}
+		catch(RuntimeException ex){
+			//one file the parser or engine fails on must not abort the report
+			ParseResult result = new ParseResult();
+			result.errorMessages.add(String.format("unable to parse file - %s", ex.getMessage()));
+
+			return result;
+		}
+	}
+
+	private FileReport createReport(String filename, ParseResult result){
+		FileReport report = new FileReport();
+		report.filename = filename;
+		report.errorMessages.addAll(result.errorMessages);
+		report.unusedImports.addAll(result.unusedImports);
+
+		for(FileTypeEntry entry : result.types){
+			if(entry.choices.isEmpty()){
+				report.unresolvedTypes.add(entry);
+			}
+			else{
+				report.ambiguousTypes.add(entry);
+			}
+		}
+
+		return report;
+	}
+
+	public ReportResult report(Path directory){
+		ConcurrentLinkedQueue<FileReport> reports = new ConcurrentLinkedQueue<>();
+		ConcurrentLinkedQueue<String> errorMessages = new ConcurrentLinkedQueue<>();
+		ReportResult result = new ReportResult();
+		ReportSummary summary = result.summary;
+		long start = System.nanoTime();
+
+		ForkJoinPool pool = new ForkJoinPool(threads);
+
+		try{
+			pool.invoke(new DirectoryTask(directory, reports, errorMessages));
+		}
+		finally{
+			pool.shutdown();
+		}
+
+		summary.elapsedMillis = (System.nanoTime() - start) / 1000000;
+
+		for(FileReport report : reports){
+			summary.files++;
+			summary.unresolvedTypes += report.unresolvedTypes.size();
+			summary.ambiguousTypes += report.ambiguousTypes.size();
+			summary.unusedImports += report.unusedImports.size();
+			summary.errors += report.errorMessages.size();
+
+			if(report.hasIssues()){
+				summary.filesWithIssues++;
+
+				result.files.add(report);
+			}
+		}
+
+		summary.filesPerSecond = summary.files * 1000.0 / Math.max(1, summary.elapsedMillis);
+
+		result.errorMessages.addAll(errorMessages);
+
+		result.files.sort(Comparator.comparing(report -> report.filename));
+
+		return result;
+	}
+}
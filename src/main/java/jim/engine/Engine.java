@@ -0,0 +1,15 @@
+package jim.engine;
+
+import jim.index.ClassIndex;
+
+/**
+ * Extracts the package, imports and candidate type references of a java source file.
+ */
+public interface Engine {
+	/**
+	 * Times the phases into {@link SourceInfo#stats} when collectStats is set.
+	 *
+	 * @throws com.github.javaparser.ParseProblemException when the source can not be parsed
+	 */
+	SourceInfo extract(String source, ClassIndex classes, boolean collectStats);
+}
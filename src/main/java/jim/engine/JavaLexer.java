@@ -0,0 +1,230 @@
+package jim.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Splits java source into identifier, keyword, literal and separator tokens.
+ * Comments and white space are dropped, line and column numbers follow the
+ * javaparser conventions (1 based, one column per char, tabs included).
+ */
+class JavaLexer {
+	private static final Set<String> KEYWORDS = Set.of(
+		"abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class", "const",
+		"continue", "default", "do", "double", "else", "enum", "extends", "final", "finally", "float",
+		"for", "goto", "if", "implements", "import", "instanceof", "int", "interface", "long", "native",
+		"new", "package", "private", "protected", "public", "return", "short", "static", "strictfp", "super",
+		"switch", "synchronized", "this", "throw", "throws", "transient", "try", "void", "volatile", "while"
+	);
+
+	private static final Set<String> LITERALS = Set.of("true", "false", "null");
+
+	private static final String SEPARATORS = "(){}[];,.@=><!~?:+-*/&|^%";
+
+	private final String source;
+	private final List<Token> tokens = new ArrayList<>();
+
+	private int index;
+	private int line = 1;
+	private int lineStart;
+
+	JavaLexer(String source){
+		this.source = source;
+	}
+
+	private char peek(int offset){
+		int i = index + offset;
+
+		return i < source.length() ? source.charAt(i) : '\0';
+	}
+
+	private void add(int kind, String text, int start){
+		tokens.add(new Token(kind, text, line, start - lineStart + 1));
+	}
+
+	private void newLine(){
+		line++;
+		lineStart = index;
+	}
+
+	private void skipLineComment(){
+		while(index < source.length() && source.charAt(index) != '\n' && source.charAt(index) != '\r'){
+			index++;
+		}
+	}
+
+	private void skipBlockComment(){
+		index += 2;
+
+		while(index < source.length()){
+			char c = source.charAt(index++);
+
+			if(c == '*' && peek(0) == '/'){
+				index++;
+
+				return;
+			}
+
+			if(c == '\n' || (c == '\r' && peek(0) != '\n')){
+				newLine();
+			}
+		}
+
+		throw new UnsupportedSourceException("unterminated comment");
+	}
+
+	private void readQuoted(char quote){
+		int start = index++;
+
+		while(index < source.length()){
+			char c = source.charAt(index++);
+
+			if(c == '\\'){
+				index++;
+			}
+			else if(c == quote){
+				add(Token.LITERAL, source.substring(start, index), start);
+
+				return;
+			}
+			else if(c == '\n' || c == '\r'){
+				break;
+			}
+		}
+
+		throw new UnsupportedSourceException("unterminated literal");
+	}
+
+	private void readNumber(){
+		int start = index;
+		boolean hex = peek(0) == '0' && (peek(1) == 'x' || peek(1) == 'X');
+
+		while(index < source.length()){
+			char c = source.charAt(index);
+
+			if(Character.isLetterOrDigit(c) || c == '_' || c == '.'){
+				index++;
+			}
+			else if((c == '+' || c == '-') && isExponent(source.charAt(index - 1), hex)){
+				index++;
+			}
+			else{
+				break;
+			}
+		}
+
+		add(Token.LITERAL, source.substring(start, index), start);
+	}
+
+	private boolean isExponent(char c, boolean hex){
+		if(hex){
+			return c == 'p' || c == 'P';
+		}
+
+		return c == 'e' || c == 'E';
+	}
+
+	private void readWord(){
+		int start = index++;
+
+		while(index < source.length() && Character.isJavaIdentifierPart(source.charAt(index))){
+			index++;
+		}
+
+		String word = source.substring(start, index);
+
+		if(word.equals("_")){
+			throw new UnsupportedSourceException("underscore identifier");
+		}
+
+		if(KEYWORDS.contains(word)){
+			add(Token.KEYWORD, word, start);
+		}
+		else if(LITERALS.contains(word)){
+			add(Token.LITERAL, word, start);
+		}
+		else{
+			add(Token.IDENTIFIER, word, start);
+		}
+	}
+
+	private void readSeparator(char c){
+		int start = index;
+		char next = peek(1);
+		String text;
+
+		if(c == ':' && next == ':'){
+			text = "::";
+		}
+		else if(c == '-' && next == '>'){
+			text = "->";
+		}
+		else if(c == '.' && next == '.' && peek(2) == '.'){
+			text = "...";
+		}
+		else if(((c == '&' || c == '|' || c == '=') && next == c) || (c == '!' && next == '=')){
+			text = source.substring(index, index + 2);
+		}
+		else{
+			text = String.valueOf(c);
+		}
+
+		index += text.length();
+
+		add(Token.SEPARATOR, text, start);
+	}
+
+	List<Token> tokenize(){
+		//unicode escapes can appear anywhere, even inside comments, so leave those to the parser
+		if(source.contains("\\u")){
+			throw new UnsupportedSourceException("unicode escape");
+		}
+
+		while(index < source.length()){
+			char c = source.charAt(index);
+
+			if(c == '\n'){
+				index++;
+				newLine();
+			}
+			else if(c == '\r'){
+				index += peek(1) == '\n' ? 2 : 1;
+				newLine();
+			}
+			else if(c == ' ' || c == '\t' || c == '\f'){
+				index++;
+			}
+			else if(c == '/' && peek(1) == '/'){
+				skipLineComment();
+			}
+			else if(c == '/' && peek(1) == '*'){
+				skipBlockComment();
+			}
+			else if(c == '"'){
+				if(peek(1) == '"' && peek(2) == '"'){
+					throw new UnsupportedSourceException("text block");
+				}
+
+				readQuoted(c);
+			}
+			else if(c == '\''){
+				readQuoted(c);
+			}
+			else if(Character.isDigit(c) || (c == '.' && Character.isDigit(peek(1)))){
+				readNumber();
+			}
+			else if(Character.isJavaIdentifierStart(c) && !Character.isSurrogate(c)){
+				readWord();
+			}
+			else if(SEPARATORS.indexOf(c) > -1){
+				readSeparator(c);
+			}
+			else{
+				throw new UnsupportedSourceException(String.format("unexpected character - %s", c));
+			}
+		}
+
+		return tokens;
+	}
+}
@@ -0,0 +1,118 @@
+package jim.engine;
+
+import java.util.Optional;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.Range;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.PackageDeclaration;
+
+import jim.index.ClassIndex;
+
+import jim.javaparser.ClassOrInterfaceTypeVisitor;
+
+import jim.models.FileEntry;
+import jim.models.FileImportEntry;
+import jim.models.PhaseStats;
+
+import jim.stats.PhaseTimer;
+
+/**
+ * Builds the full javaparser AST and walks it with the {@link ClassOrInterfaceTypeVisitor}.
+ *
+ * Each thread gets its own {@link JavaParser}, so a single engine can be
+ * shared by concurrent callers without touching the global configuration
+ * used by {@code StaticJavaParser}. Comments are never attributed to nodes
+ * and lexical preservation stays off, since only node ranges are read.
+ */
+public class JavaParserEngine implements Engine {
+	private final ThreadLocal<JavaParser> parsers = ThreadLocal.withInitial(() -> new JavaParser(createConfiguration()));
+
+	private static ParserConfiguration createConfiguration(){
+		return new ParserConfiguration()
+			.setAttributeComments(false)
+			.setLexicalPreservationEnabled(false)
+			.setDetectOriginalLineSeparator(false);
+	}
+
+	private void setRange(FileEntry entry, Node node){
+		Optional<Range> range = node.getRange();
+
+		if(range.isPresent()){
+			Range r = range.get();
+
+			entry.position.line = r.begin.line;
+			entry.position.column = r.begin.column;
+		}
+	}
+
+	private void addImportStatements(SourceInfo info, CompilationUnit unit){
+		for(ImportDeclaration declaration : unit.getImports()){
+			String name = declaration.getName().asString();
+
+			if(declaration.isAsterisk()){
+				name = String.format("%s.*", name);
+			}
+
+			FileImportEntry entry = new FileImportEntry();
+			entry.value = name;
+			entry.isStatic = declaration.isStatic();
+
+			setRange(entry, declaration);
+
+			info.imports.put(declaration.isAsterisk() ? name : declaration.getName().getIdentifier(), entry);
+		}
+	}
+
+	/**
+	 * @throws ParseProblemException when the source can not be parsed
+	 */
+	CompilationUnit parse(String source){
+		ParseResult<CompilationUnit> result = parsers.get().parse(source);
+
+		if(!result.isSuccessful() || !result.getResult().isPresent()){
+			throw new ParseProblemException(result.getProblems());
+		}
+
+		return result.getResult().get();
+	}
+
+	SourceInfo extract(CompilationUnit unit, ClassIndex classes, boolean collectStats){
+		PhaseTimer timer = new PhaseTimer(collectStats);
+		SourceInfo info = new SourceInfo();
+		Optional<PackageDeclaration> pkg = unit.getPackageDeclaration();
+
+		if(pkg.isPresent()){
+			PackageDeclaration declaration = pkg.get();
+
+			info.pkg.value = declaration.getName().asString();
+
+			setRange(info.pkg, declaration);	
+		}
+
+		addImportStatements(info, unit);
+
+		unit.accept(new ClassOrInterfaceTypeVisitor(classes, info.declaredClasses), info.types);
+
+		info.stats.visit = timer.stop("visit");
+
+		return info;
+	}
+
+	@Override
+	public SourceInfo extract(String source, ClassIndex classes, boolean collectStats){
+		PhaseTimer timer = new PhaseTimer(collectStats);
+		CompilationUnit unit = parse(source);
+		PhaseStats parse = timer.stop("parse");
+		SourceInfo info = extract(unit, classes, collectStats);
+
+		info.stats.parse = parse;
+
+		return info;
+	}
+}
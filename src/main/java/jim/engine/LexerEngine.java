@@ -0,0 +1,46 @@
+package jim.engine;
+
+import java.util.List;
+
+import jim.index.ClassIndex;
+
+import jim.stats.PhaseTimer;
+
+/**
+ * Picks the package, imports and type references out of the token stream
+ * without building an AST. Source the scanner can not classify confidently
+ * is passed on to the fallback engine, which also reports any parse errors.
+ */
+public class LexerEngine implements Engine {
+	private final Engine fallback;
+
+	public LexerEngine(Engine fallback){
+		this.fallback = fallback;
+	}
+
+	public LexerEngine(){
+		this(new JavaParserEngine());
+	}
+
+	@Override
+	public SourceInfo extract(String source, ClassIndex classes, boolean collectStats){
+		SourceInfo info = new SourceInfo();
+
+		try{
+			PhaseTimer timer = new PhaseTimer(collectStats);
+			List<Token> tokens = new JavaLexer(source).tokenize();
+
+			info.stats.parse = timer.stop("parse");
+			timer = new PhaseTimer(collectStats);
+
+			new TypeScanner(tokens, classes, info).scan();
+
+			info.stats.visit = timer.stop("visit");
+		}
+		catch(UnsupportedSourceException ex){
+			return fallback.extract(source, classes, collectStats);
+		}
+
+		return info;
+	}
+}
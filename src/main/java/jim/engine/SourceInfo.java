@@ -0,0 +1,35 @@
+package jim.engine;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import jim.models.FileEntry;
+import jim.models.FileImportEntry;
+import jim.models.FileTypeEntry;
+import jim.models.ParseStats;
+
+/**
+ * Everything an {@link Engine} extracts from a source file before the types
+ * are resolved against the class list.
+ */
+public class SourceInfo {
+	public final FileEntry pkg = new FileEntry();
+
+	//keyed by the simple name of the import, or the full name for wildcard imports
+	public final Map<String, FileImportEntry> imports = new LinkedHashMap<>();
+
+	//keyed by the type name as written in the source
+	public final Map<String, FileTypeEntry> types = new HashMap<>();
+
+	public final Collection<String> declaredClasses = new HashSet<>();
+
+	//keyed by the type name, the classes an engine narrowed the choices of the class list down to
+	public final Map<String, List<String>> candidates = new HashMap<>();
+
+	//the phases timed by the engine
+	public final ParseStats stats = new ParseStats();
+}
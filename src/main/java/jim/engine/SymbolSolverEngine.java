@@ -0,0 +1,231 @@
+package jim.engine;
+
+import java.io.IOException;
+
+import java.nio.file.Path;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.resolution.declarations.ResolvedTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+import com.github.javaparser.symbolsolver.JavaSymbolSolver;
+import com.github.javaparser.symbolsolver.javaparsermodel.JavaParserFacade;
+import com.github.javaparser.symbolsolver.javaparsermodel.JavaParserFactory;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JarTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+
+import jim.index.ClassIndex;
+
+import jim.models.FileImportEntry;
+import jim.models.FileTypeEntry;
+import jim.models.PhaseStats;
+
+import jim.stats.PhaseTimer;
+
+/**
+ * Finds type references like {@link JavaParserEngine}, then settles the ones
+ * the class list can not decide with javaparser's symbol solver over the
+ * java runtime and the configured jars and source roots.
+ *
+ * A name that resolves in its context without an import, like a member type
+ * inherited from a super class, is dropped. The choices of an ambiguous name
+ * are narrowed down to the classes found on the configured class path. Names
+ * the solver can not settle are left as the visitor found them.
+ *
+ * The type solver is built on first use and kept for the life of the engine,
+ * so the jar indexes and the parsed source roots are shared by every file of
+ * a batch or daemon. The solver caches are not thread safe, so only parsing
+ * runs concurrently and the resolution itself is done one file at a time.
+ */
+public class SymbolSolverEngine implements Engine {
+	private final JavaParserEngine parser = new JavaParserEngine();
+	private final List<Path> classPath;
+	private final List<Path> sourcePath;
+
+	private TypeSolver typeSolver;
+
+	public SymbolSolverEngine(List<Path> classPath, List<Path> sourcePath){
+		this.classPath = classPath;
+		this.sourcePath = sourcePath;
+	}
+
+	private TypeSolver getTypeSolver(){
+		if(typeSolver == null){
+			CombinedTypeSolver solver = new CombinedTypeSolver(new ReflectionTypeSolver());
+
+			for(Path path : classPath){
+				try{
+					solver.add(new JarTypeSolver(path));
+				}
+				catch(IOException ex){
+					//classes of an unreadable jar are left to the class list
+				}
+			}
+
+			for(Path path : sourcePath){
+				solver.add(new JavaParserTypeSolver(path));
+			}
+
+			typeSolver = solver;
+		}
+
+		return typeSolver;
+	}
+
+	private String getSimpleName(String name){
+		int index = name.indexOf('.');
+
+		return index < 0 ? name : name.substring(0, index);
+	}
+
+	/**
+	 * Returns the unqualified type and name references of the unit by name,
+	 * the outermost part of a qualified type like Map.Entry included.
+	 */
+	private Map<String, List<Node>> getReferences(CompilationUnit unit){
+		Map<String, List<Node>> references = new HashMap<>();
+
+		for(ClassOrInterfaceType type : unit.findAll(ClassOrInterfaceType.class)){
+			if(!type.getScope().isPresent()){
+				references.computeIfAbsent(type.getName().getIdentifier(), k -> new ArrayList<>()).add(type);
+			}
+		}
+
+		for(NameExpr expr : unit.findAll(NameExpr.class)){
+			references.computeIfAbsent(expr.getName().getIdentifier(), k -> new ArrayList<>()).add(expr);
+		}
+
+		return references;
+	}
+
+	private boolean isImported(SourceInfo info, String className){
+		for(FileImportEntry entry : info.imports.values()){
+			String value = entry.value;
+
+			if(value.endsWith(".*")){
+				if(className.startsWith(value.substring(0, value.length() - 1))){
+					return true;
+				}
+			}
+			else if(className.equals(value) || className.startsWith(value.concat("."))){
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Returns true when the reference resolves to a variable, or to a type
+	 * that is visible without any of the imports of the file.
+	 */
+	private boolean isVisible(TypeSolver solver, SourceInfo info, Node node, String name){
+		try{
+			if(node instanceof NameExpr && JavaParserFacade.get(solver).solve((NameExpr) node).isSolved()){
+				return true;
+			}
+
+			//no type arguments, the same lookup the deprecated solveType(String) makes
+			SymbolReference<ResolvedTypeDeclaration> reference = JavaParserFactory.getContext(node, solver).solveType(name, null);
+
+			return reference.isSolved() && !isImported(info, reference.getCorrespondingDeclaration().getQualifiedName());
+		}
+		catch(RuntimeException | StackOverflowError ex){
+			//anything the solver can not handle falls back to the class list
+			return false;
+		}
+	}
+
+	private boolean isVisible(TypeSolver solver, SourceInfo info, List<Node> nodes, String name){
+		for(Node node : nodes){
+			if(!isVisible(solver, info, node, name)){
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private List<String> getClassPathCandidates(TypeSolver solver, List<String> choices){
+		List<String> candidates = new ArrayList<>();
+
+		for(String choice : choices){
+			try{
+				if(solver.hasType(choice)){
+					candidates.add(choice);
+				}
+			}
+			catch(RuntimeException ex){
+				//an unreadable class file is not a candidate
+			}
+		}
+
+		return candidates;
+	}
+
+	private synchronized void resolve(CompilationUnit unit, SourceInfo info, ClassIndex classes){
+		TypeSolver solver = getTypeSolver();
+		Map<String, List<Node>> references = null;
+		Iterator<FileTypeEntry> it = info.types.values().iterator();
+
+		new JavaSymbolSolver(solver).inject(unit);
+
+		while(it.hasNext()){
+			FileTypeEntry entry = it.next();
+			String name = getSimpleName(entry.value);
+			List<String> choices = classes.get(entry.value);
+
+			//single type imports and unique names are settled by the class list
+			if(info.imports.containsKey(name) || info.declaredClasses.contains(name) || choices.size() == 1){
+				continue;
+			}
+
+			if(references == null){
+				references = getReferences(unit);
+			}
+
+			List<Node> nodes = references.get(name);
+
+			if(nodes != null && isVisible(solver, info, nodes, name)){
+				it.remove();
+			}
+			else if(choices.size() > 1){
+				List<String> candidates = getClassPathCandidates(solver, choices);
+
+				if(!candidates.isEmpty() && candidates.size() < choices.size()){
+					info.candidates.put(entry.value, candidates);
+				}
+			}
+		}
+	}
+
+	@Override
+	public SourceInfo extract(String source, ClassIndex classes, boolean collectStats){
+		PhaseTimer timer = new PhaseTimer(collectStats);
+		CompilationUnit unit = parser.parse(source);
+		PhaseStats parse = timer.stop("parse");
+		SourceInfo info = parser.extract(unit, classes, collectStats);
+
+		info.stats.parse = parse;
+
+		//includes the wait for other threads resolving a file
+		timer = new PhaseTimer(collectStats);
+
+		resolve(unit, info, classes);
+
+		info.stats.solve = timer.stop("solve");
+
+		return info;
+	}
+}
@@ -0,0 +1,34 @@
+package jim.engine;
+
+class Token {
+	static final int IDENTIFIER = 0;
+	static final int KEYWORD = 1;
+	static final int LITERAL = 2;
+	static final int SEPARATOR = 3;
+	static final int EOF = 4;
+
+	final int kind;
+	final String text;
+	final int line;
+	final int column;
+
+	Token(int kind, String text, int line, int column){
+		this.kind = kind;
+		this.text = text;
+		this.line = line;
+		this.column = column;
+	}
+
+	boolean is(String value){
+		return kind != LITERAL && text.equals(value);
+	}
+
+	boolean isIdentifier(){
+		return kind == IDENTIFIER;
+	}
+
+	@Override
+	public String toString(){
+		return String.format("%s %d:%d", text, line, column);
+	}
+}
@@ -0,0 +1,1112 @@
+package jim.engine;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import jim.index.ClassIndex;
+
+import jim.models.FileImportEntry;
+import jim.models.FileTypeEntry;
+
+/**
+ * Walks the token stream once and collects the same type references the
+ * {@link jim.javaparser.ClassOrInterfaceTypeVisitor} finds in the AST:
+ * declared types with the visitor's type argument filtering, class
+ * literals, method reference scopes, annotation names and the first name of
+ * field access and method call scopes. Anything that would need the parser's
+ * view of the tree (generic declarations, type annotations, syntax newer than
+ * java 11, ...) throws an {@link UnsupportedSourceException}.
+ */
+class TypeScanner {
+	private static final Pattern CLASS_NAME_PATTERN = Pattern.compile("[A-Z]+[A-Za-z0-9_$]*");
+	private static final Pattern UPPER_CASE_PATTERN = Pattern.compile("[A-Z_$]+");
+
+	private static final Set<String> PRIMITIVES = Set.of("boolean", "byte", "char", "double", "float", "int", "long", "short", "void");
+
+	private static final Set<String> MODIFIERS = Set.of(
+		"abstract", "default", "final", "native", "private", "protected", "public", "static", "strictfp", "synchronized", "transient", "volatile"
+	);
+
+	private static final Set<String> CONTROL_KEYWORDS = Set.of("for", "if", "switch", "synchronized", "try", "while");
+
+	private static final Set<String> OPERAND_KEYWORDS = Set.of("new", "super", "switch", "this");
+
+	//tokens that always need an operand after them, a closing bracket, semicolon or comma there is a syntax error
+	private static final Set<String> OPERATORS = Set.of("=", "==", "!=", "&&", "||", "!", "~", "/", "%", "^", "&", "|", "->", ".", "::", "@");
+
+	private static final Set<String> CLOSERS = Set.of(";", ")", "]", "}", ",");
+
+	//a brace after one of these opens a block of statements or members rather than an array initializer
+	private static final Set<String> BLOCK_STARTS = Set.of(")", "->", ";", "{", "}", ":", "do", "else", "finally", "static", "try");
+
+	//contextual keywords that start syntax the default parser configuration rejects
+	private static final Set<String> RESTRICTED_NAMES = Set.of("module", "open", "permits", "record", "sealed", "when", "yield");
+
+	private static final int CALL = 0;
+	private static final int GROUP = 1;
+	private static final int CONTROL = 2;
+	private static final int ANNOTATION = 3;
+	private static final int PARAMETERS = 4;
+	private static final int BLOCK = 5;
+	private static final int INDEX = 6;
+
+	private static class TypeRef {
+		Token start;
+		String name;
+		boolean primitive;
+		boolean wildcard;
+		TypeRef bound;
+		List<TypeRef> arguments;
+		int dimensions;
+		int end;
+	}
+
+	private final List<Token> tokens;
+	private final Token eof;
+	private final ClassIndex classes;
+	private final SourceInfo info;
+
+	private static class Change {
+		final FileTypeEntry entry;
+		final boolean added;
+		final int line;
+		final int column;
+
+		Change(FileTypeEntry entry, boolean added){
+			this.entry = entry;
+			this.added = added;
+			this.line = entry.position.line;
+			this.column = entry.position.column;
+		}
+	}
+
+	//open brackets of every kind, the innermost first
+	private final Deque<Integer> parens = new ArrayDeque<>();
+
+	//the size of changes when each bracket was opened
+	private final Deque<Integer> marks = new ArrayDeque<>();
+	private final List<Change> changes = new ArrayList<>();
+
+	//like the visitor, a class only counts as declared once its body has been walked
+	private final Deque<String> blocks = new ArrayDeque<>();
+	private final Set<String> visitedClasses = new HashSet<>();
+	private String declaration = "";
+	private boolean listContext;
+	private boolean caseLabel;
+	private boolean afterAnnotation;
+
+	TypeScanner(List<Token> tokens, ClassIndex classes, SourceInfo info){
+		this.tokens = tokens;
+		this.classes = classes;
+		this.info = info;
+
+		Token last = tokens.isEmpty() ? null : tokens.get(tokens.size() - 1);
+
+		this.eof = new Token(Token.EOF, "", last == null ? 1 : last.line, last == null ? 1 : last.column);
+	}
+
+	private static UnsupportedSourceException unsupported(Token token, String construct){
+		return new UnsupportedSourceException(String.format("%s - line %d column %d", construct, token.line, token.column));
+	}
+
+	private Token at(int i){
+		return i >= 0 && i < tokens.size() ? tokens.get(i) : eof;
+	}
+
+	private boolean is(int i, String text){
+		return at(i).is(text);
+	}
+
+	private boolean isIdentifier(int i){
+		return at(i).isIdentifier();
+	}
+
+	private boolean isClassName(String name){
+		if(CLASS_NAME_PATTERN.matcher(name).matches()){
+			if(UPPER_CASE_PATTERN.matcher(name).matches()){
+				//if name is not a known class, then lets discard it
+				return classes.containsKey(name);
+			}
+
+			return true;
+		}
+
+		return false;
+	}
+
+	private void addType(String name, Token token){
+		Map<String, FileTypeEntry> entries = info.types;
+		FileTypeEntry entry = entries.get(name);
+
+		if(entry == null){
+			entry = new FileTypeEntry();
+			entry.value = name;
+			entry.position.line = token.line;
+			entry.position.column = token.column;
+
+			entries.put(name, entry);
+
+			changes.add(new Change(entry, true));
+		}
+		else if(token.line < entry.position.line || (token.line == entry.position.line && token.column < entry.position.column)){
+			changes.add(new Change(entry, false));
+
+			entry.position.line = token.line;
+			entry.position.column = token.column;
+		}
+	}
+
+	//drops everything found since the mark, the visitor never looks into some scopes
+	private void rollback(int mark){
+		for(int i = changes.size() - 1; i >= mark; i--){
+			Change change = changes.remove(i);
+
+			if(change.added){
+				info.types.remove(change.entry.value);
+			}
+			else{
+				change.entry.position.line = change.line;
+				change.entry.position.column = change.column;
+			}
+		}
+	}
+
+	private void visitType(TypeRef type){
+		if(type.primitive){
+			return;
+		}
+
+		addType(type.name, type.start);
+
+		if(type.arguments != null){
+			for(TypeRef argument : type.arguments){
+				processTypeArgument(argument);
+			}
+		}
+	}
+
+	private void processTypeArgument(TypeRef argument){
+		if(argument.wildcard){
+			if(argument.bound != null){
+				visitType(argument.bound);
+			}
+		}
+		else if(argument.dimensions == 0){
+			//this filters out single letter type parameter like E and T
+			if(argument.arguments != null || classes.containsKey(argument.name) || visitedClasses.contains(argument.name)){
+				visitType(argument);
+			}
+		}
+	}
+
+	private void declareType(TypeRef type){
+		if(RESTRICTED_NAMES.contains(type.name)){
+			throw unsupported(type.start, type.name);
+		}
+
+		visitType(type);
+	}
+
+	private int readName(int i, StringBuilder name){
+		name.append(at(i).text);
+
+		int j = i + 1;
+
+		while(is(j, ".") && isIdentifier(j + 1)){
+			name.append('.').append(at(j + 1).text);
+
+			j += 2;
+		}
+
+		return j;
+	}
+
+	private TypeRef simpleType(int i){
+		TypeRef type = new TypeRef();
+		type.start = at(i);
+
+		StringBuilder name = new StringBuilder();
+		type.end = readName(i, name);
+		type.name = name.toString();
+
+		return type;
+	}
+
+	private int parseTypeArguments(TypeRef owner, int i){
+		owner.arguments = new ArrayList<>();
+
+		int j = i + 1;
+
+		if(is(j, ">")){
+			return j + 1;
+		}
+
+		while(true){
+			if(is(j, "@")){
+				throw unsupported(at(j), "type annotation");
+			}
+
+			TypeRef argument;
+
+			if(is(j, "?")){
+				argument = new TypeRef();
+				argument.wildcard = true;
+				argument.start = at(j);
+				j++;
+
+				if(is(j, "extends") || is(j, "super")){
+					argument.bound = parseType(j + 1, true);
+
+					if(argument.bound == null){
+						return -1;
+					}
+
+					j = argument.bound.end;
+				}
+			}
+			else{
+				argument = parseType(j, true);
+
+				if(argument == null || (argument.primitive && argument.dimensions == 0)){
+					return -1;
+				}
+
+				j = argument.end;
+			}
+
+			owner.arguments.add(argument);
+
+			if(is(j, ",")){
+				j++;
+			}
+			else if(is(j, ">")){
+				return j + 1;
+			}
+			else{
+				return -1;
+			}
+		}
+	}
+
+	//returns null when the tokens at i do not form a type
+	private TypeRef parseType(int i, boolean allowPrimitive){
+		Token token = at(i);
+		TypeRef type;
+
+		if(token.kind == Token.KEYWORD && PRIMITIVES.contains(token.text)){
+			if(!allowPrimitive){
+				return null;
+			}
+
+			type = new TypeRef();
+			type.start = token;
+			type.name = token.text;
+			type.primitive = true;
+			type.end = i + 1;
+		}
+		else if(token.isIdentifier()){
+			type = simpleType(i);
+
+			if(is(type.end, "<")){
+				type.end = parseTypeArguments(type, type.end);
+
+				if(type.end < 0){
+					return null;
+				}
+
+				if(is(type.end, ".") && isIdentifier(type.end + 1)){
+					throw unsupported(token, "parameterized scope");
+				}
+			}
+		}
+		else{
+			return null;
+		}
+
+		while(is(type.end, "[") && is(type.end + 1, "]")){
+			type.dimensions++;
+			type.end += 2;
+		}
+
+		if(is(type.end, "@")){
+			throw unsupported(at(type.end), "type annotation");
+		}
+
+		return type;
+	}
+
+	private int skipName(int i){
+		return isIdentifier(i) ? i + 1 : i;
+	}
+
+	private int handleChain(int i){
+		Token first = at(i);
+
+		if(first.text.equals("yield")){
+			throw unsupported(first, "yield");
+		}
+
+		if(listContext){
+			TypeRef type = parseType(i, false);
+
+			if(type == null){
+				throw unsupported(first, "type list");
+			}
+
+			declareType(type);
+
+			return type.end;
+		}
+
+		TypeRef type = simpleType(i);
+		int j = type.end;
+
+		if(is(j, ".")){
+			if(is(j + 1, "class")){
+				visitType(type);
+
+				return j + 2;
+			}
+
+			if(is(j + 1, "this") || is(j + 1, "super")){
+				return j + 2;
+			}
+
+			throw unsupported(at(j + 1), "qualified expression");
+		}
+
+		if(is(j, "<") || (is(j, "[") && is(j + 1, "]"))){
+			TypeRef declared = parseType(i, false);
+
+			if(declared == null){
+				//a comparison rather than type arguments
+				return processScope(type);
+			}
+
+			//a < b, c > d inside a method call reads the same as a generic declaration
+			if(declared.arguments != null && !parens.isEmpty() && parens.peek() == CALL && !isConstructorParameters(i)){
+				throw unsupported(first, "ambiguous type arguments");
+			}
+
+			type = declared;
+			j = type.end;
+
+			//c style array declarator, int values[]
+			if(type.arguments == null && (is(j, ",") || is(j, ")") || is(j, "=") || is(j, ";"))){
+				return j;
+			}
+
+			if(isIdentifier(j) || is(j, "...")){
+				if(caseLabel){
+					throw unsupported(first, "type pattern");
+				}
+
+				declareType(type);
+
+				return skipName(is(j, "...") ? j + 1 : j);
+			}
+
+			if(is(j, "::")){
+				visitType(type);
+
+				return j;
+			}
+
+			if(type.arguments == null && is(j, ".") && is(j + 1, "class")){
+				visitType(type);
+
+				return j + 2;
+			}
+
+			throw unsupported(first, "type usage");
+		}
+
+		if(isIdentifier(j)){
+			if(caseLabel){
+				throw unsupported(first, "type pattern");
+			}
+
+			if(!type.name.equals("var")){
+				declareType(type);
+			}
+
+			return j + 1;
+		}
+
+		if(is(j, "...")){
+			declareType(type);
+
+			return skipName(j + 1);
+		}
+
+		if(is(j, "::")){
+			visitType(type);
+
+			return j;
+		}
+
+		Token next = at(j);
+
+		if(next.kind == Token.KEYWORD && !next.is("instanceof")){
+			throw unsupported(next, next.text);
+		}
+
+		if(next.is("@") || (next.is("(") && caseLabel)){
+			throw unsupported(next, "pattern");
+		}
+
+		return processScope(type);
+	}
+
+	//a name followed by anything else is an expression, only the first name of a scope is a type candidate
+	private int processScope(TypeRef type){
+		if(type.name.indexOf('.') > -1 && isClassName(type.start.text)){
+			addType(type.start.text, type.start);
+		}
+
+		return type.end;
+	}
+
+	private int handlePackage(int i){
+		if(i > 0){
+			throw unsupported(at(i), "annotated package");
+		}
+
+		StringBuilder name = new StringBuilder();
+		int j = readName(i + 1, name);
+
+		if(!isIdentifier(i + 1) || !is(j, ";")){
+			throw unsupported(at(i), "package");
+		}
+
+		info.pkg.value = name.toString();
+		info.pkg.position.line = at(i).line;
+		info.pkg.position.column = at(i).column;
+
+		return j + 1;
+	}
+
+	private int handleImport(int i){
+		FileImportEntry entry = new FileImportEntry();
+		int j = i + 1;
+
+		if(is(j, "static")){
+			entry.isStatic = true;
+			j++;
+		}
+
+		if(!isIdentifier(j)){
+			throw unsupported(at(i), "import");
+		}
+
+		StringBuilder name = new StringBuilder();
+		String key = at(j).text;
+
+		j++;
+
+		name.append(key);
+
+		while(is(j, ".") && isIdentifier(j + 1)){
+			key = at(j + 1).text;
+
+			name.append('.').append(key);
+
+			j += 2;
+		}
+
+		if(is(j, ".") && is(j + 1, "*")){
+			name.append(".*");
+
+			key = name.toString();
+
+			j += 2;
+		}
+
+		if(!is(j, ";")){
+			throw unsupported(at(i), "import");
+		}
+
+		entry.value = name.toString();
+		entry.position.line = at(i).line;
+		entry.position.column = at(i).column;
+
+		info.imports.put(key, entry);
+
+		return j + 1;
+	}
+
+	private int handleDeclaration(int i){
+		if(!isIdentifier(i + 1)){
+			throw unsupported(at(i), "declaration");
+		}
+
+		if(is(i + 2, "<")){
+			throw unsupported(at(i + 2), "type parameters");
+		}
+
+		if(!at(i).is("enum")){
+			declaration = at(i + 1).text;
+		}
+
+		return i + 2;
+	}
+
+	private int handleNew(int i){
+		int j = i + 1;
+		Token token = at(j);
+
+		if(token.kind == Token.KEYWORD && PRIMITIVES.contains(token.text)){
+			return j + 1;
+		}
+
+		if(!token.isIdentifier()){
+			throw unsupported(token, "object creation");
+		}
+
+		TypeRef type = simpleType(j);
+
+		if(is(type.end, "<")){
+			type.end = parseTypeArguments(type, type.end);
+
+			if(type.end < 0 || is(type.end, ".")){
+				throw unsupported(token, "object creation");
+			}
+		}
+
+		visitType(type);
+
+		if(is(type.end, "(")){
+			open(CALL, changes.size());
+
+			return type.end + 1;
+		}
+
+		if(!is(type.end, "[")){
+			throw unsupported(token, "object creation");
+		}
+
+		return type.end;
+	}
+
+	private int handleInstanceOf(int i){
+		TypeRef type = parseType(i + 1, true);
+
+		if(type == null){
+			throw unsupported(at(i + 1), "instanceof");
+		}
+
+		if(isIdentifier(type.end) || is(type.end, "(")){
+			throw unsupported(at(type.end), "pattern");
+		}
+
+		visitType(type);
+
+		return type.end;
+	}
+
+	private int handleCatch(int i){
+		int j = i + 2;
+
+		if(!is(i + 1, "(")){
+			throw unsupported(at(i), "catch");
+		}
+
+		if(is(j, "final")){
+			j++;
+		}
+
+		while(true){
+			TypeRef type = parseType(j, false);
+
+			if(type == null){
+				throw unsupported(at(j), "catch");
+			}
+
+			visitType(type);
+
+			j = type.end;
+
+			if(!is(j, "|")){
+				break;
+			}
+
+			j++;
+		}
+
+		if(!isIdentifier(j) || !is(j + 1, ")")){
+			throw unsupported(at(j), "catch");
+		}
+
+		return j + 2;
+	}
+
+	private int findClosing(int i, String open, String close){
+		int level = 0;
+
+		for(int j = i; j < tokens.size(); j++){
+			if(is(j, open)){
+				level++;
+			}
+			else if(is(j, close) && --level == 0){
+				return j;
+			}
+		}
+
+		throw unsupported(at(i), String.format("unbalanced %s", open));
+	}
+
+	//mirrors the visitor's processExpression for single member annotation values
+	private void processMemberValue(int from, int to){
+		if(from >= to || is(from, "@")){
+			return;
+		}
+
+		if(is(from, "{")){
+			if(findClosing(from, "{", "}") != to - 1){
+				throw unsupported(at(from), "annotation value");
+			}
+
+			int start = from + 1;
+			int level = 0;
+
+			for(int j = start; j < to - 1; j++){
+				if(is(j, "{") || is(j, "(")){
+					level++;
+				}
+				else if(is(j, "}") || is(j, ")")){
+					level--;
+				}
+				else if(level == 0 && is(j, ",")){
+					processMemberValue(start, j);
+
+					start = j + 1;
+				}
+			}
+
+			processMemberValue(start, to - 1);
+
+			return;
+		}
+
+		for(int j = from; j < to; j++){
+			if(is(j, "(")){
+				throw unsupported(at(j), "annotation value");
+			}
+		}
+
+		if(!isIdentifier(from)){
+			return;
+		}
+
+		TypeRef type = simpleType(from);
+
+		if(type.end == to){
+			if(isClassName(type.start.text)){
+				addType(type.start.text, type.start);
+			}
+		}
+		else if(type.end + 2 == to && is(type.end, ".") && is(type.end + 1, "class")){
+			visitType(type);
+		}
+	}
+
+	private int handleAnnotation(int i){
+		if(listContext){
+			throw unsupported(at(i), "type annotation");
+		}
+
+		if(is(i + 1, "interface")){
+			return i + 3;
+		}
+
+		if(!isIdentifier(i + 1)){
+			throw unsupported(at(i), "annotation");
+		}
+
+		StringBuilder name = new StringBuilder();
+		int j = readName(i + 1, name);
+
+		if(name.indexOf(".") < 0){
+			addType(name.toString(), at(i));
+		}
+
+		if(is(j, "(")){
+			if(isIdentifier(j + 1) && is(j + 2, "=")){
+				open(ANNOTATION, changes.size());
+
+				return j + 1;
+			}
+
+			int end = findClosing(j, "(", ")");
+
+			processMemberValue(j + 1, end);
+
+			j = end + 1;
+		}
+
+		afterAnnotation = true;
+
+		return j;
+	}
+
+	private int handleOpenParen(int i){
+		Token previous = at(i - 1);
+		int kind = GROUP;
+
+		if(previous.isIdentifier()){
+			kind = isDeclarationName(i - 1) ? PARAMETERS : CALL;
+		}
+		else if(previous.is("this") || previous.is("super")){
+			kind = CALL;
+		}
+		else if(previous.kind == Token.KEYWORD && CONTROL_KEYWORDS.contains(previous.text)){
+			kind = CONTROL;
+		}
+
+		if(kind == GROUP){
+			if(is(i + 1, "@")){
+				throw unsupported(at(i + 1), "type annotation");
+			}
+
+			TypeRef type = parseType(i + 1, true);
+
+			if(type != null){
+				if(is(type.end, ")") && isOperandStart(type.end + 1)){
+					visitType(type);
+
+					return type.end + 1;
+				}
+
+				if(is(type.end, "&") && !type.primitive && isOperandStart(findClosing(i, "(", ")") + 1)){
+					throw unsupported(at(type.end), "intersection cast");
+				}
+			}
+		}
+
+		open(kind, changes.size());
+
+		return i + 1;
+	}
+
+	private boolean isConstructorParameters(int i){
+		int level = 0;
+
+		for(int j = i; j < tokens.size(); j++){
+			if(is(j, "(")){
+				level++;
+			}
+			else if(is(j, ")") && level-- == 0){
+				return is(j + 1, "{") || is(j + 1, "throws");
+			}
+		}
+
+		return false;
+	}
+
+	//the name of a method or constructor declaration follows its return type or modifiers
+	private boolean isDeclarationName(int i){
+		Token previous = at(i - 1);
+
+		if(previous.isIdentifier() || previous.is(">") || previous.is("]")){
+			return true;
+		}
+
+		return previous.kind == Token.KEYWORD && (PRIMITIVES.contains(previous.text) || MODIFIERS.contains(previous.text));
+	}
+
+	private boolean isOperandStart(int i){
+		Token token = at(i);
+
+		switch(token.kind){
+			case Token.IDENTIFIER:
+			case Token.LITERAL:
+				return true;
+			case Token.KEYWORD:
+				return OPERAND_KEYWORDS.contains(token.text) || PRIMITIVES.contains(token.text);
+			case Token.SEPARATOR:
+				return token.is("(") || token.is("!") || token.is("~");
+			default:
+				return false;
+		}
+	}
+
+	private boolean isFieldAccess(int i){
+		return is(i, ".") && isIdentifier(i + 1) && !is(i + 2, "(");
+	}
+
+	private void open(int kind, int mark){
+		parens.push(kind);
+		marks.push(mark);
+	}
+
+	private int close(int i, boolean paren, int expected){
+		if(parens.isEmpty() || (paren ? parens.peek() >= BLOCK : parens.peek() != expected)){
+			throw unsupported(at(i), String.format("unbalanced %s", at(i).text));
+		}
+
+		int mark = marks.pop();
+		int kind = parens.pop();
+
+		//the visitor does not look into the scope of ((Type) value).field or values[index].field
+		if(kind != BLOCK && isFieldAccess(i + 1)){
+			if(kind == GROUP){
+				rollback(mark);
+			}
+			else if(kind == INDEX && mark != changes.size()){
+				throw unsupported(at(i), "field access scope");
+			}
+		}
+
+		return kind;
+	}
+
+	private int handleCloseParen(int i){
+		int kind = close(i, true, 0);
+
+		if(kind == ANNOTATION){
+			afterAnnotation = true;
+		}
+
+		return i + 1;
+	}
+
+	private int handleSeparator(int i, boolean annotated){
+		Token token = at(i);
+
+		switch(token.text){
+			case "@":
+				return handleAnnotation(i);
+			case "(":
+				return handleOpenParen(i);
+			case ")":
+				return handleCloseParen(i);
+			case "[":
+				//values[index], any other array access scope may already have added types
+				open(INDEX, isIdentifier(i - 1) && !is(i - 2, ".") && !is(i - 2, "::") ? changes.size() : -1);
+				break;
+			case "{":
+				open(BLOCK, changes.size());
+				blocks.push(declaration);
+				declaration = "";
+				listContext = false;
+				break;
+			case "]":
+				close(i, false, INDEX);
+				break;
+			case "}":
+				close(i, false, BLOCK);
+
+				visitedClasses.add(blocks.pop());
+
+				if(is(i + 1, ".")){
+					throw unsupported(token, "field access scope");
+				}
+
+				break;
+			case ";":
+				listContext = false;
+				caseLabel = false;
+				break;
+			case ":":
+				caseLabel = false;
+				break;
+			case "->":
+			case ",":
+				if(caseLabel){
+					throw unsupported(token, "case label");
+				}
+
+				break;
+			case ".":
+			case "::":
+				if(is(i + 1, "<") || is(i + 1, "@") || (is(i + 1, "new") && token.is("."))){
+					throw unsupported(token, "qualified expression");
+				}
+
+				//skip the member name
+				return isIdentifier(i + 1) || is(i + 1, "new") ? i + 2 : i + 1;
+			case "<":
+				Token previous = at(i - 1);
+
+				if(annotated || previous.is("{") || previous.is("}") || previous.is(";") || (previous.kind == Token.KEYWORD && MODIFIERS.contains(previous.text))){
+					throw unsupported(token, "type parameters");
+				}
+
+				break;
+			default:
+				break;
+		}
+
+		return i + 1;
+	}
+
+	private int handleKeyword(int i){
+		Token token = at(i);
+
+		switch(token.text){
+			case "package":
+				return handlePackage(i);
+			case "import":
+				return handleImport(i);
+			case "class":
+			case "interface":
+				return at(i - 1).is(".") ? i + 1 : handleDeclaration(i);
+			case "enum":
+				return handleDeclaration(i);
+			case "new":
+				return handleNew(i);
+			case "instanceof":
+				return handleInstanceOf(i);
+			case "catch":
+				return handleCatch(i);
+			case "extends":
+			case "implements":
+			case "throws":
+				listContext = true;
+				break;
+			case "case":
+				caseLabel = true;
+				break;
+			case "default":
+				if(is(i + 1, "->")){
+					throw unsupported(token, "case label");
+				}
+
+				break;
+			case "switch":
+				Token previous = at(i - 1);
+
+				if(!(previous.is(";") || previous.is("{") || previous.is("}") || previous.is(")") || previous.is(":") || previous.is("else"))){
+					throw unsupported(token, "switch expression");
+				}
+
+				break;
+			default:
+				if(MODIFIERS.contains(token.text) && is(i + 1, "<")){
+					throw unsupported(token, "type parameters");
+				}
+
+				break;
+		}
+
+		return i + 1;
+	}
+
+	private void collectDeclaredClasses(){
+		for(int i = 0; i < tokens.size(); i++){
+			Token token = tokens.get(i);
+
+			if((token.is("class") || token.is("interface")) && !is(i - 1, ".") && !is(i - 1, "@") && isIdentifier(i + 1)){
+				info.declaredClasses.add(at(i + 1).text);
+			}
+		}
+	}
+
+	//true when the token ends an expression, which still needs its semicolon as a statement
+	private boolean isExpressionEnd(int i){
+		Token token = at(i);
+
+		if((token.is("+") || token.is("-")) && is(i - 1, token.text)){
+			return true;
+		}
+
+		return token.kind == Token.IDENTIFIER || token.kind == Token.LITERAL || token.is(")") || token.is("]") || token.is(",");
+	}
+
+	private boolean isUnexpected(Token token, Token next){
+		if(next.kind != Token.SEPARATOR || !CLOSERS.contains(next.text)){
+			return false;
+		}
+
+		if(OPERATORS.contains(token.text)){
+			return true;
+		}
+
+		switch(token.text){
+			case "(":
+				//for(;;)
+				return !next.is(")") && !next.is(";");
+			case "[":
+				return !next.is("]");
+			case ",":
+				//enum constants may end with a comma before their semicolon, array initializers before the brace
+				return !next.is(";") && !next.is("}");
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * Rejects the token pairs that can not appear in valid source, like an
+	 * assignment without a value or a statement missing its semicolon before
+	 * the end of a block, so the fallback engine reports the syntax error.
+	 */
+	private void checkSequences(){
+		//whether each open brace is a block, the innermost first
+		Deque<Boolean> statementBlocks = new ArrayDeque<>();
+
+		for(int i = 0; i < tokens.size(); i++){
+			Token token = tokens.get(i);
+			Token next = at(i + 1);
+
+			if(token.kind != Token.SEPARATOR && token.kind != Token.KEYWORD){
+				continue;
+			}
+
+			if(isUnexpected(token, next)){
+				throw unsupported(next, String.format("unexpected %s", next.text));
+			}
+
+			if(token.is("{")){
+				Token previous = at(i - 1);
+				boolean enclosing = statementBlocks.isEmpty() || statementBlocks.peek();
+
+				statementBlocks.push(previous.kind != Token.LITERAL && BLOCK_STARTS.contains(previous.text) && (!previous.is("{") || enclosing));
+			}
+			else if(token.is("}") && !statementBlocks.isEmpty()){
+				if(statementBlocks.pop() && isExpressionEnd(i - 1)){
+					throw unsupported(token, "missing ;");
+				}
+			}
+		}
+	}
+
+	void scan(){
+		collectDeclaredClasses();
+		checkSequences();
+
+		int i = 0;
+
+		while(i < tokens.size()){
+			Token token = tokens.get(i);
+			boolean annotated = afterAnnotation;
+
+			afterAnnotation = false;
+
+			switch(token.kind){
+				case Token.IDENTIFIER:
+					i = handleChain(i);
+					break;
+				case Token.KEYWORD:
+					i = handleKeyword(i);
+					break;
+				case Token.SEPARATOR:
+					i = handleSeparator(i, annotated);
+					break;
+				default:
+					i++;
+					break;
+			}
+		}
+
+		if(!parens.isEmpty()){
+			throw unsupported(eof, "unbalanced brackets");
+		}
+	}
+}
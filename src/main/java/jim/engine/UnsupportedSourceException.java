@@ -0,0 +1,13 @@
+package jim.engine;
+
+/**
+ * Thrown by the lexer engine for source it can not classify confidently, the
+ * source is then handed to the full parser instead.
+ */
+class UnsupportedSourceException extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+
+	UnsupportedSourceException(String message){
+		super(message, null, false, false);
+	}
+}
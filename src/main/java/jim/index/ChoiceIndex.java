@@ -0,0 +1,44 @@
+package jim.index;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The most recent choice made for each ambiguous simple class name.
+ */
+public class ChoiceIndex {
+	private final Map<String, String> choices;
+
+	public ChoiceIndex(Map<String, String> choices){
+		this.choices = choices;
+	}
+
+	/**
+	 * Creates an index from choice lists ordered from the most recent choice
+	 * to the oldest.
+	 */
+	public static ChoiceIndex of(Map<String, List<String>> choices){
+		Map<String, String> dest = new HashMap<>(choices.size() * 4 / 3 + 1);
+
+		for(Map.Entry<String, List<String>> entry : choices.entrySet()){
+			if(!entry.getValue().isEmpty()){
+				dest.put(entry.getKey(), entry.getValue().get(0));
+			}
+		}
+
+		return new ChoiceIndex(dest);
+	}
+
+	/**
+	 * Returns the fully qualified class name chosen last for the simple name,
+	 * or null when nothing was chosen for it.
+	 */
+	public String getRecentChoice(String name){
+		return choices.get(name);
+	}
+
+	public int size(){
+		return choices.size();
+	}
+}
@@ -0,0 +1,44 @@
+package jim.index;
+
+import java.util.List;
+
+/**
+ * Lookup of fully qualified class names by their simple name.
+ */
+public interface ClassIndex {
+	/**
+	 * Returns the fully qualified names of every class with the given simple
+	 * name, or an empty list when the name is unknown.
+	 */
+	List<String> get(String name);
+
+	boolean containsKey(String name);
+
+	/**
+	 * Returns the number of distinct simple names.
+	 */
+	int size();
+
+	/**
+	 * Returns true when the index holds the class with the given simple name
+	 * in the given package, the empty string being the default package.
+	 * Implementations answer this without building the list of classes.
+	 */
+	default boolean contains(String packageName, String name){
+		return get(name).contains(packageName.isEmpty() ? name : packageName.concat(".").concat(name));
+	}
+
+	/**
+	 * Returns true when the index holds the given fully qualified class name
+	 * under its last name segment.
+	 */
+	default boolean contains(String className){
+		int index = className.lastIndexOf('.');
+
+		if(index < 0){
+			return contains("", className);
+		}
+
+		return contains(className.substring(0, index), className.substring(index + 1));
+	}
+}
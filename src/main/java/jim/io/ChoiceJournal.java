@@ -0,0 +1,151 @@
+package jim.io;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import jim.index.ChoiceIndex;
+
+/**
+ * Reads the choice file, an append only journal of the choices made in the
+ * editor.
+ *
+ * Each line holds a simple class name followed by one or more fully
+ * qualified names, the most recent first. The editor appends a line for
+ * every choice and now and then compacts the journal to one line per name,
+ * so a later line always wins over an earlier one. Only the most recent
+ * choice of each name is kept.
+ */
+public class ChoiceJournal {
+	private final FileSystem fileSystem;
+	private ChoiceSnapshot snapshot;
+
+	public ChoiceJournal(FileSystem fileSystem){
+		this.fileSystem = fileSystem;
+	}
+
+	/**
+	 * Creates a journal that keeps a binary snapshot next to each file it
+	 * reads, so only the lines appended since the last run are parsed.
+	 */
+	public ChoiceJournal(FileSystem fileSystem, boolean useSnapshots){
+		this(fileSystem);
+
+		if(useSnapshots){
+			this.snapshot = new ChoiceSnapshot(fileSystem);
+		}
+	}
+
+	public ChoiceIndex read(InputStream input) throws IOException {
+		Map<String, String> dest = new HashMap<>();
+
+		read(input, dest);
+
+		return new ChoiceIndex(dest);
+	}
+
+	private void read(InputStream input, Map<String, String> dest) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+		String line;
+
+		while((line = reader.readLine()) != null){
+			int start = line.indexOf(' ');
+
+			if(start < 1){
+				continue;
+			}
+
+			int end = line.indexOf(' ', start + 1);
+			String choice = end < 0 ? line.substring(start + 1) : line.substring(start + 1, end);
+
+			if(!choice.isEmpty()){
+				dest.put(line.substring(0, start), choice);
+			}
+		}
+	}
+
+	public ChoiceIndex read(String filename, boolean required) throws IOException {
+		Path path = fileSystem.getPath(filename);
+
+		if(!Files.exists(path)){
+			if(required){
+				throw new IOException(String.format("file not found - %s", filename));
+			}
+
+			return new ChoiceIndex(new HashMap<>());
+		}
+
+		if(snapshot != null){
+			return readWithSnapshot(path);
+		}
+
+		try(InputStream input = Files.newInputStream(path)){
+			return read(input);
+		}
+	}
+
+	private ChoiceIndex readWithSnapshot(Path path) throws IOException {
+		//the attributes are read first, an edit made while the file is read below invalidates the snapshot
+		BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+		ChoiceSnapshot.Contents contents = null;
+
+		try{
+			contents = snapshot.read(path, attributes);
+		}
+		catch(IOException ex){
+			//a truncated or unreadable snapshot is rebuilt below
+		}
+
+		Map<String, String> choices;
+		long position;
+		byte[] bytes;
+		int start;
+
+		if(contents != null){
+			choices = contents.choices;
+			position = contents.position;
+			bytes = contents.bytes;
+			start = (int) (contents.length - position);
+		}
+		else{
+			choices = new HashMap<>();
+			position = 0;
+			bytes = Files.readAllBytes(path);
+			start = 0;
+		}
+
+		//the snapshot only covers whole lines, a line still being appended is read again next time
+		int end = bytes.length;
+
+		while(end > start && bytes[end - 1] != '\n'){
+			end--;
+		}
+
+		if(end > start || contents == null){
+			read(new ByteArrayInputStream(bytes, start, end - start), choices);
+
+			try{
+				snapshot.write(path, attributes, position + end, Arrays.copyOfRange(bytes, Math.max(0, end - ChoiceSnapshot.ANCHOR_LENGTH), end), choices);
+			}
+			catch(IOException ex){
+				//the snapshot is only an optimization, e.g. the directory may be read only
+			}
+		}
+
+		read(new ByteArrayInputStream(bytes, end, bytes.length - end), choices);
+
+		return new ChoiceIndex(choices);
+	}
+}
@@ -0,0 +1,186 @@
+package jim.io;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binary snapshot of the choices read from the first bytes of a choice
+ * journal, stored next to the journal.
+ *
+ * The editor only ever appends to the journal or replaces it with a
+ * compacted file, so a snapshot stays valid while the journal is the same
+ * file and still ends with the bytes the snapshot was read up to. Only the
+ * lines appended since then have to be read. The snapshot also records the
+ * size and modification time, so an unchanged journal is not opened at all.
+ */
+public class ChoiceSnapshot {
+	private static final int MAGIC = 0x4A494D43;
+	private static final int VERSION = 1;
+	private static final String EXTENSION = ".snapshot";
+
+	//bytes before the end of the snapshot that must still match
+	static final int ANCHOR_LENGTH = 64;
+
+	/**
+	 * The choices of a snapshot along with the journal bytes from position to
+	 * the end of the file. The snapshot covers the journal up to length, so
+	 * the bytes before it are the anchor and the bytes after it were
+	 * appended since.
+	 */
+	public static class Contents {
+		public final Map<String, String> choices;
+		public final long position;
+		public final long length;
+		public final byte[] bytes;
+
+		private Contents(Map<String, String> choices, long position, long length, byte[] bytes){
+			this.choices = choices;
+			this.position = position;
+			this.length = length;
+			this.bytes = bytes;
+		}
+	}
+
+	private FileSystem fileSystem;
+
+	public ChoiceSnapshot(FileSystem fileSystem){
+		this.fileSystem = fileSystem;
+	}
+
+	private Path getSnapshotPath(Path path){
+		return fileSystem.getPath(String.format("%s%s", path, EXTENSION));
+	}
+
+	private long getModifiedTime(BasicFileAttributes attributes){
+		return attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+	}
+
+	private String getFileKey(BasicFileAttributes attributes){
+		return attributes.fileKey() == null ? "" : attributes.fileKey().toString();
+	}
+
+	private byte[] readFrom(Path path, long position, long size) throws IOException {
+		if(size - position > Integer.MAX_VALUE){
+			throw new IOException(String.format("file too large - %s", path));
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate((int) (size - position));
+
+		try(SeekableByteChannel channel = Files.newByteChannel(path)){
+			channel.position(position);
+
+			while(buffer.hasRemaining() && channel.read(buffer) >= 0){
+				//keep reading until the buffer is full or the file ends
+			}
+		}
+
+		return Arrays.copyOf(buffer.array(), buffer.position());
+	}
+
+	/**
+	 * Returns the snapshot of the given journal along with the bytes appended
+	 * to it since, or null when there is no snapshot or the journal was
+	 * replaced or rewritten.
+	 */
+	public Contents read(Path path, BasicFileAttributes attributes) throws IOException {
+		Path snapshot = getSnapshotPath(path);
+
+		if(!Files.exists(snapshot)){
+			return null;
+		}
+
+		DataInputStream input = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(snapshot)));
+
+		if(input.readInt() != MAGIC || input.readInt() != VERSION){
+			return null;
+		}
+
+		String fileKey = input.readUTF();
+		long length = input.readLong();
+		long modifiedTime = input.readLong();
+		byte[] anchor = new byte[input.readInt()];
+
+		input.readFully(anchor);
+
+		long position = length;
+		byte[] bytes = new byte[0];
+
+		if(attributes.size() == length){
+			if(modifiedTime != getModifiedTime(attributes)){
+				return null;
+			}
+		}
+		else{
+			//appended to, which can only be told apart from a rewrite while the file key is known
+			if(fileKey.isEmpty() || !fileKey.equals(getFileKey(attributes)) || attributes.size() < length){
+				return null;
+			}
+
+			position = length - anchor.length;
+			bytes = readFrom(path, position, attributes.size());
+
+			if(bytes.length < anchor.length || !Arrays.equals(anchor, 0, anchor.length, bytes, 0, anchor.length)){
+				return null;
+			}
+		}
+
+		int size = input.readInt();
+		Map<String, String> choices = new HashMap<>(size * 4 / 3 + 1);
+
+		for(int i = 0; i < size; i++){
+			choices.put(input.readUTF(), input.readUTF());
+		}
+
+		return new Contents(choices, position, length, bytes);
+	}
+
+	/**
+	 * Writes the snapshot of the first length bytes of the journal through a
+	 * temporary file so concurrent readers never see a partially written
+	 * snapshot. The anchor is the end of those bytes.
+	 */
+	public void write(Path path, BasicFileAttributes attributes, long length, byte[] anchor, Map<String, String> choices) throws IOException {
+		Path snapshot = getSnapshotPath(path);
+		Path temp = Files.createTempFile(snapshot.toAbsolutePath().getParent(), snapshot.getFileName().toString(), ".tmp");
+
+		try{
+			try(OutputStream stream = Files.newOutputStream(temp); DataOutputStream output = new DataOutputStream(new BufferedOutputStream(stream))){
+				output.writeInt(MAGIC);
+				output.writeInt(VERSION);
+				output.writeUTF(getFileKey(attributes));
+				output.writeLong(length);
+				output.writeLong(getModifiedTime(attributes));
+				output.writeInt(anchor.length);
+				output.write(anchor);
+				output.writeInt(choices.size());
+
+				for(Map.Entry<String, String> entry : choices.entrySet()){
+					output.writeUTF(entry.getKey());
+					output.writeUTF(entry.getValue());
+				}
+			}
+
+			Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally{
+			Files.deleteIfExists(temp);
+		}
+	}
+}
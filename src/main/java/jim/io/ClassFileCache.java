@@ -0,0 +1,87 @@
+package jim.io;
+
+import java.io.IOException;
+
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import jim.index.ChoiceIndex;
+import jim.index.ClassIndex;
+
+/**
+ * Keeps deserialized class lists in memory between requests, reloading a
+ * file only when its size or modification time changes.
+ */
+public class ClassFileCache {
+	private interface Loader<T> {
+		T load(String filename, boolean required) throws IOException;
+	}
+
+	private static class Entry {
+		private final long size;
+		private final FileTime lastModifiedTime;
+		private final Object values;
+
+		private Entry(BasicFileAttributes attributes, Object values){
+			this.size = attributes.size();
+			this.lastModifiedTime = attributes.lastModifiedTime();
+			this.values = values;
+		}
+
+		private boolean matches(BasicFileAttributes attributes){
+			return size == attributes.size() && lastModifiedTime.equals(attributes.lastModifiedTime());
+		}
+	}
+
+	private final FileSystem fileSystem;
+	private final ClassListDeserializer deserializer;
+	private final ChoiceJournal journal;
+	private final Map<String, Entry> classes = new HashMap<>();
+	private final Map<String, Entry> choices = new HashMap<>();
+
+	public ClassFileCache(FileSystem fileSystem, ClassListDeserializer deserializer, ChoiceJournal journal){
+		this.fileSystem = fileSystem;
+		this.deserializer = deserializer;
+		this.journal = journal;
+	}
+
+	public ClassFileCache(FileSystem fileSystem, ClassListDeserializer deserializer){
+		this(fileSystem, deserializer, new ChoiceJournal(fileSystem));
+	}
+
+	@SuppressWarnings("unchecked")
+	private synchronized <T> T get(Map<String, Entry> entries, String filename, boolean required, Loader<T> loader) throws IOException {
+		Path path = fileSystem.getPath(filename);
+
+		if(!Files.exists(path)){
+			entries.remove(filename);
+
+			return loader.load(filename, required);
+		}
+
+		BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+		Entry entry = entries.get(filename);
+
+		if(entry == null || !entry.matches(attributes)){
+			entry = new Entry(attributes, loader.load(filename, required));
+
+			entries.put(filename, entry);
+		}
+
+		return (T) entry.values;
+	}
+
+	public ClassIndex getClasses(String filename, boolean required) throws IOException {
+		return get(classes, filename, required, deserializer::deserializeIndex);
+	}
+
+	public ChoiceIndex getChoices(String filename, boolean required) throws IOException {
+		return get(choices, filename, required, journal::read);
+	}
+}
@@ -0,0 +1,128 @@
+package jim.io;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads just enough of a class file to find its access flags.
+ *
+ * The flags of a nested class are taken from its own InnerClasses entry,
+ * since the class level flags of a private or protected nested class are
+ * widened by the compiler. Top level classes stop reading right after the
+ * constant pool.
+ */
+public class ClassFileReader {
+	public static final int ACC_PUBLIC = 0x0001;
+	public static final int ACC_SYNTHETIC = 0x1000;
+
+	private static final int MAGIC = 0xCAFEBABE;
+
+	private ClassFileReader(){
+
+	}
+
+	private static void skipAttributes(DataInputStream input) throws IOException {
+		int count = input.readUnsignedShort();
+
+		for(int i = 0; i < count; i++){
+			input.skipNBytes(2);
+			input.skipNBytes(input.readInt() & 0xFFFFFFFFL);
+		}
+	}
+
+	private static void skipMembers(DataInputStream input) throws IOException {
+		int count = input.readUnsignedShort();
+
+		for(int i = 0; i < count; i++){
+			input.skipNBytes(6);
+
+			skipAttributes(input);
+		}
+	}
+
+	/**
+	 * Returns the access flags of the class. When nested is set the flags are
+	 * read from the class's own InnerClasses entry if it has one.
+	 */
+	public static int getAccessFlags(InputStream stream, boolean nested) throws IOException {
+		DataInputStream input = new DataInputStream(stream);
+
+		if(input.readInt() != MAGIC){
+			throw new IOException("not a class file");
+		}
+
+		input.skipNBytes(4);
+
+		int count = input.readUnsignedShort();
+		String[] strings = new String[count];
+
+		for(int i = 1; i < count; i++){
+			int tag = input.readUnsignedByte();
+
+			switch(tag){
+				case 1:
+					strings[i] = input.readUTF();
+					break;
+				case 7: case 8: case 16: case 19: case 20:
+					input.skipNBytes(2);
+					break;
+				case 15:
+					input.skipNBytes(3);
+					break;
+				case 3: case 4: case 9: case 10: case 11: case 12: case 17: case 18:
+					input.skipNBytes(4);
+					break;
+				case 5: case 6:
+					input.skipNBytes(8);
+					i++;
+					break;
+				default:
+					throw new IOException(String.format("unknown constant pool tag - %d", tag));
+			}
+		}
+
+		int flags = input.readUnsignedShort();
+
+		if(!nested){
+			return flags;
+		}
+
+		int thisClass = input.readUnsignedShort();
+
+		input.skipNBytes(2);
+		input.skipNBytes(input.readUnsignedShort() * 2L);
+
+		skipMembers(input);
+		skipMembers(input);
+
+		int attributes = input.readUnsignedShort();
+
+		for(int i = 0; i < attributes; i++){
+			String name = strings[input.readUnsignedShort()];
+			long length = input.readInt() & 0xFFFFFFFFL;
+
+			if(!"InnerClasses".equals(name)){
+				input.skipNBytes(length);
+
+				continue;
+			}
+
+			int classes = input.readUnsignedShort();
+
+			for(int j = 0; j < classes; j++){
+				int innerClass = input.readUnsignedShort();
+
+				input.skipNBytes(4);
+
+				int innerFlags = input.readUnsignedShort();
+
+				if(innerClass == thisClass){
+					return innerFlags | (flags & ACC_SYNTHETIC);
+				}
+			}
+		}
+
+		return flags;
+	}
+}
@@ -0,0 +1,146 @@
+package jim.io;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a class list in the binary format read by {@link jim.index.MappedClassIndex}.
+ *
+ * <pre>
+ * header   magic "JIMX", int version, int entry count
+ * offsets  int file offset of each entry, sorted by simple name
+ * entries  u2 name length, name, u2 class count, (u2 length, class name) * count
+ * </pre>
+ *
+ * Strings are UTF-8 encoded and entries are ordered by their unsigned UTF-8
+ * bytes so the reader can binary search without decoding.
+ */
+public class ClassIndexSerializer {
+	public static final byte[] MAGIC = {'J', 'I', 'M', 'X'};
+	public static final int VERSION = 1;
+	public static final int HEADER_LENGTH = MAGIC.length + 8;
+
+	private static final int MAX_LENGTH = 0xFFFF;
+
+	private FileSystem fileSystem;
+
+	public ClassIndexSerializer(FileSystem fileSystem){
+		this.fileSystem = fileSystem;
+	}
+
+	public static boolean hasMagic(ByteBuffer buffer){
+		if(buffer.limit() < HEADER_LENGTH){
+			return false;
+		}
+
+		for(int i = 0; i < MAGIC.length; i++){
+			if(buffer.get(i) != MAGIC[i]){
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private byte[] encode(String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+		if(bytes.length > MAX_LENGTH){
+			throw new IOException(String.format("class name too long - %s", value));
+		}
+
+		return bytes;
+	}
+
+	public void serialize(Map<String, List<String>> classes, OutputStream output) throws IOException {
+		List<byte[]> keys = new ArrayList<>(classes.size());
+		List<byte[][]> values = new ArrayList<>(classes.size());
+
+		for(String key : classes.keySet()){
+			keys.add(encode(key));
+		}
+
+		keys.sort(Arrays::compareUnsigned);
+
+		int offset = HEADER_LENGTH + keys.size() * 4;
+		int[] offsets = new int[keys.size()];
+
+		for(int i = 0; i < keys.size(); i++){
+			List<String> names = classes.get(new String(keys.get(i), StandardCharsets.UTF_8));
+
+			if(names.size() > MAX_LENGTH){
+				throw new IOException("too many classes for a single name");
+			}
+
+			byte[][] encoded = new byte[names.size()][];
+
+			offsets[i] = offset;
+			offset += 4 + keys.get(i).length;
+
+			for(int j = 0; j < encoded.length; j++){
+				encoded[j] = encode(names.get(j));
+
+				offset += 2 + encoded[j].length;
+			}
+
+			if(offset < 0){
+				throw new IOException("class list too large for a binary index");
+			}
+
+			values.add(encoded);
+		}
+
+		DataOutputStream data = new DataOutputStream(new BufferedOutputStream(output));
+		data.write(MAGIC);
+		data.writeInt(VERSION);
+		data.writeInt(keys.size());
+
+		for(int value : offsets){
+			data.writeInt(value);
+		}
+
+		for(int i = 0; i < keys.size(); i++){
+			byte[] key = keys.get(i);
+
+			data.writeShort(key.length);
+			data.write(key);
+			data.writeShort(values.get(i).length);
+
+			for(byte[] value : values.get(i)){
+				data.writeShort(value.length);
+				data.write(value);
+			}
+		}
+
+		data.flush();
+	}
+
+	/**
+	 * Writes the index to a temporary file first and moves it into place, so
+	 * processes that still have the previous index mapped keep a valid copy.
+	 */
+	public void serialize(Map<String, List<String>> classes, String filename) throws IOException {
+		Path path = fileSystem.getPath(filename);
+		Path temp = fileSystem.getPath(String.format("%s.tmp", filename));
+
+		try(OutputStream output = Files.newOutputStream(temp)){
+			serialize(classes, output);
+		}
+
+		Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+}
@@ -1,32 +1,52 @@
 package jim.io;
 
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystem;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import org.apache.commons.io.IOUtils;
+import jim.index.ClassIndex;
+import jim.index.CompactClassIndex;
+import jim.index.MappedClassIndex;
 
 public class ClassListDeserializer {
 	private FileSystem fileSystem;
+	private ClassListSnapshot snapshot;
 
 	public ClassListDeserializer(FileSystem fileSystem){
 		this.fileSystem = fileSystem;
 	}
 
+	/**
+	 * Creates a deserializer that keeps a binary snapshot next to each class
+	 * list it reads and loads the snapshot instead while the file is unchanged.
+	 */
+	public ClassListDeserializer(FileSystem fileSystem, boolean useSnapshots){
+		this(fileSystem);
+
+		if(useSnapshots){
+			this.snapshot = new ClassListSnapshot(fileSystem);
+		}
+	}
+
 	public Map<String, List<String>> deserialize(InputStream input) throws IOException {
-		List<String> lines = IOUtils.readLines(input, StandardCharsets.UTF_8);
+		BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
 		Map<String, List<String>> dest = new HashMap<>();
+		String line;
 
-		for(String line : lines){
+		while((line = reader.readLine()) != null){
 			String[] values = line.split(" ");
 
 			List<String> classes = dest.get(values[0]);
@@ -45,6 +65,28 @@ public class ClassListDeserializer {
 		return dest;
 	}
 
+	/**
+	 * Reads the class list straight into a {@link CompactClassIndex}, without
+	 * the map of class name lists {@link #deserialize(InputStream)} builds.
+	 */
+	public CompactClassIndex deserializeIndex(InputStream input) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+		CompactClassIndex.Builder builder = new CompactClassIndex.Builder();
+		String line;
+
+		while((line = reader.readLine()) != null){
+			String[] values = line.split(" ");
+
+			builder.add(values[0]);
+
+			for(int i = 1; i < values.length; i++){
+				builder.add(values[0], values[i]);
+			}
+		}
+
+		return builder.build();
+	}
+
 	public Map<String, List<String>> deserialize(String filename, boolean required) throws IOException {
 		Path path = fileSystem.getPath(filename);
 
@@ -56,8 +98,112 @@ public class ClassListDeserializer {
 			return new HashMap<>();
 		}
 
+		if(snapshot != null){
+			return deserializeWithSnapshot(path);
+		}
+
 		try(InputStream input = Files.newInputStream(path)){
 			return deserialize(input);
 		}
 	}
-}	
+
+	private Map<String, List<String>> deserializeWithSnapshot(Path path) throws IOException {
+		//the attributes are read first, an edit made while the file is read below invalidates the snapshot
+		BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+
+		try{
+			Map<String, List<String>> classes = snapshot.read(path, attributes);
+
+			if(classes != null){
+				return classes;
+			}
+		}
+		catch(IOException ex){
+			//a truncated or unreadable snapshot is rebuilt below
+		}
+
+		Map<String, List<String>> classes;
+
+		try(InputStream input = Files.newInputStream(path)){
+			classes = deserialize(input);
+		}
+
+		try{
+			snapshot.write(path, attributes, classes);
+		}
+		catch(IOException ex){
+			//the snapshot is only an optimization, e.g. the directory may be read only
+		}
+
+		return classes;
+	}
+
+	private boolean isBinaryIndex(Path path) throws IOException {
+		byte[] header = new byte[ClassIndexSerializer.HEADER_LENGTH];
+
+		try(InputStream input = Files.newInputStream(path)){
+			int length = input.readNBytes(header, 0, header.length);
+
+			return ClassIndexSerializer.hasMagic(ByteBuffer.wrap(header, 0, length));
+		}
+	}
+
+	/**
+	 * Loads the class list as a {@link ClassIndex}. Binary indexes are memory
+	 * mapped and queried in place while text class lists are read into a
+	 * {@link CompactClassIndex}.
+	 */
+	public ClassIndex deserializeIndex(String filename, boolean required) throws IOException {
+		Path path = fileSystem.getPath(filename);
+
+		if(!Files.exists(path)){
+			if(required){
+				throw new IOException(String.format("file not found - %s", filename));
+			}
+
+			return CompactClassIndex.of(new HashMap<>());
+		}
+
+		if(isBinaryIndex(path)){
+			return MappedClassIndex.open(path);
+		}
+
+		if(snapshot != null){
+			return deserializeIndexWithSnapshot(path);
+		}
+
+		try(InputStream input = Files.newInputStream(path)){
+			return deserializeIndex(input);
+		}
+	}
+
+	private CompactClassIndex deserializeIndexWithSnapshot(Path path) throws IOException {
+		BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+
+		try{
+			CompactClassIndex.Builder builder = new CompactClassIndex.Builder();
+
+			if(snapshot.read(path, attributes, builder::add)){
+				return builder.build();
+			}
+		}
+		catch(IOException ex){
+			//a truncated or unreadable snapshot is rebuilt below
+		}
+
+		CompactClassIndex classes;
+
+		try(InputStream input = Files.newInputStream(path)){
+			classes = deserializeIndex(input);
+		}
+
+		try{
+			snapshot.write(path, attributes, classes);
+		}
+		catch(IOException ex){
+			//the snapshot is only an optimization, e.g. the directory may be read only
+		}
+
+		return classes;
+	}
+}
@@ -0,0 +1,59 @@
+package jim.io;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Writes a class list in the text format read by {@link ClassListDeserializer},
+ * one line per simple name followed by its fully qualified class names.
+ */
+public class ClassListSerializer {
+	private FileSystem fileSystem;
+
+	public ClassListSerializer(FileSystem fileSystem){
+		this.fileSystem = fileSystem;
+	}
+
+	public void serialize(Map<String, ? extends Collection<String>> classes, Writer writer) throws IOException {
+		for(Map.Entry<String, ? extends Collection<String>> entry : classes.entrySet()){
+			writer.write(entry.getKey());
+
+			for(String value : entry.getValue()){
+				writer.write(' ');
+				writer.write(value);
+			}
+
+			writer.write('\n');
+		}
+	}
+
+	/**
+	 * Writes the class list through a temporary file so readers never see a
+	 * partially written list. The temporary file sits next to the class list
+	 * and is created with the default permissions the list itself should get.
+	 */
+	public void serialize(Map<String, ? extends Collection<String>> classes, String filename) throws IOException {
+		Path path = fileSystem.getPath(filename);
+		Path temp = fileSystem.getPath(String.format("%s.tmp", filename));
+
+		try{
+			try(Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)){
+				serialize(classes, writer);
+			}
+
+			Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally{
+			Files.deleteIfExists(temp);
+		}
+	}
+}
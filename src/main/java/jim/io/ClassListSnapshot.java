@@ -0,0 +1,154 @@
+package jim.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import jim.index.CompactClassIndex;
+
+/**
+ * Binary snapshot of a parsed class list, stored next to the text file it was
+ * built from.
+ *
+ * The snapshot records the size and modification time of the text file and
+ * is only used while both still match, so an edited class list is reparsed
+ * on the next run. The text file itself is not read on a match, which is
+ * what makes the snapshot cheaper than parsing.
+ */
+public class ClassListSnapshot {
+	private static final int MAGIC = 0x4A494D53;
+	private static final int VERSION = 2;
+	private static final String EXTENSION = ".snapshot";
+
+	private FileSystem fileSystem;
+
+	public ClassListSnapshot(FileSystem fileSystem){
+		this.fileSystem = fileSystem;
+	}
+
+	private Path getSnapshotPath(Path path){
+		return fileSystem.getPath(String.format("%s%s", path, EXTENSION));
+	}
+
+	private long getModifiedTime(BasicFileAttributes attributes){
+		return attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Returns the snapshot of the given class list, or null when there is no
+	 * snapshot or it was built from a file with a different size or
+	 * modification time.
+	 */
+	public Map<String, List<String>> read(Path path, BasicFileAttributes attributes) throws IOException {
+		Map<String, List<String>> dest = new HashMap<>();
+
+		return read(path, attributes, dest::put) ? dest : null;
+	}
+
+	/**
+	 * Passes each simple name of the snapshot with its classes to dest and
+	 * returns true, or returns false without calling it when the snapshot is
+	 * missing or out of date.
+	 */
+	public boolean read(Path path, BasicFileAttributes attributes, BiConsumer<String, List<String>> dest) throws IOException {
+		Path snapshot = getSnapshotPath(path);
+
+		if(!Files.exists(snapshot)){
+			return false;
+		}
+
+		//streamed rather than read whole, the snapshot of a large class list is as large as the list
+		try(DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot)))){
+			if(input.readInt() != MAGIC || input.readInt() != VERSION){
+				return false;
+			}
+
+			if(input.readLong() != attributes.size() || input.readLong() != getModifiedTime(attributes)){
+				return false;
+			}
+
+			int size = input.readInt();
+
+			for(int i = 0; i < size; i++){
+				String key = input.readUTF();
+				int count = input.readInt();
+				List<String> classes = new ArrayList<>(count);
+
+				for(int j = 0; j < count; j++){
+					classes.add(input.readUTF());
+				}
+
+				dest.accept(key, classes);
+			}
+
+			return true;
+		}
+	}
+
+	/**
+	 * Writes the snapshot through a temporary file so concurrent readers
+	 * never see a partially written snapshot.
+	 */
+	public void write(Path path, BasicFileAttributes attributes, Map<String, List<String>> classes) throws IOException {
+		write(path, attributes, classes.size(), classes::forEach);
+	}
+
+	public void write(Path path, BasicFileAttributes attributes, CompactClassIndex classes) throws IOException {
+		write(path, attributes, classes.size(), classes::forEach);
+	}
+
+	private void write(Path path, BasicFileAttributes attributes, int size, Consumer<BiConsumer<String, List<String>>> entries) throws IOException {
+		Path snapshot = getSnapshotPath(path);
+		Path temp = Files.createTempFile(snapshot.toAbsolutePath().getParent(), snapshot.getFileName().toString(), ".tmp");
+
+		try{
+			try(OutputStream stream = Files.newOutputStream(temp); DataOutputStream output = new DataOutputStream(new BufferedOutputStream(stream))){
+				output.writeInt(MAGIC);
+				output.writeInt(VERSION);
+				output.writeLong(attributes.size());
+				output.writeLong(getModifiedTime(attributes));
+				output.writeInt(size);
+
+				entries.accept((key, values) -> {
+					try{
+						output.writeUTF(key);
+						output.writeInt(values.size());
+
+						for(String value : values){
+							output.writeUTF(value);
+						}
+					}
+					catch(IOException ex){
+						throw new UncheckedIOException(ex);
+					}
+				});
+			}
+			catch(UncheckedIOException ex){
+				throw ex.getCause();
+			}
+
+			Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally{
+			Files.deleteIfExists(temp);
+		}
+	}
+}
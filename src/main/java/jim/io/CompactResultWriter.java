@@ -0,0 +1,182 @@
+package jim.io;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+import jim.models.FileImportEntry;
+import jim.models.FileTypeEntry;
+import jim.models.ParseResult;
+import jim.models.ParseStats;
+import jim.models.PhaseStats;
+
+/**
+ * Writes a {@link ParseResult} as tab separated records, one per line, for
+ * clients that would rather split lines than decode json.
+ *
+ * Each record starts with its kind, in this order:
+ * <pre>
+ * E  message                                  one per error message
+ * F  filename                                 only when the result has one
+ * P  line  column  package                    package is empty without a package declaration
+ * R  firstImportLine  lastImportLine
+ * I  line  column  static  name               static is 1 or 0
+ * T  line  column  name  choice...            zero or more choices
+ * S  name  value...                           one per stat with --stats, phases have two values,
+ *                                             the elapsed microseconds and the allocated bytes
+ * </pre>
+ * Backslashes, tabs, carriage returns and line breaks inside a field are
+ * written as \\, \t, \r and \n. Lines always end with a single \n.
+ */
+public class CompactResultWriter {
+	private void writeField(Writer writer, String value) throws IOException {
+		writer.write('\t');
+
+		if(value == null){
+			return;
+		}
+
+		int start = 0;
+		int length = value.length();
+
+		for(int i = 0; i < length; i++){
+			char c = value.charAt(i);
+
+			if(c != '\\' && c != '\t' && c != '\n' && c != '\r'){
+				continue;
+			}
+
+			writer.write(value, start, i - start);
+			writer.write('\\');
+
+			switch(c){
+				case '\t':
+					writer.write('t');
+					break;
+				case '\n':
+					writer.write('n');
+					break;
+				case '\r':
+					writer.write('r');
+					break;
+				default:
+					writer.write(c);
+					break;
+			}
+
+			start = i + 1;
+		}
+
+		writer.write(value, start, length - start);
+	}
+
+	private void writeField(Writer writer, int value) throws IOException {
+		writer.write('\t');
+		writer.write(Integer.toString(value));
+	}
+
+	private void writeStat(Writer writer, String name, long value) throws IOException {
+		writer.write('S');
+		writeField(writer, name);
+		writer.write('\t');
+		writer.write(Long.toString(value));
+		writer.write('\n');
+	}
+
+	private void writePhase(Writer writer, String name, PhaseStats phase) throws IOException {
+		if(phase == null){
+			return;
+		}
+
+		writer.write('S');
+		writeField(writer, name);
+		writer.write('\t');
+		writer.write(Long.toString(phase.elapsedMicros));
+		writer.write('\t');
+		writer.write(Long.toString(phase.allocatedBytes));
+		writer.write('\n');
+	}
+
+	private void writeStats(Writer writer, ParseStats stats) throws IOException {
+		writePhase(writer, "load", stats.load);
+		writePhase(writer, "parse", stats.parse);
+		writePhase(writer, "visit", stats.visit);
+		writePhase(writer, "solve", stats.solve);
+		writePhase(writer, "resolve", stats.resolve);
+		writePhase(writer, "output", stats.output);
+		writeStat(writer, "classNames", stats.classNames);
+		writeStat(writer, "choices", stats.choices);
+		writeStat(writer, "visitedTypes", stats.visitedTypes);
+		writeStat(writer, "resolvedTypes", stats.resolvedTypes);
+		writeStat(writer, "ambiguousTypes", stats.ambiguousTypes);
+		writeStat(writer, "unresolvedTypes", stats.unresolvedTypes);
+		writeStat(writer, "cached", stats.cached ? 1 : 0);
+		writeStat(writer, "jvmStartupMillis", stats.jvmStartupMillis);
+		writeStat(writer, "jvmUptimeMillis", stats.jvmUptimeMillis);
+	}
+
+	public void write(ParseResult result, Writer writer) throws IOException {
+		for(String message : result.errorMessages){
+			writer.write('E');
+			writeField(writer, message);
+			writer.write('\n');
+		}
+
+		if(result.filename != null){
+			writer.write('F');
+			writeField(writer, result.filename);
+			writer.write('\n');
+		}
+
+		writer.write('P');
+		writeField(writer, result.pkg.position.line);
+		writeField(writer, result.pkg.position.column);
+		writeField(writer, result.pkg.value);
+		writer.write('\n');
+
+		writer.write('R');
+		writeField(writer, result.firstImportStatementLine);
+		writeField(writer, result.lastImportStatementLine);
+		writer.write('\n');
+
+		for(FileImportEntry entry : result.imports){
+			writer.write('I');
+			writeField(writer, entry.position.line);
+			writeField(writer, entry.position.column);
+			writeField(writer, entry.isStatic ? 1 : 0);
+			writeField(writer, entry.value);
+			writer.write('\n');
+		}
+
+		for(FileTypeEntry entry : result.types){
+			writer.write('T');
+			writeField(writer, entry.position.line);
+			writeField(writer, entry.position.column);
+			writeField(writer, entry.value);
+
+			for(String choice : entry.choices){
+				writeField(writer, choice);
+			}
+
+			writer.write('\n');
+		}
+
+		if(result.stats != null){
+			writeStats(writer, result.stats);
+		}
+	}
+
+	public String asString(ParseResult result){
+		StringWriter writer = new StringWriter();
+
+		try{
+			write(result, writer);
+		}
+		catch(IOException ex){
+			throw new UncheckedIOException(ex);
+		}
+
+		return writer.toString();
+	}
+}
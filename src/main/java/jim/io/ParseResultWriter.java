@@ -0,0 +1,365 @@
+package jim.io;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+import java.util.List;
+
+import jim.models.FileEntry;
+import jim.models.FileImportEntry;
+import jim.models.FilePosition;
+import jim.models.FileTypeEntry;
+import jim.models.ParseResult;
+import jim.models.ParseStats;
+import jim.models.PhaseStats;
+
+/**
+ * Writes a {@link ParseResult} as json without going through bean
+ * introspection.
+ *
+ * The output is byte for byte what jackson-jr writes for the same result:
+ * properties in alphabetical order, null values left out, the same string
+ * escapes and, when pretty printing, the layout of jackson's default pretty
+ * printer (two space indents per object, arrays kept on the line of their
+ * property).
+ */
+public class ParseResultWriter {
+	private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+	private static final int BUFFER_SIZE = 8192;
+
+	private final boolean prettyPrint;
+
+	public ParseResultWriter(boolean prettyPrint){
+		this.prettyPrint = prettyPrint;
+	}
+
+	/**
+	 * Output state for a single result. Characters are collected in a local
+	 * buffer so the writer only sees a few large writes.
+	 */
+	private static class Context {
+		private final Writer writer;
+		private final char[] buffer = new char[BUFFER_SIZE];
+		private int length;
+		private int nesting;
+		private boolean first;
+
+		private Context(Writer writer){
+			this.writer = writer;
+		}
+
+		private void flush() throws IOException {
+			writer.write(buffer, 0, length);
+			length = 0;
+		}
+
+		private void write(char c) throws IOException {
+			if(length == buffer.length){
+				flush();
+			}
+
+			buffer[length++] = c;
+		}
+
+		private void write(String value, int start, int end) throws IOException {
+			while(start < end){
+				if(length == buffer.length){
+					flush();
+				}
+
+				int count = Math.min(end - start, buffer.length - length);
+
+				value.getChars(start, start + count, buffer, length);
+
+				start += count;
+				length += count;
+			}
+		}
+
+		private void write(String value) throws IOException {
+			write(value, 0, value.length());
+		}
+	}
+
+	private void writeString(Context context, String value) throws IOException {
+		if(value == null){
+			context.write("null");
+
+			return;
+		}
+
+		context.write('"');
+
+		int start = 0;
+		int length = value.length();
+
+		for(int i = 0; i < length; i++){
+			char c = value.charAt(i);
+
+			if(c >= 0x20 && c != '"' && c != '\\'){
+				continue;
+			}
+
+			context.write(value, start, i);
+			context.write('\\');
+
+			switch(c){
+				case '"':
+				case '\\':
+					context.write(c);
+					break;
+				case '\b':
+					context.write('b');
+					break;
+				case '\t':
+					context.write('t');
+					break;
+				case '\n':
+					context.write('n');
+					break;
+				case '\f':
+					context.write('f');
+					break;
+				case '\r':
+					context.write('r');
+					break;
+				default:
+					context.write("u00");
+					context.write(HEX[c >> 4]);
+					context.write(HEX[c & 0xF]);
+					break;
+			}
+
+			start = i + 1;
+		}
+
+		context.write(value, start, length);
+		context.write('"');
+	}
+
+	private void writeIndent(Context context) throws IOException {
+		context.write('\n');
+
+		for(int i = 0; i < context.nesting; i++){
+			context.write("  ");
+		}
+	}
+
+	private void startObject(Context context) throws IOException {
+		context.write('{');
+		context.nesting++;
+		context.first = true;
+	}
+
+	private void endObject(Context context) throws IOException {
+		context.nesting--;
+
+		if(prettyPrint){
+			writeIndent(context);
+		}
+
+		context.write('}');
+		context.first = false;
+	}
+
+	private void writeName(Context context, String name) throws IOException {
+		if(!context.first){
+			context.write(',');
+		}
+
+		if(prettyPrint){
+			writeIndent(context);
+		}
+
+		context.first = false;
+		context.write('"');
+		context.write(name);
+		context.write(prettyPrint ? "\" : " : "\":");
+	}
+
+	private void startArray(Context context, boolean empty) throws IOException {
+		context.write(prettyPrint && !empty ? "[ " : "[");
+	}
+
+	private void writeArraySeparator(Context context) throws IOException {
+		context.write(prettyPrint ? ", " : ",");
+	}
+
+	private void endArray(Context context, boolean empty) throws IOException {
+		context.write(prettyPrint ? " ]" : "]");
+	}
+
+	private void writeInt(Context context, String name, int value) throws IOException {
+		writeName(context, name);
+
+		context.write(Integer.toString(value));
+	}
+
+	private void writeLong(Context context, String name, long value) throws IOException {
+		writeName(context, name);
+
+		context.write(Long.toString(value));
+	}
+
+	private void writeBoolean(Context context, String name, boolean value) throws IOException {
+		writeName(context, name);
+
+		context.write(value ? "true" : "false");
+	}
+
+	private void writeString(Context context, String name, String value) throws IOException {
+		if(value != null){
+			writeName(context, name);
+			writeString(context, value);
+		}
+	}
+
+	private void writeStrings(Context context, String name, List<String> values) throws IOException {
+		writeName(context, name);
+		startArray(context, values.isEmpty());
+
+		for(int i = 0; i < values.size(); i++){
+			if(i > 0){
+				writeArraySeparator(context);
+			}
+
+			writeString(context, values.get(i));
+		}
+
+		endArray(context, values.isEmpty());
+	}
+
+	private void writePosition(Context context, FilePosition position) throws IOException {
+		writeName(context, "position");
+		startObject(context);
+		writeInt(context, "column", position.column);
+		writeInt(context, "line", position.line);
+		endObject(context);
+	}
+
+	private void writePackage(Context context, FileEntry entry) throws IOException {
+		writeName(context, "package");
+		startObject(context);
+		writePosition(context, entry.position);
+		writeString(context, "value", entry.value);
+		endObject(context);
+	}
+
+	private void writeImport(Context context, FileImportEntry entry) throws IOException {
+		startObject(context);
+		writePosition(context, entry.position);
+		writeBoolean(context, "static", entry.isStatic);
+		writeString(context, "value", entry.value);
+		endObject(context);
+	}
+
+	private void writeType(Context context, FileTypeEntry entry) throws IOException {
+		startObject(context);
+		writeStrings(context, "choices", entry.choices);
+		writePosition(context, entry.position);
+		writeString(context, "value", entry.value);
+		endObject(context);
+	}
+
+	private void writePhase(Context context, String name, PhaseStats phase) throws IOException {
+		if(phase == null){
+			return;
+		}
+
+		writeName(context, name);
+		startObject(context);
+		writeLong(context, "allocatedBytes", phase.allocatedBytes);
+		writeLong(context, "elapsedMicros", phase.elapsedMicros);
+		endObject(context);
+	}
+
+	private void writeStats(Context context, ParseStats stats) throws IOException {
+		if(stats == null){
+			return;
+		}
+
+		writeName(context, "stats");
+		startObject(context);
+		writeInt(context, "ambiguousTypes", stats.ambiguousTypes);
+		writeBoolean(context, "cached", stats.cached);
+		writeInt(context, "choices", stats.choices);
+		writeInt(context, "classNames", stats.classNames);
+		writeLong(context, "jvmStartupMillis", stats.jvmStartupMillis);
+		writeLong(context, "jvmUptimeMillis", stats.jvmUptimeMillis);
+		writePhase(context, "load", stats.load);
+		writePhase(context, "output", stats.output);
+		writePhase(context, "parse", stats.parse);
+		writePhase(context, "resolve", stats.resolve);
+		writeInt(context, "resolvedTypes", stats.resolvedTypes);
+		writePhase(context, "solve", stats.solve);
+		writeInt(context, "unresolvedTypes", stats.unresolvedTypes);
+		writePhase(context, "visit", stats.visit);
+		writeInt(context, "visitedTypes", stats.visitedTypes);
+		endObject(context);
+	}
+
+	private void writeImports(Context context, List<FileImportEntry> imports) throws IOException {
+		writeName(context, "imports");
+		startArray(context, imports.isEmpty());
+
+		for(int i = 0; i < imports.size(); i++){
+			if(i > 0){
+				writeArraySeparator(context);
+			}
+
+			writeImport(context, imports.get(i));
+		}
+
+		endArray(context, imports.isEmpty());
+	}
+
+	private void writeTypes(Context context, List<FileTypeEntry> types) throws IOException {
+		writeName(context, "types");
+		startArray(context, types.isEmpty());
+
+		for(int i = 0; i < types.size(); i++){
+			if(i > 0){
+				writeArraySeparator(context);
+			}
+
+			writeType(context, types.get(i));
+		}
+
+		endArray(context, types.isEmpty());
+	}
+
+	/**
+	 * Writes the result without a trailing line break and without flushing.
+	 */
+	public void write(ParseResult result, Writer writer) throws IOException {
+		Context context = new Context(writer);
+
+		startObject(context);
+		writeStrings(context, "errorMessages", result.errorMessages);
+		writeString(context, "filename", result.filename);
+		writeInt(context, "firstImportStatementLine", result.firstImportStatementLine);
+		writeImports(context, result.imports);
+		writeInt(context, "lastImportStatementLine", result.lastImportStatementLine);
+		writePackage(context, result.pkg);
+		writeStats(context, result.stats);
+		writeTypes(context, result.types);
+		endObject(context);
+
+		context.flush();
+	}
+
+	public String asString(ParseResult result){
+		StringWriter writer = new StringWriter();
+
+		try{
+			write(result, writer);
+		}
+		catch(IOException ex){
+			throw new UncheckedIOException(ex);
+		}
+
+		return writer.toString();
+	}
+}
@@ -0,0 +1,363 @@
+package jim.io;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import jim.models.FileEntry;
+import jim.models.FileImportEntry;
+import jim.models.FilePosition;
+import jim.models.FileTypeEntry;
+import jim.models.ParseResult;
+
+/**
+ * Directory of parse results keyed by the SHA-256 hash of the source and the
+ * version of the class list, choice list and engine that produced them.
+ *
+ * Every result is its own file, written through a temporary file and moved
+ * into place, so concurrent runs sharing the directory never read a partial
+ * entry. Reading an entry refreshes its modification time, and once the
+ * directory grows past its maximum size the least recently used entries are
+ * removed until it is back under 90% of the maximum.
+ */
+public class ResultCache {
+	private static final int MAGIC = 0x4A494D52;
+	private static final int VERSION = 1;
+	private static final String EXTENSION = ".result";
+
+	public static final long DEFAULT_MAX_SIZE = 64L * 1024 * 1024;
+
+	private final Path directory;
+	private final long maxSize;
+	private final byte[] version;
+
+	//size of the directory, -1 until the first write scans it
+	private long size = -1;
+
+	public ResultCache(FileSystem fileSystem, String directory, long maxSize, String version){
+		this.directory = fileSystem.getPath(directory);
+		this.maxSize = maxSize;
+		this.version = version.getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Returns the part of a cache version describing the given file, which
+	 * changes whenever the file is replaced or modified.
+	 */
+	public static String getFileVersion(FileSystem fileSystem, String filename){
+		Path path = fileSystem.getPath(filename).toAbsolutePath();
+
+		try{
+			BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+
+			//nanoseconds like the class list snapshot, a rewrite within the same millisecond still changes the version
+			return String.format("%s:%d:%d", path, attributes.size(), attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS));
+		}
+		catch(IOException ex){
+			return String.format("%s:missing", path);
+		}
+	}
+
+	public String getKey(String source){
+		try{
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(version);
+			digest.update((byte) 0);
+
+			StringBuilder key = new StringBuilder(64);
+
+			for(byte b : digest.digest(source.getBytes(StandardCharsets.UTF_8))){
+				key.append(Character.forDigit((b >> 4) & 0xF, 16));
+				key.append(Character.forDigit(b & 0xF, 16));
+			}
+
+			return key.toString();
+		}
+		catch(NoSuchAlgorithmException ex){
+			throw new IllegalStateException("SHA-256 is not available", ex);
+		}
+	}
+
+	private Path getEntryPath(String key){
+		return directory.resolve(key.substring(0, 2)).resolve(String.format("%s%s", key, EXTENSION));
+	}
+
+	private void readPosition(DataInputStream input, FilePosition position) throws IOException {
+		position.line = input.readInt();
+		position.column = input.readInt();
+	}
+
+	private void readEntry(DataInputStream input, FileEntry entry) throws IOException {
+		readPosition(input, entry.position);
+
+		entry.value = input.readBoolean() ? input.readUTF() : null;
+	}
+
+	private FileImportEntry readImport(DataInputStream input) throws IOException {
+		FileImportEntry entry = new FileImportEntry();
+
+		readEntry(input, entry);
+
+		entry.isStatic = input.readBoolean();
+		entry.isUsed = input.readBoolean();
+
+		return entry;
+	}
+
+	private void writePosition(DataOutputStream output, FilePosition position) throws IOException {
+		output.writeInt(position.line);
+		output.writeInt(position.column);
+	}
+
+	private void writeEntry(DataOutputStream output, FileEntry entry) throws IOException {
+		writePosition(output, entry.position);
+		output.writeBoolean(entry.value != null);
+
+		if(entry.value != null){
+			output.writeUTF(entry.value);
+		}
+	}
+
+	private void writeImport(DataOutputStream output, FileImportEntry entry) throws IOException {
+		writeEntry(output, entry);
+		output.writeBoolean(entry.isStatic);
+		output.writeBoolean(entry.isUsed);
+	}
+
+	/**
+	 * Fills result from the cached entry and returns true, or returns false
+	 * and leaves result untouched when there is no entry for the key.
+	 */
+	public boolean read(String key, ParseResult result) throws IOException {
+		Path path = getEntryPath(key);
+		byte[] contents;
+
+		try{
+			contents = Files.readAllBytes(path);
+		}
+		catch(NoSuchFileException ex){
+			return false;
+		}
+
+		DataInputStream input = new DataInputStream(new ByteArrayInputStream(contents));
+
+		if(input.readInt() != MAGIC || input.readInt() != VERSION){
+			return false;
+		}
+
+		ParseResult cached = new ParseResult();
+
+		readEntry(input, cached.pkg);
+
+		cached.firstImportStatementLine = input.readInt();
+		cached.lastImportStatementLine = input.readInt();
+
+		int count = input.readInt();
+
+		for(int i = 0; i < count; i++){
+			cached.imports.add(readImport(input));
+		}
+
+		count = input.readInt();
+
+		for(int i = 0; i < count; i++){
+			cached.unusedImports.add(readImport(input));
+		}
+
+		count = input.readInt();
+
+		for(int i = 0; i < count; i++){
+			FileTypeEntry entry = new FileTypeEntry();
+
+			readEntry(input, entry);
+
+			int choices = input.readInt();
+
+			for(int j = 0; j < choices; j++){
+				entry.choices.add(input.readUTF());
+			}
+
+			cached.types.add(entry);
+		}
+
+		result.pkg.position.line = cached.pkg.position.line;
+		result.pkg.position.column = cached.pkg.position.column;
+		result.pkg.value = cached.pkg.value;
+		result.firstImportStatementLine = cached.firstImportStatementLine;
+		result.lastImportStatementLine = cached.lastImportStatementLine;
+		result.imports.addAll(cached.imports);
+		result.unusedImports.addAll(cached.unusedImports);
+		result.types.addAll(cached.types);
+
+		//the modification time orders entries for eviction
+		Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+
+		return true;
+	}
+
+	/**
+	 * Stores the result under the key, evicting the least recently used
+	 * entries when the directory grows past its maximum size. Results with
+	 * error messages are not stored.
+	 */
+	public void write(String key, ParseResult result) throws IOException {
+		if(!result.errorMessages.isEmpty()){
+			return;
+		}
+
+		Path path = getEntryPath(key);
+
+		Files.createDirectories(path.getParent());
+
+		Path temp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+
+		try{
+			try(OutputStream stream = Files.newOutputStream(temp); DataOutputStream output = new DataOutputStream(new BufferedOutputStream(stream))){
+				output.writeInt(MAGIC);
+				output.writeInt(VERSION);
+
+				writeEntry(output, result.pkg);
+
+				output.writeInt(result.firstImportStatementLine);
+				output.writeInt(result.lastImportStatementLine);
+				output.writeInt(result.imports.size());
+
+				for(FileImportEntry entry : result.imports){
+					writeImport(output, entry);
+				}
+
+				output.writeInt(result.unusedImports.size());
+
+				for(FileImportEntry entry : result.unusedImports){
+					writeImport(output, entry);
+				}
+
+				output.writeInt(result.types.size());
+
+				for(FileTypeEntry entry : result.types){
+					writeEntry(output, entry);
+					output.writeInt(entry.choices.size());
+
+					for(String choice : entry.choices){
+						output.writeUTF(choice);
+					}
+				}
+			}
+
+			long length = Files.size(temp);
+
+			Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+			addSize(length);
+		}
+		finally{
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	/**
+	 * Returns the entries of the directory, skipping the ones another run
+	 * sharing the directory removes while it is scanned.
+	 */
+	private List<Entry> getEntries() throws IOException {
+		List<Entry> entries = new ArrayList<>();
+
+		Files.walkFileTree(directory, EnumSet.noneOf(FileVisitOption.class), 2, new SimpleFileVisitor<Path>(){
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attributes){
+				if(attributes.isRegularFile() && file.getFileName().toString().endsWith(EXTENSION)){
+					entries.add(new Entry(file, attributes));
+				}
+
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFileFailed(Path file, IOException ex) throws IOException {
+				if(ex instanceof NoSuchFileException){
+					return FileVisitResult.CONTINUE;
+				}
+
+				throw ex;
+			}
+		});
+
+		return entries;
+	}
+
+	private synchronized void addSize(long length) throws IOException {
+		if(size < 0){
+			long total = 0;
+
+			for(Entry entry : getEntries()){
+				total += entry.size;
+			}
+
+			//only set once the scan is complete
+			size = total;
+		}
+		else{
+			size += length;
+		}
+
+		if(size > maxSize){
+			evict();
+		}
+	}
+
+	private static class Entry {
+		private final Path path;
+		private final long size;
+		private final long lastModified;
+
+		private Entry(Path path, BasicFileAttributes attributes){
+			this.path = path;
+			this.size = attributes.size();
+			this.lastModified = attributes.lastModifiedTime().toMillis();
+		}
+	}
+
+	private void evict() throws IOException {
+		List<Entry> entries = getEntries();
+
+		entries.sort(Comparator.comparingLong(e -> e.lastModified));
+
+		size = entries.stream().mapToLong(e -> e.size).sum();
+
+		long target = maxSize / 10 * 9;
+
+		for(Entry entry : entries){
+			if(size <= target){
+				break;
+			}
+
+			Files.deleteIfExists(entry.path);
+
+			size -= entry.size;
+		}
+	}
+}
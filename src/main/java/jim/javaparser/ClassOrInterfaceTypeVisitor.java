@@ -1,16 +1,14 @@
 package jim.javaparser;
 
-import java.util.ArrayDeque;
 import java.util.Collection;
-import java.util.Deque;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.regex.Pattern;
 
 import com.github.javaparser.Range;
 import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.NodeList;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.expr.AnnotationExpr;
 import com.github.javaparser.ast.expr.ArrayInitializerExpr;
 import com.github.javaparser.ast.expr.ClassExpr;
 import com.github.javaparser.ast.expr.Expression;
@@ -21,103 +19,99 @@ import com.github.javaparser.ast.expr.MethodCallExpr;
 import com.github.javaparser.ast.expr.Name;
 import com.github.javaparser.ast.expr.NameExpr;
 import com.github.javaparser.ast.expr.NormalAnnotationExpr;
-import com.github.javaparser.ast.expr.SimpleName;
 import com.github.javaparser.ast.expr.SingleMemberAnnotationExpr;
 import com.github.javaparser.ast.type.ClassOrInterfaceType;
 import com.github.javaparser.ast.type.Type;
 import com.github.javaparser.ast.type.TypeParameter;
 import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 
+import jim.index.ClassIndex;
+
 import jim.models.FileTypeEntry;
 import com.github.javaparser.ast.type.WildcardType;
 
 //TODO - rename ParseActionVisitor
+/**
+ * Collects the names of every class or interface type referenced in a
+ * compilation unit.
+ *
+ * The visitor runs in a single pass. Unqualified names, which are nearly all
+ * of them, are looked up without building a new string, and qualified names
+ * reuse one buffer. A visitor instance is not thread safe and is meant to be
+ * used for a single compilation unit.
+ */
 public class ClassOrInterfaceTypeVisitor extends VoidVisitorAdapter<Map<String, FileTypeEntry>> {
-	private final Pattern classNamePattern = Pattern.compile("[A-Z]+[A-Za-z0-9_$]*");
-	private final Pattern upperCasePattern = Pattern.compile("[A-Z_$]+");
+	private final StringBuilder buffer = new StringBuilder();
 
-	private Map<String, List<String>> classes;
+	private ClassIndex classes;
 	private Collection<String> declaredClasses;
 
-	public ClassOrInterfaceTypeVisitor(Map<String, List<String>> classes, Collection<String> declaredClasses){
+	public ClassOrInterfaceTypeVisitor(ClassIndex classes, Collection<String> declaredClasses){
 		this.classes = classes;
 		this.declaredClasses = declaredClasses;
 	}
 
-	private void println(Object obj){
-		System.out.println(String.format("%s - %s", obj.getClass(), obj));
+	private void setRange(FileTypeEntry entry, Range range){
+		entry.position.line = range.begin.line;
+		entry.position.column = range.begin.column;
 	}
 
-	private void setRange(FileTypeEntry entry, Node node){
-		Optional<Range> range = node.getRange();
-
-		if(range.isPresent()){
-			Range r = range.get();
+	private int comparePositions(Range range, FileTypeEntry entry){
+		int value = range.begin.line - entry.position.line;
 
-			entry.position.line = r.begin.line;
-			entry.position.column = r.begin.column;
+		if(value == 0){
+			return range.begin.column - entry.position.column;	
 		}
-	}
 
-	private int comparePositions(ClassOrInterfaceType parent, FileTypeEntry entry){
-		Optional<Range> opt = parent.getRange();
+		return value;
+	}
 
-		if(opt.isPresent()){
-			Range range = opt.get();
+	private void addName(String name, Node node, Map<String, FileTypeEntry> entries){
+		FileTypeEntry entry = entries.get(name);
+		Optional<Range> range = node.getRange();
 
-			int value = range.begin.line - entry.position.line;
+		if(entry == null){
+			entry = new FileTypeEntry();
+			entry.value = name;
 
-			if(value == 0){
-				return range.begin.column - entry.position.column;	
+			if(range.isPresent()){
+				setRange(entry, range.get());
 			}
 
-			return value;
+			entries.put(name, entry);
+		}
+		else if(range.isPresent() && comparePositions(range.get(), entry) < 0){
+			setRange(entry, range.get());
 		}
-
-		return -1;
 	}
 
-	private void addType(ClassOrInterfaceType type, Map<String, FileTypeEntry> entries){
-		Deque<String> deque = new ArrayDeque<>();
-		deque.add(type.getName().asString());
-
-		Optional<ClassOrInterfaceType> opt = type.getScope();
-		ClassOrInterfaceType parent = type;
-		
-		while(opt.isPresent()){
-			parent = opt.get();
+	private ClassOrInterfaceType appendScope(ClassOrInterfaceType type){
+		Optional<ClassOrInterfaceType> scope = type.getScope();
+		ClassOrInterfaceType outermost = type;
 
-			deque.add(parent.getName().asString());
+		if(scope.isPresent()){
+			outermost = appendScope(scope.get());
 
-			opt = parent.getScope();
+			buffer.append('.');
 		}
 
-		StringBuilder str = new StringBuilder();
-
-		while(!deque.isEmpty()){
-			str.append(deque.pollLast());
-			str.append(".");
-		}
+		buffer.append(type.getName().getIdentifier());
 
-		str.setLength(Math.max(0, str.length() - 1));
+		return outermost;
+	}
 
-		String name = str.toString();
+	private void addType(ClassOrInterfaceType type, Map<String, FileTypeEntry> entries){
+		if(!type.getScope().isPresent()){
+			addName(type.getName().getIdentifier(), type, entries);
 
-		FileTypeEntry entry = entries.get(name);
+			return;
+		}
 
-		if(entry == null){
-			entry = new FileTypeEntry();
-			entry.value = name;
+		buffer.setLength(0);
 
-			setRange(entry, parent);
+		ClassOrInterfaceType outermost = appendScope(type);
 
-			entries.put(name, entry);
-		}
-		else{
-			if(comparePositions(parent, entry) < 0){
-				setRange(entry, parent);
-			}
-		}
+		addName(buffer.toString(), outermost, entries);
 	}
 
 	private void processType(Type type, Map<String, FileTypeEntry> entries){
@@ -134,7 +128,7 @@ public class ClassOrInterfaceTypeVisitor extends VoidVisitorAdapter<Map<String,
 			ClassOrInterfaceType type = (ClassOrInterfaceType) node;
 
 			if(!type.getTypeArguments().isPresent()){
-				String name = type.asString();
+				String name = type.getScope().isPresent() ? type.asString() : type.getName().getIdentifier();
 
 				if(classes.containsKey(name) || declaredClasses.contains(name)){
 					type.accept(this, entries);
@@ -153,29 +147,54 @@ public class ClassOrInterfaceTypeVisitor extends VoidVisitorAdapter<Map<String,
 	public void visit(ClassOrInterfaceType type, Map<String, FileTypeEntry> entries){
 		addType(type, entries);	
 
-		type.getTypeArguments().ifPresent(nodes -> nodes.forEach(node -> processTypeArgument(node, entries)));
+		Optional<NodeList<Type>> arguments = type.getTypeArguments();
+
+		if(arguments.isPresent()){
+			for(Type node : arguments.get()){
+				processTypeArgument(node, entries);
+			}
+		}
 	}
 	
 	@Override
 	public void visit(TypeParameter parameter, Map<String, FileTypeEntry> entries){
 		super.visit(parameter, entries);
 
-		entries.remove(parameter.getName().asString());
+		entries.remove(parameter.getName().getIdentifier());
+	}
+
+	private boolean isUpperCase(char c){
+		return c >= 'A' && c <= 'Z';
 	}
 
-	private boolean isClassName(SimpleName name){
-		String nm = name.asString();
+	/**
+	 * Same as matching [A-Z]+[A-Za-z0-9_$]* while names made only of
+	 * [A-Z_$] are treated as constants unless they are a known class.
+	 */
+	private boolean isClassName(String name){
+		if(name.isEmpty() || !isUpperCase(name.charAt(0))){
+			return false;
+		}
+
+		boolean constant = true;
 
-		if(classNamePattern.matcher(nm).matches()){
-			if(upperCasePattern.matcher(nm).matches()){
-				//if nm is not a known class, then lets discard it
-				return classes.containsKey(nm);
+		for(int i = 1; i < name.length(); i++){
+			char c = name.charAt(i);
+
+			if(isUpperCase(c) || c == '_' || c == '$'){
+				continue;
 			}
 
-			return true;
+			if((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')){
+				constant = false;
+			}
+			else{
+				return false;
+			}
 		}
 
-		return false;
+		//if name is not a known class, then lets discard it
+		return !constant || classes.containsKey(name);
 	}
 
 	private void processClassExpr(ClassExpr expr, Map<String, FileTypeEntry> entries){
@@ -188,18 +207,17 @@ public class ClassOrInterfaceTypeVisitor extends VoidVisitorAdapter<Map<String,
 		}
 	}
 
-	private void processExpression(Expression exp, Map<String, FileTypeEntry> entries){
-		if(exp.isNameExpr()){
-			NameExpr nm = exp.asNameExpr();
-			SimpleName name = nm.getName();
+	private void processNameExpr(NameExpr expr, Map<String, FileTypeEntry> entries){
+		String name = expr.getName().getIdentifier();
 
-			if(isClassName(name)){
-				ClassOrInterfaceType type = new ClassOrInterfaceType();
-				type.setName(name);
-				type.setRange(nm.getRange().get());
+		if(isClassName(name)){
+			addName(name, expr, entries);
+		}
+	}
 
-				visit(type, entries);
-			}
+	private void processExpression(Expression exp, Map<String, FileTypeEntry> entries){
+		if(exp.isNameExpr()){
+			processNameExpr(exp.asNameExpr(), entries);
 		}
 		else if(exp.isFieldAccessExpr()){
 			visit(exp.asFieldAccessExpr(), entries);
@@ -218,15 +236,11 @@ public class ClassOrInterfaceTypeVisitor extends VoidVisitorAdapter<Map<String,
 		}
 	}
 
-	private void processAnnotationExpression(Map<String, FileTypeEntry> entries, Name name, Range range){
-		Optional<Name> opt = name.getQualifier();
-
-		if(opt.isEmpty()){
-			ClassOrInterfaceType type = new ClassOrInterfaceType();
-			type.setName(new SimpleName(name.getIdentifier()));
-			type.setRange(range);
+	private void processAnnotationExpression(Map<String, FileTypeEntry> entries, AnnotationExpr expression){
+		Name name = expression.getName();
 
-			visit(type, entries); 
+		if(!name.getQualifier().isPresent()){
+			addName(name.getIdentifier(), expression, entries);
 		}
 	}	
 
@@ -234,18 +248,18 @@ public class ClassOrInterfaceTypeVisitor extends VoidVisitorAdapter<Map<String,
 	public void visit(NormalAnnotationExpr expression, Map<String, FileTypeEntry> entries){
 		super.visit(expression, entries);
 		
-		processAnnotationExpression(entries, expression.getName(), expression.getRange().get());
+		processAnnotationExpression(entries, expression);
 	}	
 
 	@Override
 	public void visit(SingleMemberAnnotationExpr expression, Map<String, FileTypeEntry> entries){
-		processAnnotationExpression(entries, expression.getName(), expression.getRange().get());
+		processAnnotationExpression(entries, expression);
 		processExpression(expression.getMemberValue(), entries);
 	}	
 
 	@Override
 	public void visit(MarkerAnnotationExpr expression, Map<String, FileTypeEntry> entries){
-		processAnnotationExpression(entries, expression.getName(), expression.getRange().get());
+		processAnnotationExpression(entries, expression);
 	}
 
 	@Override
@@ -255,12 +269,13 @@ public class ClassOrInterfaceTypeVisitor extends VoidVisitorAdapter<Map<String,
 	
 	@Override
 	public void visit(MethodCallExpr expression, Map<String, FileTypeEntry> entries){
+		//the default traversal already walks every scope except a plain name
 		super.visit(expression, entries);
 
 		Optional<Expression> opt = expression.getScope();
 
-		if(opt.isPresent()){
-			processExpression(opt.get(), entries);
+		if(opt.isPresent() && opt.get().isNameExpr()){
+			processNameExpr(opt.get().asNameExpr(), entries);
 		}
 	}	
 
@@ -268,6 +283,6 @@ public class ClassOrInterfaceTypeVisitor extends VoidVisitorAdapter<Map<String,
 	public void visit(ClassOrInterfaceDeclaration declaration, Map<String, FileTypeEntry> entries){
 		super.visit(declaration, entries);
 
-		declaredClasses.add(declaration.getName().asString());
+		declaredClasses.add(declaration.getName().getIdentifier());
 	}
 }
@@ -0,0 +1,15 @@
+package jim.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class FileReport extends Result {
+	public String filename;
+	public final List<FileTypeEntry> unresolvedTypes = new ArrayList<>();
+	public final List<FileTypeEntry> ambiguousTypes = new ArrayList<>();
+	public final List<FileImportEntry> unusedImports = new ArrayList<>();
+
+	public boolean hasIssues(){
+		return !errorMessages.isEmpty() || !unresolvedTypes.isEmpty() || !ambiguousTypes.isEmpty() || !unusedImports.isEmpty();
+	}
+}
@@ -0,0 +1,8 @@
+package jim.models;
+
+public class IndexResult extends Result {
+	public int archives;
+	public int scannedArchives;
+	public int classes;
+	public long elapsedMillis;
+}
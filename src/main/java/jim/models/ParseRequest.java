@@ -0,0 +1,10 @@
+package jim.models;
+
+public class ParseRequest {
+	public String filename;
+	public String classFile;
+	public String choiceFile;
+	public String format;
+	public String source;
+	public boolean stats;
+}
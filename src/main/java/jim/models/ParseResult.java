@@ -3,14 +3,25 @@ package jim.models;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 public class ParseResult extends Result {
+	//only set in batch mode, null values are not written
+	public String filename;
+
 	@JsonProperty("package")
 	public final FileEntry pkg = new FileEntry();
 	public final List<FileImportEntry> imports = new ArrayList<>();
 	public final List<FileTypeEntry> types = new ArrayList<>(); 
 
+	//imports that were dropped from the result, used by the project report
+	@JsonIgnore
+	public final List<FileImportEntry> unusedImports = new ArrayList<>();
+
 	public int firstImportStatementLine;
 	public int lastImportStatementLine;
+
+	//only set with --stats, null values are not written
+	public ParseStats stats;
 }
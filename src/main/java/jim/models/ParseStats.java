@@ -0,0 +1,44 @@
+package jim.models;
+
+/**
+ * Timings and counts of a single parse, written with the result by --stats.
+ *
+ * Phases that did not run are null and left out of the output. Type counts
+ * are only known when the source was parsed, not when the result came from
+ * the result cache.
+ */
+public class ParseStats {
+	//class list and choices
+	public PhaseStats load;
+
+	//building the syntax tree, or the token list of the lexer engine
+	public PhaseStats parse;
+
+	//collecting type references from the syntax tree or the token list
+	public PhaseStats visit;
+
+	//symbol solver lookups of the precise engine
+	public PhaseStats solve;
+
+	//matching the type references against imports, the class list and choices
+	public PhaseStats resolve;
+
+	//measured on a first rendering of the result, since the stats are part of the output
+	public PhaseStats output;
+
+	public int classNames;
+	public int choices;
+
+	public int visitedTypes;
+	public int resolvedTypes;
+	public int ambiguousTypes;
+	public int unresolvedTypes;
+
+	public boolean cached;
+
+	//milliseconds from the jvm start to jim's main method, not set by the daemon
+	public long jvmStartupMillis;
+
+	//milliseconds from the jvm start to writing the result
+	public long jvmUptimeMillis;
+}
@@ -0,0 +1,8 @@
+package jim.models;
+
+public class PhaseStats {
+	public long elapsedMicros;
+
+	//bytes allocated by the thread running the phase, -1 when the jvm does not track them
+	public long allocatedBytes;
+}
@@ -0,0 +1,9 @@
+package jim.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ReportResult extends Result {
+	public final List<FileReport> files = new ArrayList<>();
+	public final ReportSummary summary = new ReportSummary();
+}
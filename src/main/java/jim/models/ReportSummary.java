@@ -0,0 +1,12 @@
+package jim.models;
+
+public class ReportSummary {
+	public int files;
+	public int filesWithIssues;
+	public int unresolvedTypes;
+	public int ambiguousTypes;
+	public int unusedImports;
+	public int errors;
+	public long elapsedMillis;
+	public double filesPerSecond;
+}
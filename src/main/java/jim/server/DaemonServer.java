@@ -0,0 +1,207 @@
+package jim.server;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import java.net.ConnectException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+
+import java.nio.channels.Channels;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fasterxml.jackson.jr.ob.JSON;
+
+import jim.io.CompactResultWriter;
+import jim.io.ParseResultWriter;
+
+import jim.models.ParseRequest;
+import jim.models.ParseResult;
+
+/**
+ * Long running server listening on a unix domain socket.
+ *
+ * Each connection carries a single json encoded {@link ParseRequest} line and
+ * receives the {@link ParseResultWriter} json of the {@link ParseResult} in
+ * return, or its {@link CompactResultWriter} records when the request asks
+ * for the compact format. The server exits once no request has been received
+ * for the configured idle timeout.
+ */
+public class DaemonServer {
+	private static final long POLL_INTERVAL = 1000;
+
+	private final Path socketPath;
+	private final long idleTimeout;
+	private final RequestHandler handler;
+	private final JSON json;
+	private final AtomicInteger activeRequests = new AtomicInteger();
+	private final ParseResultWriter jsonWriter;
+	private final CompactResultWriter compactWriter = new CompactResultWriter();
+
+	private volatile long lastActivity;
+	private volatile boolean running = true;
+
+	public DaemonServer(Path socketPath, long idleTimeout, RequestHandler handler, JSON json){
+		this.socketPath = socketPath;
+		this.idleTimeout = idleTimeout;
+		this.handler = handler;
+		this.json = json;
+		this.jsonWriter = new ParseResultWriter(json.isEnabled(JSON.Feature.PRETTY_PRINT_OUTPUT));
+	}
+
+	private boolean isIdle(){
+		if(idleTimeout <= 0 || activeRequests.get() > 0){
+			return false;
+		}
+
+		return System.currentTimeMillis() - lastActivity >= idleTimeout;
+	}
+
+	private ParseResult createErrorResult(String message){
+		ParseResult result = new ParseResult();
+		result.errorMessages.add(message);
+
+		return result;
+	}
+
+	private void handle(SocketChannel channel){
+		try(channel){
+			BufferedReader reader = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+			String line = reader.readLine();
+			ParseRequest request = null;
+			ParseResult result;
+
+			if(line == null){
+				return;
+			}
+
+			try{
+				request = json.beanFrom(ParseRequest.class, line);
+				result = handler.handle(request);
+			}
+			catch(IOException ex){
+				result = createErrorResult(String.format("invalid request - %s", ex.getMessage()));
+			}
+			catch(RuntimeException ex){
+				//the client gets the error instead of a closed connection, which reads as an empty result
+				result = createErrorResult(String.format("unable to parse file - %s", ex.getMessage()));
+			}
+
+			Writer writer = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8));
+
+			if(request != null && "compact".equals(request.format)){
+				compactWriter.write(result, writer);
+			}
+			else{
+				jsonWriter.write(result, writer);
+				writer.write('\n');
+			}
+
+			writer.flush();
+		}
+		catch(IOException ex){
+			System.err.println(ex.getMessage());
+		}
+		finally{
+			lastActivity = System.currentTimeMillis();
+			activeRequests.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Returns true when another daemon accepts connections on the socket.
+	 * The socket file of a daemon that did not exit cleanly refuses them and
+	 * is removed.
+	 */
+	private boolean isRunning() throws IOException {
+		if(!Files.exists(socketPath)){
+			return false;
+		}
+
+		try{
+			//the connection is only a probe and closed right away
+			SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socketPath));
+			channel.close();
+
+			return true;
+		}
+		catch(ConnectException ex){
+			Files.deleteIfExists(socketPath);
+
+			return false;
+		}
+	}
+
+	public void run() throws IOException {
+		//an editor starts a daemon whenever it can not connect, which includes while another one is loading
+		if(isRunning()){
+			System.err.println(String.format("daemon already running - %s", socketPath));
+
+			return;
+		}
+
+		ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+			Thread thread = new Thread(runnable, "jim-daemon-worker");
+			thread.setDaemon(true);
+
+			return thread;
+		});
+
+		try(ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX); Selector selector = Selector.open()){
+			server.bind(UnixDomainSocketAddress.of(socketPath));
+			server.configureBlocking(false);
+			server.register(selector, SelectionKey.OP_ACCEPT);
+
+			lastActivity = System.currentTimeMillis();
+
+			while(running && !isIdle()){
+				selector.select(POLL_INTERVAL);
+				selector.selectedKeys().clear();
+
+				SocketChannel channel;
+
+				while((channel = server.accept()) != null){
+					SocketChannel client = channel;
+
+					lastActivity = System.currentTimeMillis();
+					activeRequests.incrementAndGet();
+
+					executor.execute(() -> handle(client));
+				}
+			}
+		}
+		finally{
+			running = false;
+
+			executor.shutdown();
+
+			try{
+				executor.awaitTermination(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+			}
+			catch(InterruptedException ex){
+				Thread.currentThread().interrupt();
+			}
+
+			Files.deleteIfExists(socketPath);
+		}
+	}
+
+	public void stop(){
+		running = false;
+	}
+}
@@ -0,0 +1,88 @@
+package jim.server;
+
+import java.io.IOException;
+
+import java.nio.file.FileSystem;
+
+import jim.actions.ParseAction;
+
+import jim.engine.Engine;
+import jim.engine.JavaParserEngine;
+
+import jim.index.ChoiceIndex;
+import jim.index.ClassIndex;
+
+import jim.io.ClassFileCache;
+
+import jim.models.ParseRequest;
+import jim.models.ParseResult;
+import jim.models.PhaseStats;
+
+import jim.stats.PhaseTimer;
+
+/**
+ * Serves parse requests against class and choice lists that stay loaded for
+ * the lifetime of the handler.
+ */
+public class RequestHandler {
+	private final FileSystem fileSystem;
+	private final ClassFileCache cache;
+	private final String classFileName;
+	private final String choiceFileName;
+	private final Engine engine;
+
+	public RequestHandler(FileSystem fileSystem, ClassFileCache cache, String classFileName, String choiceFileName, Engine engine){
+		this.fileSystem = fileSystem;
+		this.cache = cache;
+		this.classFileName = classFileName;
+		this.choiceFileName = choiceFileName;
+		this.engine = engine;
+	}
+
+	public RequestHandler(FileSystem fileSystem, ClassFileCache cache, String classFileName, String choiceFileName){
+		this(fileSystem, cache, classFileName, choiceFileName, new JavaParserEngine());
+	}
+
+	public ParseResult handle(ParseRequest request){
+		if(request.filename == null && request.source == null){
+			ParseResult result = new ParseResult();
+			result.errorMessages.add("missing filename");
+
+			return result;
+		}
+
+		ClassIndex classes;
+		ChoiceIndex choices;
+		PhaseTimer timer = new PhaseTimer(request.stats);
+
+		try{
+			classes = request.classFile == null ? cache.getClasses(classFileName, false) : cache.getClasses(request.classFile, true);
+			choices = request.choiceFile == null ? cache.getChoices(choiceFileName, false) : cache.getChoices(request.choiceFile, true);
+		}
+		catch(IOException ex){
+			ParseResult result = new ParseResult();
+			result.errorMessages.add(ex.getMessage());
+
+			return result;
+		}
+
+		PhaseStats load = timer.stop("load");
+		ParseAction action = new ParseAction(fileSystem, classes, choices, engine, null, request.stats);
+		ParseResult result;
+
+		//editors send the unsaved buffer along with its filename
+		if(request.source != null){
+			result = action.parseJavaSource(request.source);
+		}
+		else{
+			result = action.parse(request.filename);
+		}
+
+		if(result.stats != null){
+			result.stats.load = load;
+			result.stats.jvmUptimeMillis = PhaseTimer.getUptime();
+		}
+
+		return result;
+	}
+}
@@ -0,0 +1,85 @@
+package jim.server;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import java.nio.charset.StandardCharsets;
+
+import com.fasterxml.jackson.jr.ob.JSON;
+
+import jim.io.CompactResultWriter;
+import jim.io.ParseResultWriter;
+
+import jim.models.ParseRequest;
+import jim.models.ParseResult;
+
+/**
+ * Serves json encoded {@link ParseRequest} lines read from a stream, normally
+ * the standard input of a co-process kept by an editor for its session.
+ *
+ * Requests are answered in order. A json response is a single line, while
+ * the {@link CompactResultWriter} records of a compact response are followed
+ * by an empty line, which no record can be. The server returns once the input
+ * is closed, so the process ends with the editor that started it.
+ */
+public class StdioServer {
+	private final RequestHandler handler;
+	private final JSON json;
+	private final ParseResultWriter jsonWriter = new ParseResultWriter(false);
+	private final CompactResultWriter compactWriter = new CompactResultWriter();
+
+	public StdioServer(RequestHandler handler, JSON json){
+		this.handler = handler;
+		this.json = json;
+	}
+
+	private ParseResult createErrorResult(String message){
+		ParseResult result = new ParseResult();
+		result.errorMessages.add(message);
+
+		return result;
+	}
+
+	public void run(InputStream input, OutputStream output) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+		Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+		String line;
+
+		while((line = reader.readLine()) != null){
+			if(line.isBlank()){
+				continue;
+			}
+
+			ParseRequest request = null;
+			ParseResult result;
+
+			try{
+				request = json.beanFrom(ParseRequest.class, line);
+				result = handler.handle(request);
+			}
+			catch(IOException ex){
+				result = createErrorResult(String.format("invalid request - %s", ex.getMessage()));
+			}
+			catch(RuntimeException ex){
+				//one bad source must not end the session
+				result = createErrorResult(String.format("unable to parse file - %s", ex.getMessage()));
+			}
+
+			if(request != null && "compact".equals(request.format)){
+				compactWriter.write(result, writer);
+			}
+			else{
+				jsonWriter.write(result, writer);
+			}
+
+			writer.write('\n');
+			writer.flush();
+		}
+	}
+}
@@ -0,0 +1,31 @@
+package jim.stats;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for a parsed source, lasting from reading the result
+ * cache to the sorted result.
+ */
+@Name("jim.ParseFile")
+@Label("Parse File")
+@Category("Jim")
+@Description("Parsing and resolving the types of a java source file")
+public class ParseFileEvent extends jdk.jfr.Event {
+	@Label("Cached")
+	public boolean cached;
+
+	@Label("Visited Types")
+	public int visitedTypes;
+
+	@Label("Resolved Types")
+	public int resolvedTypes;
+
+	@Label("Ambiguous Types")
+	public int ambiguousTypes;
+
+	@Label("Unresolved Types")
+	public int unresolvedTypes;
+}
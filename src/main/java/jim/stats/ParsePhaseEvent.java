@@ -0,0 +1,24 @@
+package jim.stats;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for one phase of a parse, committed whether or not
+ * --stats was given. The duration of the event is the wall time of the phase.
+ */
+@Name("jim.ParsePhase")
+@Label("Parse Phase")
+@Category("Jim")
+@Description("A single phase of parsing a java source file")
+public class ParsePhaseEvent extends jdk.jfr.Event {
+	@Label("Phase")
+	public String phase;
+
+	@Label("Allocated")
+	@DataAmount
+	public long allocatedBytes;
+}
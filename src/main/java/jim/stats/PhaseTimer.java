@@ -0,0 +1,97 @@
+package jim.stats;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import jdk.jfr.FlightRecorder;
+
+import jim.models.PhaseStats;
+
+/**
+ * Measures the wall time and the bytes allocated by the current thread
+ * between its creation and {@link #stop}, and commits a {@link ParsePhaseEvent}
+ * when the flight recorder is recording them.
+ *
+ * Nothing is measured unless stats are collected or the event is enabled. The
+ * management beans are only read for collected stats and the event classes
+ * only loaded once the flight recorder runs, so runs without either do not pay
+ * for their initialization. A timer must be stopped on the thread that
+ * created it.
+ */
+public class PhaseTimer {
+	//initialized on first use
+	private static class Threads {
+		private static final ThreadMXBean BEAN = ManagementFactory.getThreadMXBean();
+	}
+
+	private final ParsePhaseEvent event;
+	private final boolean collect;
+	private final boolean recorded;
+	private final long start;
+	private final long startBytes;
+
+	public PhaseTimer(boolean collect){
+		this.collect = collect;
+		this.event = isRecording() ? new ParsePhaseEvent() : null;
+		this.recorded = event != null && event.isEnabled();
+
+		if(recorded){
+			event.begin();
+		}
+
+		start = collect ? System.nanoTime() : 0;
+		startBytes = collect ? getAllocatedBytes() : -1;
+	}
+
+	private static long getAllocatedBytes(){
+		if(Threads.BEAN instanceof com.sun.management.ThreadMXBean){
+			com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) Threads.BEAN;
+
+			if(threads.isThreadAllocatedMemoryEnabled()){
+				return threads.getCurrentThreadAllocatedBytes();
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Returns true once the flight recorder runs, which is required before any
+	 * event is enabled.
+	 */
+	public static boolean isRecording(){
+		return FlightRecorder.isInitialized();
+	}
+
+	/**
+	 * Returns the milliseconds since the jvm started.
+	 */
+	public static long getUptime(){
+		return ManagementFactory.getRuntimeMXBean().getUptime();
+	}
+
+	/**
+	 * Returns the stats of the phase, or null when they are not collected.
+	 */
+	public PhaseStats stop(String phase){
+		PhaseStats stats = null;
+
+		if(collect){
+			stats = new PhaseStats();
+			stats.elapsedMicros = (System.nanoTime() - start) / 1000;
+			stats.allocatedBytes = startBytes < 0 ? -1 : getAllocatedBytes() - startBytes;
+		}
+
+		if(recorded){
+			event.end();
+
+			if(event.shouldCommit()){
+				event.phase = phase;
+				event.allocatedBytes = stats == null ? -1 : stats.allocatedBytes;
+				event.commit();
+			}
+		}
+
+		return stats;
+	}
+}
@@ -0,0 +1,98 @@
+package jim.actions;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import jim.AbstractJimTest;
+
+import jim.models.ParseResult;
+
+import static org.junit.Assert.*;
+
+public class TestBatchAction extends AbstractJimTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testParseFiles() throws IOException, InterruptedException {
+		Map<String, List<String>> classes = Map.of(
+			"ArrayList", Arrays.asList("java.util.ArrayList"),
+			"HashMap", Arrays.asList("java.util.HashMap")
+		);
+		List<String> filenames = new ArrayList<>();
+
+		for(int i = 0; i < 20; i++){
+			Path path = folder.newFile(String.format("Dummy%d.java", i)).toPath();
+			String type = i % 2 == 0 ? "ArrayList" : "HashMap";
+
+			Files.writeString(path, String.format("public class Dummy%d { public void dummy(){ new %s(); }}", i, type));
+			filenames.add(path.toString());
+		}
+
+		filenames.add(folder.getRoot().toPath().resolve("Missing.java").toString());
+
+		Map<String, ParseResult> results = new HashMap<>();
+		ParseAction action = new ParseAction(FileSystems.getDefault(), classes);
+
+		int count = new BatchAction(action, 4).parse(filenames.iterator(), result -> results.put(result.filename, result));
+
+		assertEquals(21, count);
+		assertEquals(21, results.size());
+
+		for(int i = 0; i < 20; i++){
+			ParseResult result = results.get(filenames.get(i));
+
+			assertEquals(true, result.errorMessages.isEmpty());
+			assertEquals(1, result.imports.size());
+			assertEquals(i % 2 == 0 ? "java.util.ArrayList" : "java.util.HashMap", result.imports.get(0).value);
+		}
+
+		assertEquals(1, results.get(filenames.get(20)).errorMessages.size());
+	}
+
+	@Test
+	public void testConsumerFailure() throws IOException, InterruptedException {
+		List<String> filenames = new ArrayList<>();
+
+		for(int i = 0; i < 1000; i++){
+			filenames.add(folder.getRoot().toPath().resolve(String.format("Missing%d.java", i)).toString());
+		}
+
+		Iterator<String> it = filenames.iterator();
+		AtomicInteger accepted = new AtomicInteger();
+		ParseAction action = new ParseAction(FileSystems.getDefault(), Map.of());
+
+		try{
+			new BatchAction(action, 2).parse(it, result -> {
+				if(accepted.incrementAndGet() == 3){
+					throw new UncheckedIOException(new IOException("Broken pipe"));
+				}
+			});
+
+			fail("expected the consumer failure");
+		}
+		catch(UncheckedIOException ex){
+			assertEquals("Broken pipe", ex.getCause().getMessage());
+		}
+
+		//no further results are handed over or files read
+		assertEquals(3, accepted.get());
+		assertEquals(true, it.hasNext());
+	}
+}
@@ -0,0 +1,121 @@
+package jim.actions;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import jim.AbstractJimTest;
+
+import jim.io.ArchiveScanner;
+import jim.io.ClassListDeserializer;
+
+import jim.models.IndexResult;
+
+import static org.junit.Assert.*;
+
+public class TestIndexAction extends AbstractJimTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private byte[] getClassBytes(String name) throws IOException {
+		try(InputStream input = getClass().getClassLoader().getResourceAsStream(name)){
+			return input.readAllBytes();
+		}
+	}
+
+	private void addEntry(JarOutputStream output, String name, String resource) throws IOException {
+		output.putNextEntry(new ZipEntry(name));
+		output.write(getClassBytes(resource));
+		output.closeEntry();
+	}
+
+	private Path createJar(String name) throws IOException {
+		Path path = folder.getRoot().toPath().resolve(name);
+
+		try(OutputStream stream = Files.newOutputStream(path); JarOutputStream output = new JarOutputStream(stream)){
+			//public top level and public nested classes
+			addEntry(output, "jim/index/CompactClassIndex.class", "jim/index/CompactClassIndex.class");
+			addEntry(output, "jim/io/ArchiveCache.class", "jim/io/ArchiveCache.class");
+			addEntry(output, "jim/io/ArchiveCache$Entry.class", "jim/io/ArchiveCache$Entry.class");
+
+			//package private, private nested, nested in a skipped class and anonymous classes
+			addEntry(output, "jim/engine/Token.class", "jim/engine/Token.class");
+			addEntry(output, "jim/io/ClassFileCache.class", "jim/io/ClassFileCache.class");
+			addEntry(output, "jim/io/ClassFileCache$Entry.class", "jim/io/ClassFileCache$Entry.class");
+			addEntry(output, "jim/engine/TypeScanner$Change.class", "jim/engine/TypeScanner$Change.class");
+			addEntry(output, "jim/index/CompactClassIndex$1.class", "jim/index/CompactClassIndex.class");
+			addEntry(output, "META-INF/versions/11/jim/index/MapClassIndex.class", "jim/index/MapClassIndex.class");
+		}
+
+		return path;
+	}
+
+	@Test
+	public void testIndex() throws Exception {
+		Path jar = createJar("dummy.jar");
+		String filename = folder.getRoot().toPath().resolve("classes.jim").toString();
+
+		IndexResult result = new IndexAction(FileSystems.getDefault(), 2).index(Arrays.asList(folder.getRoot().toString()), false, filename);
+		Map<String, List<String>> classes = new ClassListDeserializer(FileSystems.getDefault()).deserialize(filename, true);
+
+		assertEquals(true, result.errorMessages.isEmpty());
+		assertEquals(1, result.archives);
+		assertEquals(1, result.scannedArchives);
+		assertEquals(4, result.classes);
+		assertEquals(4, classes.size());
+		assertEquals(Arrays.asList("jim.index.CompactClassIndex"), classes.get("CompactClassIndex"));
+		assertEquals(Arrays.asList("jim.io.ArchiveCache"), classes.get("ArchiveCache"));
+		assertEquals(Arrays.asList("jim.io.ArchiveCache.Entry"), classes.get("Entry"));
+		assertEquals(Arrays.asList("jim.io.ClassFileCache"), classes.get("ClassFileCache"));
+
+		result = new IndexAction(FileSystems.getDefault(), 2).index(Arrays.asList(jar.toString()), false, filename);
+
+		assertEquals(1, result.archives);
+		assertEquals(0, result.scannedArchives);
+		assertEquals(4, result.classes);
+
+		Files.setLastModifiedTime(jar, FileTime.fromMillis(Files.getLastModifiedTime(jar).toMillis() + 2000));
+
+		result = new IndexAction(FileSystems.getDefault(), 2).index(Arrays.asList(jar.toString()), false, filename);
+
+		assertEquals(1, result.scannedArchives);
+		assertEquals(4, result.classes);
+	}
+
+	@Test
+	public void testIndexWithMissingArchive() throws Exception {
+		String filename = folder.getRoot().toPath().resolve("classes.jim").toString();
+		String missing = folder.getRoot().toPath().resolve("missing.jar").toString();
+
+		IndexResult result = new IndexAction(FileSystems.getDefault(), 1).index(Arrays.asList(missing), false, filename);
+
+		assertEquals(1, result.errorMessages.size());
+		assertEquals(String.format("unable to read archive - %s", missing), result.errorMessages.get(0));
+		assertEquals(0, result.classes);
+	}
+
+	@Test
+	public void testScanRuntimeModule() throws IOException {
+		List<String> classes = new ArchiveScanner().scanRuntimeModule("java.sql");
+
+		assertEquals(true, classes.contains("java.sql.Connection"));
+		assertEquals(true, classes.contains("java.sql.DriverManager"));
+		assertEquals(false, classes.stream().anyMatch(name -> name.contains("$")));
+		assertEquals(false, classes.stream().anyMatch(name -> !name.startsWith("java.sql.") && !name.startsWith("javax.sql.")));
+	}
+}
@@ -5,16 +5,31 @@ import java.io.IOException;
 import java.io.InputStream;
 
 import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Test;
 
+import com.google.common.jimfs.Configuration;
+import com.google.common.jimfs.Jimfs;
+
 import jim.AbstractJimTest;
 
+import jim.engine.JavaParserEngine;
+
+import jim.index.ChoiceIndex;
+import jim.index.MapClassIndex;
+
 import jim.models.FileTypeEntry;
 import jim.models.ParseResult;
 
@@ -754,11 +769,69 @@ public class TestParseAction extends AbstractJimTest {
 		ParseResult result = new ParseAction(FileSystems.getDefault(), classes).parseJavaSource(java);
 
 		assertEquals(true, result.errorMessages.isEmpty());
-		assertEquals(2, result.imports.size());
+		assertEquals(1, result.imports.size());
 		assertEquals(true, result.types.isEmpty());
+		assertEquals(true, result.unusedImports.isEmpty());
 
-		assertEquals(true, result.imports.stream().filter(e -> e.value.equals("java.util.List")).findFirst().isPresent());
-		assertEquals(true, result.imports.stream().filter(e -> e.value.equals("java.util.ArrayList")).findFirst().isPresent());
+		assertEquals("java.util.*", result.imports.get(0).value);
+	}
+
+	@Test
+	public void testParseJavaSourceWithStats() throws IOException {
+		Map<String, List<String>> classes = Map.of(
+			"ArrayList", Arrays.asList("java.util.ArrayList"),
+			"List", Arrays.asList("java.util.List", "java.awt.List"),
+			"String", Arrays.asList("java.lang.String")
+		);
+		String java = "public class Test { List list = new ArrayList(); String value; Missing missing; }";
+
+		ParseResult result = new ParseAction(FileSystems.getDefault(), classes).parseJavaSource(java);
+
+		assertNull(result.stats);
+
+		result = new ParseAction(FileSystems.getDefault(), new MapClassIndex(classes), ChoiceIndex.of(Map.of()), new JavaParserEngine(), null, true).parseJavaSource(java);
+
+		assertEquals(3, result.stats.classNames);
+		assertEquals(4, result.stats.visitedTypes);
+		assertEquals(2, result.stats.resolvedTypes);
+		assertEquals(1, result.stats.ambiguousTypes);
+		assertEquals(1, result.stats.unresolvedTypes);
+		assertEquals(false, result.stats.cached);
+		assertEquals(true, result.stats.parse.elapsedMicros >= 0);
+		assertNotNull(result.stats.visit);
+		assertNotNull(result.stats.resolve);
+		assertNull(result.stats.solve);
+	}
+
+	@Test
+	public void testParseJavaSourceWithAmbiguousWildcardImportStatements() throws IOException {
+		Map<String, List<String>> classes = Map.of(
+			"ArrayList", Arrays.asList("java.util.ArrayList"),
+			"List", Arrays.asList("java.util.List", "java.awt.List"),
+			"Entry", Arrays.asList("java.util.Map.Entry"),
+			"Map", Arrays.asList("java.util.Map"),
+			"Frame", Arrays.asList("java.awt.Frame"),
+			"Helper", Arrays.asList("abc.Helper", "com.other.util.Helper"),
+			"String", Arrays.asList("java.lang.String")
+		);
+		String java = "package abc; import java.util.*; import java.awt.*; import com.other.util.*; import java.util.Map.*;\n"
+			+ "public class Test { List l = new ArrayList(); Map.Entry e; Entry f; Helper h; Missing m; }";
+
+		ParseResult result = new ParseAction(FileSystems.getDefault(), classes).parseJavaSource(java);
+
+		assertEquals(true, result.errorMessages.isEmpty());
+		assertEquals(3, result.imports.size());
+		assertEquals(1, result.unusedImports.size());
+
+		assertEquals("java.util.*", result.imports.get(0).value);
+		assertEquals("java.awt.*", result.imports.get(1).value);
+		assertEquals("java.util.Map.*", result.imports.get(2).value);
+		assertEquals("com.other.util.*", result.unusedImports.get(0).value);
+
+		assertEquals(2, result.types.size());
+		assertEquals("List", result.types.get(0).value);
+		assertEquals(2, result.types.get(0).choices.size());
+		assertEquals("Missing", result.types.get(1).value);
 	}
 
 	@Test
@@ -820,6 +893,35 @@ public class TestParseAction extends AbstractJimTest {
 		}
 	}
 
+	@Test
+	public void testParseInputStreamWithFilename() throws IOException {
+		Map<String, List<String>> classes = Map.of(
+			"ArrayList", Arrays.asList("java.util.ArrayList"),
+			"String", Arrays.asList("java.lang.String")
+		);
+		String java = "public class Test { String s = \"\u00e9\u00e8\"; ArrayList list = new ArrayList(); Caf\u00e9 cafe; }";
+
+		ParseResult result = new ParseAction(FileSystems.getDefault(), classes).parse(new ByteArrayInputStream(java.getBytes(StandardCharsets.UTF_8)), "Test.java");
+
+		assertEquals(true, result.errorMessages.isEmpty());
+		assertEquals(1, result.imports.size());
+		assertEquals("java.util.ArrayList", result.imports.get(0).value);
+		assertEquals(1, result.types.size());
+		assertEquals("Caf\u00e9", result.types.get(0).value);
+
+		InputStream input = new InputStream(){
+			@Override
+			public int read() throws IOException {
+				throw new IOException("closed");
+			}
+		};
+
+		result = new ParseAction(FileSystems.getDefault(), classes).parse(input, "Test.java");
+
+		assertEquals(1, result.errorMessages.size());
+		assertEquals("unable to read file - Test.java - closed", result.errorMessages.get(0));
+	}
+
 	@Test
 	public void testParseJavaSourceWithPreviousChoice() throws IOException {
 		Map<String, List<String>> classes = Map.<String, List<String>>of(
@@ -990,5 +1092,82 @@ public class TestParseAction extends AbstractJimTest {
 		assertEquals(1, result.imports.size());
 		assertEquals(true, result.types.isEmpty());
 	}
-	
+
+	@Test
+	public void testParseJavaSourceWithLongMethodChain() throws IOException {
+		Map<String, List<String>> classes = Map.<String, List<String>>of(
+			"Object", Arrays.asList("java.lang.Object"),
+			"Builder", Arrays.asList("dummy.Builder"),
+			"Value", Arrays.asList("dummy.Value")
+		);
+		String java = String.format("public class Dummy { Object value = Builder.create()%s.build(Value.class); }", ".with(1)".repeat(40));
+
+		ParseResult result = new ParseAction(FileSystems.getDefault(), classes).parseJavaSource(java);
+
+		assertEquals(true, result.errorMessages.isEmpty());
+		assertEquals(2, result.imports.size());
+		assertEquals(true, result.types.isEmpty());
+	}
+
+	@Test
+	public void testParsePath() throws IOException {
+		Map<String, List<String>> classes = Map.<String, List<String>>of(
+			"ArrayList", Arrays.asList("java.util.ArrayList")
+		);
+
+		try(FileSystem fileSystem = Jimfs.newFileSystem(Configuration.unix())){
+			Path path = fileSystem.getPath("/Dummy.java");
+
+			Files.writeString(path, "public class Dummy { public void dummy(){ new ArrayList(); }}");
+
+			ParseResult result = new ParseAction(fileSystem, classes).parse(path);
+
+			assertEquals(true, result.errorMessages.isEmpty());
+			assertEquals(1, result.imports.size());
+			assertEquals("java.util.ArrayList", result.imports.get(0).value);
+
+			result = new ParseAction(fileSystem, classes).parse(fileSystem.getPath("/Missing.java"));
+
+			assertEquals("unable to read file - /Missing.java", result.errorMessages.get(0));
+		}
+	}
+
+	@Test
+	public void testParseJavaSourceConcurrently() throws Exception {
+		Map<String, List<String>> classes = Map.<String, List<String>>of(
+			"ArrayList", Arrays.asList("java.util.ArrayList"),
+			"List", Arrays.asList("java.util.List", "java.awt.List"),
+			"MyObject", Arrays.asList("dummy.MyObject")
+		);
+		String[] sources = {
+			"public class Dummy { List<MyObject> values = new ArrayList<>(); }",
+			"public class Dummy { public void dummy(){ } ",
+			"import java.util.List; public class Dummy { List values; MyObject value; }"
+		};
+
+		ParseAction action = new ParseAction(FileSystems.getDefault(), classes);
+		List<String> expected = new ArrayList<>();
+
+		for(String source : sources){
+			expected.add(json.asString(action.parseJavaSource(source)));
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<Future<Boolean>> futures = new ArrayList<>();
+
+		try{
+			for(int i = 0; i < 400; i++){
+				int index = i % sources.length;
+
+				futures.add(executor.submit(() -> expected.get(index).equals(json.asString(action.parseJavaSource(sources[index])))));
+			}
+
+			for(Future<Boolean> future : futures){
+				assertEquals(true, future.get());
+			}
+		}
+		finally{
+			executor.shutdown();
+		}
+	}
 }
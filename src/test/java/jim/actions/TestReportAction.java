@@ -0,0 +1,121 @@
+package jim.actions;
+
+import java.io.IOException;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import jim.AbstractJimTest;
+
+import jim.engine.Engine;
+import jim.engine.JavaParserEngine;
+
+import jim.index.MapClassIndex;
+
+import jim.models.FileReport;
+import jim.models.ReportResult;
+
+import static org.junit.Assert.*;
+
+public class TestReportAction extends AbstractJimTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path write(String filename, String source) throws IOException {
+		Path path = folder.getRoot().toPath().resolve(filename);
+
+		Files.createDirectories(path.getParent());
+		Files.writeString(path, source);
+
+		return path;
+	}
+
+	@Test
+	public void testReport() throws IOException {
+		Map<String, List<String>> classes = Map.of(
+			"ArrayList", Arrays.asList("java.util.ArrayList"),
+			"List", Arrays.asList("java.util.List", "java.awt.List")
+		);
+
+		write("a/Clean.java", "import java.util.ArrayList; public class Clean { ArrayList list = new ArrayList(); }");
+		write("a/b/Ambiguous.java", "public class Ambiguous { List list; }");
+		write("a/b/c/Unresolved.java", "import java.util.Map; public class Unresolved { Missing missing; }");
+		write("a/b/c/Broken.java", "public class Broken {");
+		write("a/b/c/README.txt", "not java");
+
+		ReportResult result = new ReportAction(new ParseAction(FileSystems.getDefault(), classes), 3).report(folder.getRoot().toPath());
+
+		assertEquals(true, result.errorMessages.isEmpty());
+		assertEquals(4, result.summary.files);
+		assertEquals(3, result.summary.filesWithIssues);
+		assertEquals(1, result.summary.unresolvedTypes);
+		assertEquals(1, result.summary.ambiguousTypes);
+		assertEquals(1, result.summary.unusedImports);
+		assertEquals(1, result.summary.errors);
+		assertEquals(3, result.files.size());
+
+		FileReport report = result.files.get(0);
+
+		assertEquals(true, report.filename.endsWith("Ambiguous.java"));
+		assertEquals("List", report.ambiguousTypes.get(0).value);
+
+		report = result.files.get(1);
+
+		assertEquals(true, report.filename.endsWith("Broken.java"));
+		assertEquals(1, report.errorMessages.size());
+
+		report = result.files.get(2);
+
+		assertEquals(true, report.filename.endsWith("Unresolved.java"));
+		assertEquals("Missing", report.unresolvedTypes.get(0).value);
+		assertEquals("java.util.Map", report.unusedImports.get(0).value);
+	}
+
+	@Test
+	public void testSymbolicLinkLoop() throws IOException {
+		Path path = write("a/Clean.java", "public class Clean {}");
+
+		Files.createSymbolicLink(path.resolveSibling("loop"), folder.getRoot().toPath());
+
+		ReportResult result = new ReportAction(new ParseAction(FileSystems.getDefault(), Map.of()), 2).report(folder.getRoot().toPath());
+
+		assertEquals(true, result.errorMessages.isEmpty());
+		assertEquals(1, result.summary.files);
+	}
+
+	@Test
+	public void testEngineFailure() throws IOException {
+		Engine engine = (source, classes, collectStats) -> {
+			if(source.contains("Boom")){
+				throw new IllegalStateException("engine failure");
+			}
+
+			return new JavaParserEngine().extract(source, classes, collectStats);
+		};
+
+		write("a/Clean.java", "public class Clean {}");
+		write("a/b/Boom.java", "public class Boom {}");
+
+		ParseAction action = new ParseAction(FileSystems.getDefault(), new MapClassIndex(Map.of()), Map.of(), engine);
+		ReportResult result = new ReportAction(action, 2).report(folder.getRoot().toPath());
+
+		assertEquals(true, result.errorMessages.isEmpty());
+		assertEquals(2, result.summary.files);
+		assertEquals(1, result.summary.filesWithIssues);
+		assertEquals(1, result.summary.errors);
+
+		FileReport report = result.files.get(0);
+
+		assertEquals(true, report.filename.endsWith("Boom.java"));
+		assertEquals(Arrays.asList("unable to parse file - engine failure"), report.errorMessages);
+	}
+}
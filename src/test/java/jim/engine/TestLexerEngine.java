@@ -0,0 +1,132 @@
+package jim.engine;
+
+import java.io.IOException;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import jim.AbstractJimTest;
+
+import jim.actions.ParseAction;
+
+import jim.index.MapClassIndex;
+
+import jim.models.ParseResult;
+
+import static org.junit.Assert.*;
+
+public class TestLexerEngine extends AbstractJimTest {
+	private static final Map<String, List<String>> CLASSES = Map.of(
+		"ArrayList", Arrays.asList("java.util.ArrayList"),
+		"List", Arrays.asList("java.util.List", "java.awt.List"),
+		"Map", Arrays.asList("java.util.Map"),
+		"String", Arrays.asList("java.lang.String"),
+		"IOException", Arrays.asList("java.io.IOException"),
+		"Test", Arrays.asList("org.junit.Test"),
+		"MAX", Arrays.asList("dummy.MAX"),
+		"MyObject", Arrays.asList("dummy.MyObject", "other.MyObject")
+	);
+
+	private static final Engine NO_FALLBACK = (source, classes, collectStats) -> {
+		throw new AssertionError("unexpected fallback");
+	};
+
+	private String parse(Engine engine, String source) throws IOException {
+		ParseResult result = new ParseAction(FileSystems.getDefault(), CLASSES, Map.of()).parseJavaSource(source);
+		ParseResult other = new ParseAction(FileSystems.getDefault(), new MapClassIndex(CLASSES), Map.of(), engine).parseJavaSource(source);
+
+		assertEquals(json.asString(result), json.asString(other));
+
+		return json.asString(other);
+	}
+
+	@Test
+	public void testExtractMatchesJavaParser() throws IOException {
+		String[] sources = {
+			"package dummy.test; import java.util.*; import static java.util.Collections.sort; import java.io.File;\n"
+				+ "public class Test extends Base implements Runnable, java.io.Serializable {\n"
+				+ "\tprivate Map<String, List<MyObject>> values = new HashMap<>();\n"
+				+ "\tpublic static void main(String[] args) throws IOException { new ArrayList(); Files.delete(null); }\n"
+				+ "}",
+			"class Test { Map.Entry<Key, Value> entry; java.util.List<? extends Number> numbers; Object[] array = new Widget[3];\n"
+				+ "\tvoid run(Item... items){ for(Element e : elements){ Object o = (Cast) e; int n = (int) 1L; } }\n"
+				+ "\tvoid refs(){ Runnable r = System.out::println; Object f = Factory::new; Object g = Handler[]::new; }\n"
+				+ "}",
+			"class Test {\n"
+				+ "\t@Override @SuppressWarnings(\"unchecked\") public String toString(){ return Helper.format(Other.CONSTANT, Type.class); }\n"
+				+ "\t@Test(expected = IOException.class, timeout = Timeouts.SHORT) void annotated(){}\n"
+				+ "\t@Retry({Reason.class, Policy}) void retried(){ if(value < MAX && count > 0){ Outer.this.run(); } }\n"
+				+ "\tvoid scopes(){ Object a = ((Hidden) value).field; Object b = ((Shown) value).method(); int c = MAX; int d = NOT_KNOWN.length; }\n"
+				+ "\tvoid blocks(){ try{ } catch(IOException | RuntimeException ex){ } if(value instanceof Checked){ } }\n"
+				+ "}",
+			"class Test { enum Color { RED, GREEN } Color color; interface Listener { void on(Event event); } List<Listener> listeners;\n"
+				+ "\tTest(List<Inner> inner) { super(); }\n"
+				+ "\tstatic class Inner { }\n"
+				+ "}"
+		};
+
+		for(String source : sources){
+			parse(new LexerEngine(NO_FALLBACK), source);
+		}
+	}
+
+	@Test
+	public void testExtractFallsBackOnGenericDeclarations() throws IOException {
+		AtomicInteger fallbacks = new AtomicInteger();
+		Engine fallback = (source, classes, collectStats) -> {
+			fallbacks.incrementAndGet();
+
+			return new JavaParserEngine().extract(source, classes, collectStats);
+		};
+
+		parse(new LexerEngine(fallback), "class Test<T> { T value; List<T> values; }");
+		parse(new LexerEngine(fallback), "class Test { <T> T first(List<T> values){ return values.get(0); } }");
+
+		assertEquals(2, fallbacks.get());
+	}
+
+	@Test
+	public void testExtractReportsParseErrors() throws IOException {
+		parse(new LexerEngine(), "public class Test { public void run( }");
+		parse(new LexerEngine(), "public class Test { String value = \"unterminated; }");
+		parse(new LexerEngine(), "public record Test(String value) { }");
+		parse(new LexerEngine(), "public class Test { void run(){ int x = ; } }");
+		parse(new LexerEngine(), "public class Test { void run(){ Foo foo = new Foo() } }");
+		parse(new LexerEngine(), "public class Test { void run(){ call(first, ); } }");
+		parse(new LexerEngine(), "public class Test { void run(){ if(ready && ) { } } }");
+		parse(new LexerEngine(), "public class Test { Runnable r = () -> { value++ }; }");
+	}
+
+	@Test
+	public void testExtractAcceptsValidSequences() throws IOException {
+		parse(new LexerEngine(NO_FALLBACK), "class Test { enum Color { RED, GREEN, ; } int[][] values = { { 1, 2, }, { size() } }; }");
+		parse(new LexerEngine(NO_FALLBACK), "class Test { @SuppressWarnings({\"unchecked\", \"rawtypes\"}) void run(){ for(;;){ count++; } } }");
+		parse(new LexerEngine(NO_FALLBACK), "class Test { Object value = new Object[]{ first(), second() }; static { init(); } }");
+	}
+
+	@Test
+	public void testExtractMatchesJavaParserOnSourceTree() throws IOException {
+		List<Path> files;
+
+		try(Stream<Path> stream = Files.walk(Paths.get("src/main/java"))){
+			files = stream.filter(path -> path.toString().endsWith(".java")).collect(Collectors.toList());
+		}
+
+		assertEquals(false, files.isEmpty());
+
+		for(Path file : files){
+			parse(new LexerEngine(), Files.readString(file));
+		}
+	}
+}
@@ -0,0 +1,125 @@
+package jim.engine;
+
+import java.io.IOException;
+
+import java.net.URISyntaxException;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import jim.AbstractJimTest;
+
+import jim.actions.ParseAction;
+
+import jim.index.MapClassIndex;
+
+import jim.models.ParseResult;
+
+import static org.junit.Assert.*;
+
+public class TestSymbolSolverEngine extends AbstractJimTest {
+	private static final Map<String, List<String>> CLASSES = Map.of(
+		"HashMap", Arrays.asList("java.util.HashMap"),
+		"Entry", Arrays.asList("java.util.Map.Entry", "jim.io.ArchiveCache.Entry"),
+		"List", Arrays.asList("java.util.List", "java.awt.List"),
+		"Node", Arrays.asList("org.w3c.dom.Node", "com.other.Node"),
+		"Assert", Arrays.asList("org.junit.Assert", "org.testng.Assert"),
+		"Object", Arrays.asList("java.lang.Object"),
+		"String", Arrays.asList("java.lang.String")
+	);
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private ParseResult parse(SymbolSolverEngine engine, String source){
+		return new ParseAction(FileSystems.getDefault(), new MapClassIndex(CLASSES), Map.of(), engine).parseJavaSource(source);
+	}
+
+	private Path getJUnitJar() throws URISyntaxException {
+		return Paths.get(org.junit.Assert.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+	}
+
+	@Test
+	public void testInheritedMemberTypeNeedsNoImport() throws IOException {
+		String java = "import java.util.HashMap; public class Test extends HashMap<String, String> { Entry<String, String> entry; List list; }";
+		SymbolSolverEngine engine = new SymbolSolverEngine(Collections.emptyList(), Collections.emptyList());
+
+		ParseResult result = parse(engine, java);
+		assertEquals(true, result.errorMessages.isEmpty());
+		assertEquals(1, result.imports.size());
+		assertEquals("java.util.HashMap", result.imports.get(0).value);
+
+		//both lists are part of the runtime, so List is still ambiguous
+		assertEquals(1, result.types.size());
+		assertEquals("List", result.types.get(0).value);
+		assertEquals(2, result.types.get(0).choices.size());
+	}
+
+	@Test
+	public void testSourcePathMemberType() throws IOException {
+		Path root = folder.newFolder("src").toPath();
+		Files.createDirectories(root.resolve("abc"));
+		Files.writeString(root.resolve("abc").resolve("Base.java"), "package abc; public class Base { public static class Node { } }");
+
+		String java = "package abc; public class Test extends Base { Node node; Unknown unknown; }";
+		SymbolSolverEngine engine = new SymbolSolverEngine(Collections.emptyList(), Arrays.asList(root));
+
+		ParseResult result = parse(engine, java);
+
+		assertEquals(true, result.errorMessages.isEmpty());
+		assertEquals(true, result.imports.isEmpty());
+		assertEquals(1, result.types.size());
+		assertEquals("Unknown", result.types.get(0).value);
+		assertEquals(true, result.types.get(0).choices.isEmpty());
+	}
+
+	@Test
+	public void testClassPathNarrowsChoices() throws IOException, URISyntaxException {
+		String java = "public class Test { void run(){ Assert.assertEquals(1, 1); } }";
+
+		ParseResult heuristic = parse(new SymbolSolverEngine(Collections.emptyList(), Collections.emptyList()), java);
+
+		assertEquals(1, heuristic.types.size());
+		assertEquals(2, heuristic.types.get(0).choices.size());
+
+		ParseResult result = parse(new SymbolSolverEngine(Arrays.asList(getJUnitJar()), Collections.emptyList()), java);
+
+		assertEquals(true, result.errorMessages.isEmpty());
+		assertEquals(true, result.types.isEmpty());
+		assertEquals(1, result.imports.size());
+		assertEquals("org.junit.Assert", result.imports.get(0).value);
+	}
+
+	@Test
+	public void testVariableIsNotAType() throws IOException {
+		String java = "public class Test { Object Helper; void run(){ Helper.toString(); } }";
+
+		ParseResult heuristic = new ParseAction(FileSystems.getDefault(), CLASSES).parseJavaSource(java);
+
+		assertEquals(1, heuristic.types.size());
+		assertEquals("Helper", heuristic.types.get(0).value);
+
+		ParseResult result = parse(new SymbolSolverEngine(Collections.emptyList(), Collections.emptyList()), java);
+
+		assertEquals(true, result.errorMessages.isEmpty());
+		assertEquals(true, result.types.isEmpty());
+	}
+
+	@Test
+	public void testParseErrors() throws IOException {
+		ParseResult result = parse(new SymbolSolverEngine(Collections.emptyList(), Collections.emptyList()), "public class Test {");
+
+		assertEquals(false, result.errorMessages.isEmpty());
+	}
+}
@@ -0,0 +1,110 @@
+package jim.index;
+
+import java.io.IOException;
+
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.jimfs.Configuration;
+import com.google.common.jimfs.Jimfs;
+
+import org.junit.Test;
+
+import jim.AbstractJimTest;
+
+import jim.actions.ParseAction;
+
+import jim.io.ClassListDeserializer;
+
+import jim.models.ParseResult;
+
+import static org.junit.Assert.*;
+
+public class TestCompactClassIndex extends AbstractJimTest {
+	private static final Map<String, List<String>> CLASSES = Map.of(
+		"ArrayList", Arrays.asList("java.util.ArrayList"),
+		"List", Arrays.asList("java.util.List", "java.awt.List"),
+		"Entry", Arrays.asList("java.util.Map.Entry", "java.util.AbstractMap.SimpleEntry"),
+		"Default", Arrays.asList("Default"),
+		"Straße", Arrays.asList("de.Straße"),
+		"String", Arrays.asList("java.lang.String")
+	);
+
+	@Test
+	public void testCompactIndex(){
+		CompactClassIndex index = CompactClassIndex.of(CLASSES);
+
+		assertEquals(6, index.size());
+		assertEquals(6, index.getPackageCount());
+
+		for(Map.Entry<String, List<String>> entry : CLASSES.entrySet()){
+			assertEquals(true, index.containsKey(entry.getKey()));
+			assertEquals(entry.getValue(), index.get(entry.getKey()));
+		}
+
+		assertEquals(false, index.containsKey("Map"));
+		assertEquals(false, index.containsKey("Lis"));
+		assertEquals(true, index.get("Map").isEmpty());
+
+		assertEquals(true, index.contains("java.awt", "List"));
+		assertEquals(true, index.contains("java.util.Map.Entry"));
+		assertEquals(true, index.contains("Default"));
+		assertEquals(true, index.contains("de.Straße"));
+		assertEquals(false, index.contains("java.lang", "List"));
+		assertEquals(false, index.contains("java.util.AbstractMap.Entry"));
+		assertEquals(false, index.contains("java.util.SimpleEntry"));
+		assertEquals(false, index.contains("java.util.Map"));
+		assertEquals(false, index.contains("", "List"));
+	}
+
+	@Test
+	public void testTextClassListIsLoadedAsCompactIndex() throws IOException {
+		try(FileSystem fileSystem = Jimfs.newFileSystem(Configuration.unix())){
+			Path path = fileSystem.getPath("/classes.jim");
+
+			Files.writeString(path, "ArrayList java.util.ArrayList\nList java.util.List java.awt.List\n");
+
+			ClassIndex index = new ClassListDeserializer(fileSystem).deserializeIndex(path.toString(), true);
+
+			assertEquals(true, index instanceof CompactClassIndex);
+
+			ParseResult result = new ParseAction(fileSystem, index, Map.of()).parseJavaSource("public class Test { List values = new ArrayList(); }");
+
+			assertEquals(true, result.errorMessages.isEmpty());
+			assertEquals("java.util.ArrayList", result.imports.get(0).value);
+			assertEquals(Arrays.asList("java.util.List", "java.awt.List"), result.types.get(0).choices);
+		}
+	}
+
+	@Test
+	public void testTextClassListMatchesMap() throws IOException {
+		try(FileSystem fileSystem = Jimfs.newFileSystem(Configuration.unix())){
+			Path path = fileSystem.getPath("/classes.jim");
+
+			Files.writeString(path, "List java.util.List java.awt.List\nEmpty\nEntry java.util.Map.Entry\nList com.example.List\n");
+
+			ClassListDeserializer deserializer = new ClassListDeserializer(fileSystem, true);
+			Map<String, List<String>> expected = new ClassListDeserializer(fileSystem).deserialize(path.toString(), true);
+
+			//read from the text once and from the snapshot the second time
+			for(int i = 0; i < 2; i++){
+				ClassIndex index = deserializer.deserializeIndex(path.toString(), true);
+
+				assertEquals(true, Files.exists(fileSystem.getPath("/classes.jim.snapshot")));
+				assertEquals(3, index.size());
+
+				for(Map.Entry<String, List<String>> entry : expected.entrySet()){
+					assertEquals(true, index.containsKey(entry.getKey()));
+					assertEquals(entry.getValue(), index.get(entry.getKey()));
+				}
+			}
+
+			assertEquals(Arrays.asList("java.util.List", "java.awt.List", "com.example.List"), expected.get("List"));
+		}
+	}
+}
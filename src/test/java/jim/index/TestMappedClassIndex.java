@@ -0,0 +1,110 @@
+package jim.index;
+
+import java.io.IOException;
+
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.jimfs.Configuration;
+import com.google.common.jimfs.Jimfs;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import jim.AbstractJimTest;
+
+import jim.actions.ParseAction;
+
+import jim.io.ClassIndexSerializer;
+import jim.io.ClassListDeserializer;
+
+import jim.models.ParseResult;
+
+import static org.junit.Assert.*;
+
+public class TestMappedClassIndex extends AbstractJimTest {
+	private static final Map<String, List<String>> CLASSES = Map.of(
+		"ArrayList", Arrays.asList("java.util.ArrayList"),
+		"List", Arrays.asList("java.util.List", "java.awt.List"),
+		"Straße", Arrays.asList("de.Straße"),
+		"String", Arrays.asList("java.lang.String")
+	);
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private ClassIndex createIndex(FileSystem fileSystem, String filename) throws IOException {
+		new ClassIndexSerializer(fileSystem).serialize(CLASSES, filename);
+
+		return new ClassListDeserializer(fileSystem).deserializeIndex(filename, true);
+	}
+
+	private void assertIndex(ClassIndex index){
+		assertEquals(true, index instanceof MappedClassIndex);
+		assertEquals(4, ((MappedClassIndex) index).size());
+
+		for(Map.Entry<String, List<String>> entry : CLASSES.entrySet()){
+			assertEquals(true, index.containsKey(entry.getKey()));
+			assertEquals(entry.getValue(), index.get(entry.getKey()));
+		}
+
+		assertEquals(false, index.containsKey("Map"));
+		assertEquals(false, index.containsKey("Lis"));
+		assertEquals(false, index.containsKey("Strings"));
+		assertEquals(true, index.get("Map").isEmpty());
+
+		assertEquals(true, index.contains("java.awt", "List"));
+		assertEquals(true, index.contains("de.Straße"));
+		assertEquals(false, index.contains("java.lang", "List"));
+		assertEquals(false, index.contains("java.util.Map"));
+		assertEquals(false, index.contains("", "List"));
+	}
+
+	@Test
+	public void testMappedIndex() throws IOException {
+		Path path = folder.getRoot().toPath().resolve("classes.jimx");
+
+		assertIndex(createIndex(FileSystems.getDefault(), path.toString()));
+	}
+
+	@Test
+	public void testIndexOnFileSystemWithoutMemoryMapping() throws IOException {
+		try(FileSystem fileSystem = Jimfs.newFileSystem(Configuration.unix())){
+			assertIndex(createIndex(fileSystem, "/classes.jimx"));
+		}
+	}
+
+	@Test
+	public void testTextClassListIsNotMapped() throws IOException {
+		Path path = folder.newFile("classes.jim").toPath();
+
+		Files.writeString(path, "ArrayList java.util.ArrayList\n");
+
+		ClassIndex index = new ClassListDeserializer(FileSystems.getDefault()).deserializeIndex(path.toString(), true);
+
+		assertEquals(true, index instanceof CompactClassIndex);
+		assertEquals(Arrays.asList("java.util.ArrayList"), index.get("ArrayList"));
+	}
+
+	@Test
+	public void testParseJavaSourceWithMappedIndex() throws IOException {
+		Path path = folder.getRoot().toPath().resolve("classes.jimx");
+		ClassIndex index = createIndex(FileSystems.getDefault(), path.toString());
+		String java = "public class Test { public static void main(String[] args){ List<String> list = new ArrayList<>(); }}";
+
+		ParseResult result = new ParseAction(FileSystems.getDefault(), index, Map.<String, List<String>>of()).parseJavaSource(java);
+
+		assertEquals(true, result.errorMessages.isEmpty());
+		assertEquals(1, result.imports.size());
+		assertEquals("java.util.ArrayList", result.imports.get(0).value);
+		assertEquals(1, result.types.size());
+		assertEquals(Arrays.asList("java.util.List", "java.awt.List"), result.types.get(0).choices);
+	}
+}
@@ -0,0 +1,121 @@
+package jim.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.jimfs.Configuration;
+import com.google.common.jimfs.Jimfs;
+
+import jim.AbstractJimTest;
+
+import jim.index.ChoiceIndex;
+
+import static org.junit.Assert.*;
+
+public class TestChoiceJournal extends AbstractJimTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testRead() throws IOException {
+		String journal = String.join("\n",
+			"List java.util.List java.awt.List",
+			"Entry java.util.Map.Entry",
+			"",
+			"Empty",
+			"List java.awt.List",
+			"Date java.sql.Date java.util.Date",
+			"Entry jim.io.ArchiveCache.Entry",
+			"");
+
+		ChoiceIndex choices = new ChoiceJournal(Jimfs.newFileSystem()).read(new ByteArrayInputStream(journal.getBytes(StandardCharsets.UTF_8)));
+
+		assertEquals(3, choices.size());
+		assertEquals("java.awt.List", choices.getRecentChoice("List"));
+		assertEquals("jim.io.ArchiveCache.Entry", choices.getRecentChoice("Entry"));
+		assertEquals("java.sql.Date", choices.getRecentChoice("Date"));
+		assertEquals(null, choices.getRecentChoice("Empty"));
+		assertEquals(null, choices.getRecentChoice("Missing"));
+	}
+
+	@Test
+	public void testReadFile() throws IOException {
+		FileSystem fileSystem = Jimfs.newFileSystem(Configuration.unix());
+		ChoiceJournal journal = new ChoiceJournal(fileSystem);
+
+		assertEquals(0, journal.read("choices.txt", false).size());
+
+		try{
+			journal.read("choices.txt", true);
+
+			fail("expected a missing file error");
+		}
+		catch(IOException ex){
+			assertEquals("file not found - choices.txt", ex.getMessage());
+		}
+
+		Files.writeString(fileSystem.getPath("choices.txt"), "List java.util.List\n");
+
+		assertEquals("java.util.List", journal.read("choices.txt", true).getRecentChoice("List"));
+	}
+
+	@Test
+	public void testReadWithSnapshot() throws IOException {
+		Path path = folder.getRoot().toPath().resolve("choices.txt");
+		Path snapshot = folder.getRoot().toPath().resolve("choices.txt.snapshot");
+		ChoiceJournal journal = new ChoiceJournal(FileSystems.getDefault(), true);
+
+		Files.writeString(path, "Date java.util.Date java.sql.Date\nList java.util.List java.awt.List\nEntry jim.io.ArchiveCache.Entry\n");
+
+		ChoiceIndex choices = journal.read(path.toString(), true);
+
+		assertEquals(3, choices.size());
+		assertEquals("java.util.Date", choices.getRecentChoice("Date"));
+		assertEquals(true, Files.exists(snapshot));
+
+		//an edit ahead of the snapshot end is not read again once lines are appended
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)){
+			channel.write(ByteBuffer.wrap("Dat2".getBytes(StandardCharsets.UTF_8)), 0);
+		}
+
+		Files.writeString(path, "List java.awt.List\nEntry java.util.Map.Ent", StandardOpenOption.APPEND);
+
+		choices = journal.read(path.toString(), true);
+
+		assertEquals("java.util.Date", choices.getRecentChoice("Date"));
+		assertEquals("java.awt.List", choices.getRecentChoice("List"));
+		assertEquals("java.util.Map.Ent", choices.getRecentChoice("Entry"));
+
+		//the unfinished line is read again once it is complete
+		Files.writeString(path, "ry\n", StandardOpenOption.APPEND);
+
+		choices = journal.read(path.toString(), true);
+
+		assertEquals("java.util.Map.Entry", choices.getRecentChoice("Entry"));
+
+		//a compacted journal replaces the file and is read in full
+		Path temp = folder.getRoot().toPath().resolve("choices.txt.tmp");
+
+		Files.writeString(temp, "List java.util.List\n");
+		Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+
+		choices = journal.read(path.toString(), true);
+
+		assertEquals(1, choices.size());
+		assertEquals("java.util.List", choices.getRecentChoice("List"));
+	}
+}
@@ -0,0 +1,89 @@
+package jim.io;
+
+import java.io.IOException;
+
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import jim.AbstractJimTest;
+
+import static org.junit.Assert.*;
+
+public class TestClassListDeserializer extends AbstractJimTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testDeserialize() throws IOException {
+		Path path = folder.newFile("classes.jim").toPath();
+
+		Files.writeString(path, "List java.util.List java.awt.List\nArrayList java.util.ArrayList\nList com.example.List\n");
+
+		Map<String, List<String>> classes = new ClassListDeserializer(FileSystems.getDefault()).deserialize(path.toString(), true);
+
+		assertEquals(2, classes.size());
+		assertEquals(Arrays.asList("java.util.List", "java.awt.List", "com.example.List"), classes.get("List"));
+		assertEquals(Arrays.asList("java.util.ArrayList"), classes.get("ArrayList"));
+		assertEquals(false, Files.exists(folder.getRoot().toPath().resolve("classes.jim.snapshot")));
+	}
+
+	@Test
+	public void testDeserializeMissingFile() throws IOException {
+		ClassListDeserializer deserializer = new ClassListDeserializer(FileSystems.getDefault(), true);
+		String filename = folder.getRoot().toPath().resolve("missing.jim").toString();
+
+		assertEquals(true, deserializer.deserialize(filename, false).isEmpty());
+
+		try{
+			deserializer.deserialize(filename, true);
+			fail("expected an IOException");
+		}
+		catch(IOException ex){
+			assertEquals(String.format("file not found - %s", filename), ex.getMessage());
+		}
+	}
+
+	@Test
+	public void testDeserializeWithSnapshot() throws IOException {
+		FileSystem fileSystem = FileSystems.getDefault();
+		Path path = folder.newFile("classes.jim").toPath();
+		Path snapshot = folder.getRoot().toPath().resolve("classes.jim.snapshot");
+
+		Files.writeString(path, "List java.util.List java.awt.List\nArrayList java.util.ArrayList\n");
+
+		Map<String, List<String>> expected = new ClassListDeserializer(fileSystem).deserialize(path.toString(), true);
+		Map<String, List<String>> classes = new ClassListDeserializer(fileSystem, true).deserialize(path.toString(), true);
+
+		assertEquals(expected, classes);
+		assertEquals(true, Files.exists(snapshot));
+
+		FileTime written = FileTime.fromMillis(0);
+		Files.setLastModifiedTime(snapshot, written);
+
+		classes = new ClassListDeserializer(fileSystem, true).deserialize(path.toString(), true);
+
+		assertEquals(expected, classes);
+		assertEquals(written, Files.getLastModifiedTime(snapshot));
+
+		//same size but a new modification time
+		FileTime modified = Files.getLastModifiedTime(path);
+		Files.writeString(path, "List java.util.List java.awt.List\nArrayList java.util.ArrayLis2\n");
+		Files.setLastModifiedTime(path, FileTime.fromMillis(modified.toMillis() + 1000));
+
+		classes = new ClassListDeserializer(fileSystem, true).deserialize(path.toString(), true);
+
+		assertEquals(Arrays.asList("java.util.ArrayLis2"), classes.get("ArrayList"));
+		assertNotEquals(written, Files.getLastModifiedTime(snapshot));
+	}
+}
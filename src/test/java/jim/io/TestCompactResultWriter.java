@@ -0,0 +1,74 @@
+package jim.io;
+
+import java.io.IOException;
+
+import java.nio.file.FileSystems;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import jim.AbstractJimTest;
+
+import jim.actions.ParseAction;
+
+import jim.models.ParseResult;
+import jim.models.ParseStats;
+import jim.models.PhaseStats;
+
+import static org.junit.Assert.*;
+
+public class TestCompactResultWriter extends AbstractJimTest {
+	@Test
+	public void testWrite() throws IOException {
+		Map<String, List<String>> classes = Map.of(
+			"ArrayList", Arrays.asList("java.util.ArrayList"),
+			"List", Arrays.asList("java.util.List", "java.awt.List"),
+			"Assert", Arrays.asList("org.junit.Assert")
+		);
+		String java = "package abc;\n\nimport static org.junit.Assert.*;\n\npublic class Test { List list = new ArrayList(); Missing missing; }";
+
+		ParseResult result = new ParseAction(FileSystems.getDefault(), classes).parseJavaSource(java);
+		String[] lines = new CompactResultWriter().asString(result).split("\n", -1);
+
+		assertEquals("P\t1\t1\tabc", lines[0]);
+		assertEquals("R\t3\t3", lines[1]);
+		assertEquals(true, Arrays.asList(lines).contains("I\t3\t1\t1\torg.junit.Assert.*"));
+		assertEquals(true, Arrays.asList(lines).contains("I\t0\t0\t0\tjava.util.ArrayList"));
+		assertEquals(true, Arrays.asList(lines).contains("T\t5\t21\tList\tjava.util.List\tjava.awt.List"));
+		assertEquals(true, Arrays.asList(lines).contains("T\t5\t50\tMissing"));
+		assertEquals("", lines[lines.length - 1]);
+	}
+
+	@Test
+	public void testWriteEscapedFields() throws IOException {
+		ParseResult result = new ParseResult();
+		result.filename = "C:\\src\\Test.java";
+		result.errorMessages.add("first line\n\tsecond line\r");
+
+		assertEquals("E\tfirst line\\n\\tsecond line\\r\nF\tC:\\\\src\\\\Test.java\nP\t0\t0\t\nR\t0\t0\n", new CompactResultWriter().asString(result));
+	}
+
+	@Test
+	public void testWriteStats() throws IOException {
+		ParseResult result = new ParseResult();
+		result.stats = new ParseStats();
+		result.stats.parse = new PhaseStats();
+		result.stats.parse.elapsedMicros = 120;
+		result.stats.parse.allocatedBytes = 4096;
+		result.stats.visitedTypes = 3;
+		result.stats.resolvedTypes = 2;
+		result.stats.unresolvedTypes = 1;
+
+		String[] lines = new CompactResultWriter().asString(result).split("\n");
+
+		assertEquals("R\t0\t0", lines[1]);
+		assertEquals("S\tparse\t120\t4096", lines[2]);
+		assertEquals("S\tclassNames\t0", lines[3]);
+		assertEquals("S\tvisitedTypes\t3", lines[5]);
+		assertEquals("S\tunresolvedTypes\t1", lines[8]);
+		assertEquals("S\tjvmUptimeMillis\t0", lines[lines.length - 1]);
+	}
+}
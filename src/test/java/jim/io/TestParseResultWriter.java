@@ -0,0 +1,129 @@
+package jim.io;
+
+import java.io.IOException;
+
+import java.nio.file.FileSystems;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.jr.annotationsupport.JacksonAnnotationExtension;
+import com.fasterxml.jackson.jr.ob.JSON;
+
+import jim.AbstractJimTest;
+
+import jim.actions.ParseAction;
+
+import jim.engine.JavaParserEngine;
+
+import jim.index.ChoiceIndex;
+import jim.index.MapClassIndex;
+
+import jim.models.FileImportEntry;
+import jim.models.FileTypeEntry;
+import jim.models.ParseResult;
+import jim.models.PhaseStats;
+
+import static org.junit.Assert.*;
+
+public class TestParseResultWriter extends AbstractJimTest {
+	private JSON compactJson = JSON.builder().register(JacksonAnnotationExtension.std).build();
+
+	private void assertSameOutput(ParseResult result) throws IOException {
+		assertEquals(compactJson.asString(result), new ParseResultWriter(false).asString(result));
+		assertEquals(json.asString(result), new ParseResultWriter(true).asString(result));
+	}
+
+	@Test
+	public void testWriteEmptyResult() throws IOException {
+		assertSameOutput(new ParseResult());
+	}
+
+	@Test
+	public void testWriteParsedResult() throws IOException {
+		Map<String, List<String>> classes = Map.of(
+			"ArrayList", Arrays.asList("java.util.ArrayList"),
+			"List", Arrays.asList("java.util.List", "java.awt.List"),
+			"Assert", Arrays.asList("org.junit.Assert"),
+			"String", Arrays.asList("java.lang.String")
+		);
+		String java = "package abc;\n\nimport static org.junit.Assert.*;\nimport java.util.ArrayList;\n\npublic class Test { List list = new ArrayList(); Missing missing; }";
+
+		ParseResult result = new ParseAction(FileSystems.getDefault(), classes).parseJavaSource(java);
+
+		assertEquals(false, result.types.isEmpty());
+		assertSameOutput(result);
+
+		result.filename = "/tmp/Test.java";
+
+		assertSameOutput(result);
+	}
+
+	@Test
+	public void testWriteStats() throws IOException {
+		Map<String, List<String>> classes = Map.of(
+			"List", Arrays.asList("java.util.List", "java.awt.List"),
+			"String", Arrays.asList("java.lang.String")
+		);
+		String java = "public class Test { List list; Missing missing; }";
+
+		ParseResult result = new ParseAction(FileSystems.getDefault(), new MapClassIndex(classes), ChoiceIndex.of(new HashMap<>()), new JavaParserEngine(), null, true).parseJavaSource(java);
+
+		assertNotNull(result.stats);
+		assertNull(result.stats.load);
+
+		assertSameOutput(result);
+
+		result.stats.load = new PhaseStats();
+		result.stats.load.elapsedMicros = 1500;
+		result.stats.load.allocatedBytes = -1;
+		result.stats.jvmUptimeMillis = 250;
+
+		assertSameOutput(result);
+	}
+
+	@Test
+	public void testWriteEscapedStrings() throws IOException {
+		ParseResult result = new ParseResult();
+		result.filename = "C:\\src\\\"Quoted\"/Test.java";
+		result.pkg.value = "caf\u00e9.\u2028.\ud83d\ude00";
+		result.errorMessages.add("line\nbreak\ttab\rreturn\bback\fform");
+		result.errorMessages.add("control \u0000 \u001b \u001f \u007f");
+
+		FileImportEntry entry = new FileImportEntry();
+		entry.isStatic = true;
+		entry.position.line = 3;
+		entry.position.column = 8;
+		result.imports.add(entry);
+
+		FileTypeEntry type = new FileTypeEntry();
+		type.value = "Entry";
+		type.choices.add("java.util.Map.Entry");
+		type.choices.add("jim.io.ArchiveCache.Entry");
+		result.types.add(type);
+		result.types.add(new FileTypeEntry());
+
+		assertSameOutput(result);
+	}
+
+	@Test
+	public void testWriteLargeResult() throws IOException {
+		ParseResult result = new ParseResult();
+
+		for(int i = 0; i < 500; i++){
+			FileTypeEntry type = new FileTypeEntry();
+			type.value = String.format("Type%d", i);
+			type.position.line = i;
+			type.choices.add(String.format("a.very.long.package.name.number.%d.Type%d", i, i));
+			type.choices.add(String.format("another.package.\"%d\".Type%d", i, i));
+			result.types.add(type);
+		}
+
+		assertEquals(true, new ParseResultWriter(false).asString(result).length() > 8192);
+		assertSameOutput(result);
+	}
+}
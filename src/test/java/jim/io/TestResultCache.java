@@ -0,0 +1,133 @@
+package jim.io;
+
+import java.io.IOException;
+
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import jim.AbstractJimTest;
+
+import jim.actions.ParseAction;
+
+import jim.engine.JavaParserEngine;
+
+import jim.index.MapClassIndex;
+
+import jim.models.ParseResult;
+
+import static org.junit.Assert.*;
+
+public class TestResultCache extends AbstractJimTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private List<Path> getEntries() throws IOException {
+		try(Stream<Path> stream = Files.walk(folder.getRoot().toPath())){
+			return stream.filter(p -> p.toString().endsWith(".result")).collect(Collectors.toList());
+		}
+	}
+
+	private ParseAction createAction(ResultCache cache){
+		Map<String, List<String>> classes = Map.of(
+			"ArrayList", Arrays.asList("java.util.ArrayList"),
+			"List", Arrays.asList("java.util.List", "java.awt.List")
+		);
+
+		return new ParseAction(FileSystems.getDefault(), new MapClassIndex(classes), new HashMap<>(), new JavaParserEngine(), cache);
+	}
+
+	@Test
+	public void testParseJavaSourceWithCache() throws IOException {
+		String java = "package abc;\n\nimport java.util.Set;\nimport static org.junit.Assert.*;\n\npublic class Test { List list = new ArrayList(); Missing missing; }";
+		ResultCache cache = new ResultCache(FileSystems.getDefault(), folder.getRoot().toString(), ResultCache.DEFAULT_MAX_SIZE, "v1");
+		ParseResultWriter writer = new ParseResultWriter(false);
+
+		ParseResult expected = createAction(null).parseJavaSource(java);
+		ParseResult first = createAction(cache).parseJavaSource(java);
+
+		assertEquals(1, getEntries().size());
+
+		ParseResult second = createAction(cache).parseJavaSource(java);
+
+		assertEquals(writer.asString(expected), writer.asString(first));
+		assertEquals(writer.asString(expected), writer.asString(second));
+		assertEquals(1, second.unusedImports.size());
+		assertEquals("java.util.Set", second.unusedImports.get(0).value);
+		assertEquals(1, getEntries().size());
+
+		ResultCache other = new ResultCache(FileSystems.getDefault(), folder.getRoot().toString(), ResultCache.DEFAULT_MAX_SIZE, "v2");
+
+		assertEquals(false, cache.getKey(java).equals(other.getKey(java)));
+		assertEquals(false, other.read(other.getKey(java), new ParseResult()));
+	}
+
+	@Test
+	public void testParseJavaSourceWithParseErrors() throws IOException {
+		ResultCache cache = new ResultCache(FileSystems.getDefault(), folder.getRoot().toString(), ResultCache.DEFAULT_MAX_SIZE, "v1");
+
+		ParseResult result = createAction(cache).parseJavaSource("public class Test {");
+
+		assertEquals(false, result.errorMessages.isEmpty());
+		assertEquals(0, getEntries().size());
+	}
+
+	@Test
+	public void testWriteEvictsLeastRecentlyUsed() throws IOException {
+		ResultCache unbounded = new ResultCache(FileSystems.getDefault(), folder.getRoot().toString(), ResultCache.DEFAULT_MAX_SIZE, "v1");
+		ParseResult result = new ParseResult();
+		result.pkg.value = "abc";
+
+		unbounded.write("aa01", result);
+		unbounded.write("bb02", result);
+
+		long size = Files.size(getEntries().get(0));
+
+		Files.setLastModifiedTime(folder.getRoot().toPath().resolve("aa").resolve("aa01.result"), FileTime.fromMillis(1000));
+		Files.setLastModifiedTime(folder.getRoot().toPath().resolve("bb").resolve("bb02.result"), FileTime.fromMillis(2000));
+
+		//room for two entries, so the third write removes the oldest one
+		ResultCache cache = new ResultCache(FileSystems.getDefault(), folder.getRoot().toString(), size * 3 - 1, "v1");
+		cache.write("cc03", result);
+
+		assertEquals(false, cache.read("aa01", new ParseResult()));
+		assertEquals(true, cache.read("bb02", new ParseResult()));
+		assertEquals(true, cache.read("cc03", new ParseResult()));
+	}
+
+	@Test
+	public void testFileVersion() throws IOException {
+		FileSystem fileSystem = FileSystems.getDefault();
+		Path path = folder.getRoot().toPath().resolve("classes.jim");
+
+		assertEquals(String.format("%s:missing", path), ResultCache.getFileVersion(fileSystem, path.toString()));
+
+		Files.writeString(path, "List java.util.List\n");
+		Files.setLastModifiedTime(path, FileTime.from(1000000100L, TimeUnit.NANOSECONDS));
+
+		//only file systems that keep sub millisecond modification times can tell these apart
+		Assume.assumeTrue(Files.getLastModifiedTime(path).to(TimeUnit.NANOSECONDS) == 1000000100L);
+
+		String version = ResultCache.getFileVersion(fileSystem, path.toString());
+
+		//rewritten within the same millisecond
+		Files.setLastModifiedTime(path, FileTime.from(1000000200L, TimeUnit.NANOSECONDS));
+
+		assertNotEquals(version, ResultCache.getFileVersion(fileSystem, path.toString()));
+	}
+}
@@ -0,0 +1,196 @@
+package jim.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import jim.AbstractJimTest;
+
+import jim.engine.Engine;
+
+import jim.io.ClassFileCache;
+import jim.io.ClassListDeserializer;
+
+import static org.junit.Assert.*;
+
+public class TestDaemonServer extends AbstractJimTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private SocketChannel connect(Path socketPath) throws IOException, InterruptedException {
+		//the socket file exists once bound, which is slightly before the server listens
+		for(int i = 0; ; i++){
+			try{
+				return SocketChannel.open(UnixDomainSocketAddress.of(socketPath));
+			}
+			catch(IOException ex){
+				if(i == 100){
+					throw ex;
+				}
+
+				Thread.sleep(50);
+			}
+		}
+	}
+
+	private String send(Path socketPath, String request) throws IOException, InterruptedException {
+		try(SocketChannel channel = connect(socketPath)){
+			channel.write(ByteBuffer.wrap(request.getBytes(StandardCharsets.UTF_8)));
+
+			ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+			try(InputStream input = Channels.newInputStream(channel)){
+				input.transferTo(output);
+			}
+
+			return output.toString(StandardCharsets.UTF_8);
+		}
+	}
+
+	private Thread start(DaemonServer server){
+		Thread thread = new Thread(() -> {
+			try{
+				server.run();
+			}
+			catch(IOException ex){
+				throw new RuntimeException("daemon error", ex);
+			}
+		});
+		thread.start();
+
+		return thread;
+	}
+
+	@Test
+	public void testParseRequest() throws Exception {
+		FileSystem fileSystem = FileSystems.getDefault();
+		Path classFile = folder.newFile("classes.jim").toPath();
+		Path javaFile = folder.newFile("Dummy.java").toPath();
+		Path socketPath = folder.getRoot().toPath().resolve("jim.sock");
+
+		Files.writeString(classFile, "ArrayList java.util.ArrayList\n");
+		Files.writeString(javaFile, "public class Dummy { public void dummy(){ new ArrayList(); }}");
+
+		ClassFileCache cache = new ClassFileCache(fileSystem, new ClassListDeserializer(fileSystem));
+		RequestHandler handler = new RequestHandler(fileSystem, cache, classFile.toString(), "choices.jim");
+		DaemonServer server = new DaemonServer(socketPath, 0, handler, json);
+
+		Thread thread = start(server);
+
+		try{
+			String response = send(socketPath, String.format("{\"filename\" : \"%s\"}\n", javaFile));
+			Map<String, Object> result = json.mapFrom(response);
+
+			assertEquals(true, ((List<?>) result.get("errorMessages")).isEmpty());
+			assertEquals(true, response.contains("java.util.ArrayList"));
+
+			response = send(socketPath, String.format("{\"filename\" : \"%s\", \"format\" : \"compact\"}\n", javaFile));
+
+			assertEquals(true, response.startsWith("P\t0\t0\t\n"));
+			assertEquals(true, response.contains("I\t0\t0\t0\tjava.util.ArrayList\n"));
+
+			response = send(socketPath, String.format("{\"filename\" : \"%s\", \"source\" : \"public class Dummy { ArrayList list; Unsaved unsaved; }\"}\n", javaFile));
+
+			assertEquals(true, response.contains("java.util.ArrayList"));
+			assertEquals(true, response.contains("Unsaved"));
+			assertEquals(false, response.contains("stats"));
+
+			response = send(socketPath, String.format("{\"filename\" : \"%s\", \"stats\" : true}\n", javaFile));
+			result = json.mapFrom(response);
+
+			Map<?, ?> stats = (Map<?, ?>) result.get("stats");
+
+			assertEquals(1, ((Number) stats.get("classNames")).intValue());
+			assertEquals(1, ((Number) stats.get("resolvedTypes")).intValue());
+			assertEquals(true, stats.containsKey("load"));
+			assertEquals(true, stats.containsKey("parse"));
+
+			response = send(socketPath, "{\"classFile\" : \"missing.jim\"}\n");
+
+			assertEquals(true, response.contains("missing filename"));
+		}
+		finally{
+			server.stop();
+			thread.join();
+		}
+
+		assertEquals(false, Files.exists(socketPath));
+	}
+
+	@Test
+	public void testEngineFailure() throws Exception {
+		FileSystem fileSystem = FileSystems.getDefault();
+		Path classFile = folder.newFile("classes.jim").toPath();
+		Path socketPath = folder.getRoot().toPath().resolve("jim.sock");
+		Engine engine = (source, classes, collectStats) -> {
+			throw new IllegalStateException("engine failure");
+		};
+
+		ClassFileCache cache = new ClassFileCache(fileSystem, new ClassListDeserializer(fileSystem));
+		RequestHandler handler = new RequestHandler(fileSystem, cache, classFile.toString(), "choices.jim", engine);
+		DaemonServer server = new DaemonServer(socketPath, 0, handler, json);
+		Thread thread = start(server);
+
+		try{
+			String response = send(socketPath, "{\"source\" : \"public class Dummy { }\", \"format\" : \"compact\"}\n");
+
+			assertEquals(true, response.startsWith("E\tunable to parse file - engine failure\n"));
+		}
+		finally{
+			server.stop();
+			thread.join();
+		}
+	}
+
+	@Test
+	public void testSocketInUse() throws Exception {
+		FileSystem fileSystem = FileSystems.getDefault();
+		Path classFile = folder.newFile("classes.jim").toPath();
+		Path socketPath = folder.getRoot().toPath().resolve("jim.sock");
+
+		//the file left behind by a daemon that did not exit cleanly
+		try(ServerSocketChannel stale = ServerSocketChannel.open(StandardProtocolFamily.UNIX)){
+			stale.bind(UnixDomainSocketAddress.of(socketPath));
+		}
+
+		assertEquals(true, Files.exists(socketPath));
+
+		ClassFileCache cache = new ClassFileCache(fileSystem, new ClassListDeserializer(fileSystem));
+		RequestHandler handler = new RequestHandler(fileSystem, cache, classFile.toString(), "choices.jim");
+		DaemonServer server = new DaemonServer(socketPath, 0, handler, json);
+		Thread thread = start(server);
+
+		try{
+			assertEquals(true, send(socketPath, "{}\n").contains("missing filename"));
+
+			//a second daemon leaves the running one alone
+			new DaemonServer(socketPath, 0, handler, json).run();
+
+			assertEquals(true, send(socketPath, "{}\n").contains("missing filename"));
+		}
+		finally{
+			server.stop();
+			thread.join();
+		}
+	}
+}
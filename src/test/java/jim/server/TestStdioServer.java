@@ -0,0 +1,78 @@
+package jim.server;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import jim.AbstractJimTest;
+
+import jim.io.ClassFileCache;
+import jim.io.ClassListDeserializer;
+
+import static org.junit.Assert.*;
+
+public class TestStdioServer extends AbstractJimTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testServeRequests() throws IOException {
+		FileSystem fileSystem = FileSystems.getDefault();
+		Path classFile = folder.newFile("classes.jim").toPath();
+		Path otherClassFile = folder.newFile("other.jim").toPath();
+		Path javaFile = folder.newFile("Dummy.java").toPath();
+
+		Files.writeString(classFile, "ArrayList java.util.ArrayList\n");
+		Files.writeString(otherClassFile, "ArrayList other.ArrayList\n");
+		Files.writeString(javaFile, "public class Dummy { public void dummy(){ new ArrayList(); }}");
+
+		String requests = String.join("\n",
+			String.format("{\"filename\" : \"%s\"}", javaFile),
+			"",
+			"{\"source\" : \"public class Dummy { ArrayList list; Unsaved unsaved; }\", \"format\" : \"compact\"}",
+			String.format("{\"filename\" : \"%s\", \"classFile\" : \"%s\"}", javaFile, otherClassFile),
+			"not json",
+			"{\"classFile\" : \"missing.jim\"}"
+		);
+
+		ClassFileCache cache = new ClassFileCache(fileSystem, new ClassListDeserializer(fileSystem));
+		RequestHandler handler = new RequestHandler(fileSystem, cache, classFile.toString(), "choices.jim");
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+		new StdioServer(handler, json).run(new ByteArrayInputStream(requests.getBytes(StandardCharsets.UTF_8)), output);
+
+		String[] lines = output.toString(StandardCharsets.UTF_8).split("\n", -1);
+
+		Map<String, Object> result = json.mapFrom(lines[0]);
+
+		assertEquals(true, ((List<?>) result.get("errorMessages")).isEmpty());
+		assertEquals(true, lines[0].contains("java.util.ArrayList"));
+
+		//compact records up to the empty line
+		assertEquals("P\t0\t0\t", lines[1]);
+		assertEquals("R\t0\t0", lines[2]);
+		assertEquals("I\t0\t0\t0\tjava.util.ArrayList", lines[3]);
+		assertEquals(true, lines[4].startsWith("T\t1\t"));
+		assertEquals(true, lines[4].endsWith("\tUnsaved"));
+		assertEquals("", lines[5]);
+
+		assertEquals(true, lines[6].contains("other.ArrayList"));
+		assertEquals(true, lines[7].contains("invalid request"));
+		assertEquals(true, lines[8].contains("missing filename"));
+		assertEquals("", lines[9]);
+		assertEquals(10, lines.length);
+	}
+}
@@ -0,0 +1,86 @@
+package jim.stats;
+
+import java.io.IOException;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import jim.AbstractJimTest;
+
+import jim.actions.ParseAction;
+
+import jim.models.PhaseStats;
+
+import static org.junit.Assert.*;
+
+public class TestPhaseTimer extends AbstractJimTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testStop(){
+		PhaseTimer timer = new PhaseTimer(true);
+		byte[][] garbage = new byte[16][];
+
+		for(int i = 0; i < garbage.length; i++){
+			garbage[i] = new byte[1024];
+		}
+
+		PhaseStats stats = timer.stop("test");
+
+		assertEquals(true, stats.elapsedMicros >= 0);
+		assertEquals(true, stats.allocatedBytes == -1 || stats.allocatedBytes >= 16 * 1024);
+		assertEquals(true, PhaseTimer.getUptime() > 0);
+	}
+
+	@Test
+	public void testStopWithoutStats(){
+		assertEquals(null, new PhaseTimer(false).stop("test"));
+	}
+
+	@Test
+	public void testFlightRecorderEvents() throws IOException {
+		Map<String, List<String>> classes = Map.of(
+			"List", Arrays.asList("java.util.List", "java.awt.List"),
+			"String", Arrays.asList("java.lang.String")
+		);
+		Path file = folder.getRoot().toPath().resolve("parse.jfr");
+
+		try(Recording recording = new Recording()){
+			recording.enable("jim.ParsePhase");
+			recording.enable("jim.ParseFile");
+			recording.start();
+
+			new ParseAction(FileSystems.getDefault(), classes).parseJavaSource("public class Test { List list; String value; }");
+
+			recording.stop();
+			recording.dump(file);
+		}
+
+		List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+		List<String> phases = events.stream()
+			.filter(e -> e.getEventType().getName().equals("jim.ParsePhase"))
+			.map(e -> e.getString("phase"))
+			.collect(Collectors.toList());
+
+		assertEquals(Arrays.asList("parse", "visit", "resolve"), phases);
+
+		RecordedEvent parsed = events.stream().filter(e -> e.getEventType().getName().equals("jim.ParseFile")).findFirst().get();
+
+		assertEquals(2, parsed.getInt("visitedTypes"));
+		assertEquals(1, parsed.getInt("ambiguousTypes"));
+	}
+}
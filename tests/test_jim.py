@@ -1,7 +1,8 @@
+import json
 import subprocess
 import tempfile
 import unittest
-import json
+import os
 
 from pyfakefs.fake_filesystem_unittest import TestCase
 from unittest.mock import patch
@@ -15,6 +16,10 @@ class TestJavaImpMissing(TestCase):
         self.setUpPyfakefs() 
         vim.reset()
 
+        jim.jim_jobs.clear()
+        jim.jim_results.clear()
+        jim.jim_coprocess_job = None
+
     def test_jim_load_java_imp_class_file(self):
         contents = [
             "ArrayList java.util.ArrayList",
@@ -43,6 +48,8 @@ class TestJavaImpMissing(TestCase):
         vim.set_eval("g:JavaImpClassList", ".JavaImp/JavaImp.text")
         vim.set_eval("g:JavaImpDataDir", ".JavaImp")
         vim.current.buffer.name = "MyClass.java"
+        vim.current.buffer.append("public class MyClass {")
+        vim.current.buffer.append("}")
 
         mock_run.return_value.stdout = "{}"
         mock_run.return_value.returncode = 0
@@ -57,14 +64,291 @@ class TestJavaImpMissing(TestCase):
             "-XX:SomeValue",
             "-jar",
             "/home/user/.vim/java/jim-1.0-jar-with-dependencies.jar",
+            "--format",
+            "compact",
             "--class-file",
             ".JavaImp/JavaImp.text",
             "--choice-file",
             ".JavaImp/choices.txt",
+            "--stdin",
+            "--stdin-filename",
+            vim.current.buffer.name
+        ]
+
+        mock_run.assert_called_once_with(expected_args, input="public class MyClass {\n}\n", capture_output=True, text=True, encoding="utf-8")
+
+    @patch('subprocess.run')
+    def test_jim_run_java_command_with_class_data_sharing_archive(self, mock_run):
+        self.fs.create_file("/home/user/.vim/java/jim.jsa")
+
+        vim.set_eval("g:JimJavaOpts", "-XX:SomeValue")
+        vim.set_eval("s:pluginHome", "/home/user/.vim")
+        vim.set_eval("g:JavaImpClassList", ".JavaImp/JavaImp.text")
+        vim.set_eval("g:JavaImpDataDir", ".JavaImp")
+        vim.current.buffer.name = "MyClass.java"
+
+        mock_run.return_value.stdout = "{}"
+        mock_run.return_value.returncode = 0
+
+        jim.jim_run_java_command()
+
+        expected_args = [
+            "java",
+            "-XX:SomeValue",
+            "-XX:SharedArchiveFile=/home/user/.vim/java/jim.jsa",
+            "-Xlog:disable",
+            "-Xlog:all=warning:stderr",
+            "-jar",
+            "/home/user/.vim/java/jim-1.0-jar-with-dependencies.jar",
+            "--format",
+            "compact",
+            "--stdin",
+            "--stdin-filename",
             vim.current.buffer.name
         ]
 
-        mock_run.assert_called_once_with(expected_args, capture_output=True, text=True)
+        mock_run.assert_called_once_with(expected_args, input="\n".join(vim.current.buffer) + "\n", capture_output=True, text=True, encoding="utf-8")
+
+    @patch('subprocess.run')
+    def test_jim_run_java_command_with_native_image(self, mock_run):
+        self.fs.create_file("/home/user/.vim/java/jim")
+        os.chmod("/home/user/.vim/java/jim", 0o755)
+
+        vim.set_eval("g:JimJavaOpts", "-XX:SomeValue")
+        vim.set_eval("s:pluginHome", "/home/user/.vim")
+        vim.set_eval("g:JavaImpClassList", ".JavaImp/JavaImp.text")
+        vim.set_eval("g:JavaImpDataDir", ".JavaImp")
+        vim.current.buffer.name = "MyClass.java"
+
+        mock_run.return_value.stdout = "{}"
+        mock_run.return_value.returncode = 0
+
+        jim.jim_run_java_command()
+
+        expected_args = [
+            "/home/user/.vim/java/jim",
+            "--format",
+            "compact",
+            "--stdin",
+            "--stdin-filename",
+            vim.current.buffer.name
+        ]
+
+        mock_run.assert_called_once_with(expected_args, input="\n".join(vim.current.buffer) + "\n", capture_output=True, text=True, encoding="utf-8")
+
+    @patch('subprocess.run')
+    def test_jim_run_java_command_with_engine(self, mock_run):
+        vim.set_eval("g:JimJavaOpts", "")
+        vim.set_eval("g:JimEngine", "lexer")
+        vim.set_eval("s:pluginHome", "/home/user/.vim")
+        vim.set_eval("g:JavaImpClassList", ".JavaImp/JavaImp.text")
+        vim.set_eval("g:JavaImpDataDir", ".JavaImp")
+        vim.current.buffer.name = "MyClass.java"
+
+        mock_run.return_value.stdout = "{}"
+        mock_run.return_value.returncode = 0
+
+        jim.jim_run_java_command()
+
+        expected_args = [
+            "java",
+            "-jar",
+            "/home/user/.vim/java/jim-1.0-jar-with-dependencies.jar",
+            "--format",
+            "compact",
+            "--engine",
+            "lexer",
+            "--stdin",
+            "--stdin-filename",
+            vim.current.buffer.name
+        ]
+
+        mock_run.assert_called_once_with(expected_args, input="\n".join(vim.current.buffer) + "\n", capture_output=True, text=True, encoding="utf-8")
+
+    @patch('subprocess.run')
+    def test_jim_run_java_command_with_precise_engine(self, mock_run):
+        vim.set_eval("g:JimJavaOpts", "")
+        vim.set_eval("g:JimEngine", "precise")
+        vim.set_eval("g:JimClassPath", "/libs/a.jar:/libs/b.jar")
+        vim.set_eval("g:JimSourcePath", "src/main/java")
+        vim.set_eval("s:pluginHome", "/home/user/.vim")
+        vim.set_eval("g:JavaImpClassList", ".JavaImp/JavaImp.text")
+        vim.set_eval("g:JavaImpDataDir", ".JavaImp")
+        vim.current.buffer.name = "MyClass.java"
+
+        mock_run.return_value.stdout = "{}"
+        mock_run.return_value.returncode = 0
+
+        jim.jim_run_java_command()
+
+        expected_args = [
+            "java",
+            "-jar",
+            "/home/user/.vim/java/jim-1.0-jar-with-dependencies.jar",
+            "--format",
+            "compact",
+            "--engine",
+            "precise",
+            "--classpath",
+            "/libs/a.jar:/libs/b.jar",
+            "--sourcepath",
+            "src/main/java",
+            "--stdin",
+            "--stdin-filename",
+            vim.current.buffer.name
+        ]
+
+        mock_run.assert_called_once_with(expected_args, input="\n".join(vim.current.buffer) + "\n", capture_output=True, text=True, encoding="utf-8")
+
+    @patch('subprocess.run')
+    def test_jim_run_java_command_with_cache_dir(self, mock_run):
+        vim.set_eval("g:JimJavaOpts", "")
+        vim.set_eval("g:JimCacheDir", "/tmp/jim-cache")
+        vim.set_eval("s:pluginHome", "/home/user/.vim")
+        vim.set_eval("g:JavaImpClassList", ".JavaImp/JavaImp.text")
+        vim.set_eval("g:JavaImpDataDir", ".JavaImp")
+        vim.current.buffer.name = "MyClass.java"
+
+        mock_run.return_value.stdout = "{}"
+        mock_run.return_value.returncode = 0
+
+        jim.jim_run_java_command()
+
+        expected_args = [
+            "java",
+            "-jar",
+            "/home/user/.vim/java/jim-1.0-jar-with-dependencies.jar",
+            "--format",
+            "compact",
+            "--cache-dir",
+            "/tmp/jim-cache",
+            "--stdin",
+            "--stdin-filename",
+            vim.current.buffer.name
+        ]
+
+        mock_run.assert_called_once_with(expected_args, input="\n".join(vim.current.buffer) + "\n", capture_output=True, text=True, encoding="utf-8")
+
+    @patch('jim.jim_send_daemon_request')
+    def test_jim_run_java_command_with_daemon(self, mock_request):
+        self.fs.create_file(".JavaImp/JavaImp.text")
+        self.fs.create_file(".JavaImp/choices.txt")
+
+        vim.set_eval("g:JimUseDaemon", "1")
+        vim.set_eval("g:JimDaemonSocket", "/tmp/jim.sock")
+        vim.set_eval("g:JavaImpClassList", ".JavaImp/JavaImp.text")
+        vim.set_eval("g:JavaImpDataDir", ".JavaImp")
+        vim.current.buffer.name = "/src/MyClass.java"
+        vim.current.buffer.append("public class MyClass {")
+        vim.current.buffer.append("}")
+
+        mock_request.return_value = "{}"
+
+        results = jim.jim_run_java_command()
+
+        self.assertEqual(0, results.returncode)
+        self.assertEqual("{}", results.stdout)
+
+        expected_request = {
+            "filename" : "/src/MyClass.java",
+            "format" : "compact",
+            "source" : "public class MyClass {\n}\n",
+            "classFile" : os.path.abspath(".JavaImp/JavaImp.text"),
+            "choiceFile" : os.path.abspath(".JavaImp/choices.txt")
+        }
+
+        mock_request.assert_called_once_with("/tmp/jim.sock", expected_request)
+
+    @patch('time.sleep')
+    @patch('subprocess.Popen')
+    @patch('jim.jim_send_daemon_request')
+    def test_jim_run_java_command_with_daemon_not_running(self, mock_request, mock_popen, mock_sleep):
+        vim.set_eval("g:JimUseDaemon", "1")
+        vim.set_eval("g:JimDaemonSocket", "/tmp/jim.sock")
+        vim.set_eval("g:JimDaemonIdleTimeout", "900")
+        vim.set_eval("g:JimJavaOpts", "")
+        vim.set_eval("s:pluginHome", "/home/user/.vim")
+        vim.set_eval("g:JavaImpClassList", ".JavaImp/JavaImp.text")
+        vim.set_eval("g:JavaImpDataDir", ".JavaImp")
+        vim.current.buffer.name = "/src/MyClass.java"
+
+        mock_request.side_effect = [ConnectionRefusedError(), FileNotFoundError(), "{}"]
+
+        results = jim.jim_run_java_command()
+
+        self.assertEqual(0, results.returncode)
+        self.assertEqual("{}", results.stdout)
+        self.assertEqual(3, mock_request.call_count)
+
+        expected_args = [
+            "java",
+            "-jar",
+            "/home/user/.vim/java/jim-1.0-jar-with-dependencies.jar",
+            "--daemon",
+            "--socket",
+            "/tmp/jim.sock",
+            "--idle-timeout",
+            "900"
+        ]
+
+        self.assertEqual(expected_args, mock_popen.call_args[0][0])
+
+    @patch('subprocess.Popen')
+    def test_jim_run_java_command_with_coprocess(self, mock_popen):
+        vim.set_eval("g:JimUseCoprocess", "1")
+        vim.set_eval("g:JimJavaOpts", "")
+        vim.set_eval("s:pluginHome", "/home/user/.vim")
+        vim.set_eval("g:JavaImpClassList", ".JavaImp/JavaImp.text")
+        vim.set_eval("g:JavaImpDataDir", ".JavaImp")
+        vim.current.buffer.name = "/src/MyClass.java"
+        vim.current.buffer.append("public class MyClass {")
+        vim.current.buffer.append("}")
+
+        process = mock_popen.return_value
+        process.poll.return_value = None
+        process.stdout.readline.side_effect = ["P\t0\t0\t\n", "\n", "P\t0\t0\t\n", "\n"]
+
+        try:
+            results = jim.jim_run_java_command()
+
+            self.assertEqual(0, results.returncode)
+            self.assertEqual("P\t0\t0\t\n", results.stdout)
+
+            #the second request goes to the same process
+            results = jim.jim_run_java_command()
+
+            self.assertEqual("P\t0\t0\t\n", results.stdout)
+            self.assertEqual(1, mock_popen.call_count)
+            self.assertEqual(["java", "-jar", "/home/user/.vim/java/jim-1.0-jar-with-dependencies.jar", "--serve-stdio"], mock_popen.call_args[0][0])
+
+            request = json.loads(process.stdin.write.call_args_list[0][0][0])
+
+            self.assertEqual("/src/MyClass.java", request["filename"])
+            self.assertEqual("compact", request["format"])
+            self.assertEqual("public class MyClass {\n}\n", request["source"])
+        finally:
+            jim.jim_stop_coprocess()
+
+    @patch('subprocess.run')
+    @patch('subprocess.Popen')
+    def test_jim_run_java_command_with_coprocess_exited(self, mock_popen, mock_run):
+        vim.set_eval("g:JimUseCoprocess", "1")
+        vim.set_eval("g:JimJavaOpts", "")
+        vim.set_eval("s:pluginHome", "/home/user/.vim")
+        vim.set_eval("g:JavaImpClassList", ".JavaImp/JavaImp.text")
+        vim.set_eval("g:JavaImpDataDir", ".JavaImp")
+        vim.current.buffer.name = "/src/MyClass.java"
+
+        mock_popen.return_value.stdout.readline.return_value = ""
+        mock_run.return_value = subprocess.CompletedProcess([], 0, "{}", "")
+
+        results = jim.jim_run_java_command()
+
+        #started twice before falling back to a single run
+        self.assertEqual(2, mock_popen.call_count)
+        self.assertEqual(1, mock_run.call_count)
+        self.assertEqual("{}", results.stdout)
+        self.assertEqual(None, jim.jim_coprocess)
 
     def test_jim_show_error_message(self):
         jim.jim_show_error_message("Error message")
@@ -145,6 +429,78 @@ class TestJavaImpMissing(TestCase):
         self.assertEqual(1, len(results))
         self.assertEqual("MyService com.example.service.MyService com.module.service.MyService", results[0])
     
+    def test_jim_append_choices(self):
+        self.fs.create_file(".JavaImp/choices.txt", contents="MyService com.example.service.MyService\n")
+
+        jim.jim_append_choices(".JavaImp/choices.txt", [("MyService", "com.module.service.MyService"), ("List", "java.util.List")])
+
+        with open(".JavaImp/choices.txt", "r") as file:
+            results = [line.strip() for line in file]
+
+        expected_results = [
+            "MyService com.example.service.MyService",
+            "MyService com.module.service.MyService",
+            "List java.util.List"
+        ]
+
+        self.assertEqual(expected_results, results)
+
+    def test_jim_append_choices_without_selections(self):
+        jim.jim_append_choices(".JavaImp/choices.txt", [])
+
+        self.assertFalse(os.path.exists(".JavaImp/choices.txt"))
+
+    def test_jim_compact_choices(self):
+        contents = [
+            "MyService com.example.service.MyService com.other.service.MyService",
+            "List java.util.List",
+            "MyService com.module.service.MyService",
+            "List java.awt.List",
+            "MyService com.example.service.MyService",
+            ""
+        ]
+        self.fs.create_file(".JavaImp/choices.txt", contents="\n".join(contents))
+
+        jim.jim_compact_choices(".JavaImp/choices.txt")
+
+        with open(".JavaImp/choices.txt", "r") as file:
+            results = [line.strip() for line in file]
+
+        expected_results = [
+            "MyService com.example.service.MyService com.module.service.MyService com.other.service.MyService",
+            "List java.awt.List java.util.List"
+        ]
+
+        self.assertEqual(expected_results, results)
+        self.assertFalse(os.path.exists(".JavaImp/choices.txt.tmp"))
+        self.assertEqual(os.path.getsize(".JavaImp/choices.txt"), jim.jim_get_compacted_size(".JavaImp/choices.txt"))
+
+    def test_jim_append_choices_checks_after_growth(self):
+        lines = ["Name{0} com.example.Name{0}\n".format(i) for i in range(4000)]
+        self.fs.create_file(".JavaImp/choices.txt", contents="".join(lines))
+
+        #every name is unique, so the journal is read but left as it is
+        jim.jim_append_choices(".JavaImp/choices.txt", [("List", "java.util.List")])
+
+        size = os.path.getsize(".JavaImp/choices.txt")
+
+        self.assertGreaterEqual(size, jim.JIM_CHOICE_COMPACT_SIZE)
+        self.assertEqual(size, jim.jim_get_compacted_size(".JavaImp/choices.txt"))
+
+        #not read again until it has grown past twice that size
+        with patch("jim.jim_load_choice_journal") as load:
+            jim.jim_append_choices(".JavaImp/choices.txt", [("List", "java.awt.List")])
+
+            load.assert_not_called()
+
+        with patch("jim.jim_load_choice_journal", return_value=({}, 0)) as load:
+            with open(".JavaImp/choices.txt", "a") as file:
+                file.write("".join(lines))
+
+            jim.jim_append_choices(".JavaImp/choices.txt", [("List", "java.util.List")])
+
+            load.assert_called_once()
+
     def test_jim_process_results(self):
         self.fs.create_file(".JavaImp/choices.txt")
 
@@ -390,6 +746,23 @@ class TestJavaImpMissing(TestCase):
 
         self.assertEqual(len(expected_results), len(vim.current.buffer))
     
+    def test_jim_parse_compact_result(self):
+        stdout = "E\tline one\\nline two\\tC:\\\\src\nP\t1\t1\tabc\nR\t3\t4\nI\t3\t1\t1\torg.junit.Assert.*\nT\t6\t5\tList\tjava.util.List\tjava.awt.List\nT\t7\t5\tMissing\n"
+
+        js = jim.jim_parse_compact_result(stdout)
+
+        self.assertEqual(["line one\nline two\tC:\\src"], js["errorMessages"])
+        self.assertEqual(1, js["package"]["position"]["line"])
+        self.assertEqual(3, js["firstImportStatementLine"])
+        self.assertEqual(4, js["lastImportStatementLine"])
+        self.assertEqual([{"static" : True, "value" : "org.junit.Assert.*"}], js["imports"])
+        self.assertEqual(2, len(js["types"]))
+        self.assertEqual({"line" : 6, "column" : 5}, js["types"][0]["position"])
+        self.assertEqual("List", js["types"][0]["value"])
+        self.assertEqual(["java.util.List", "java.awt.List"], js["types"][0]["choices"])
+        self.assertEqual("Missing", js["types"][1]["value"])
+        self.assertEqual([], js["types"][1]["choices"])
+
     @patch('subprocess.run')
     def test_jim_import_missing(self, mock_run):
         self.fs.create_file(".JavaImp/JavaImp.text")
@@ -417,7 +790,7 @@ class TestJavaImpMissing(TestCase):
         vim.current.buffer.append("")
         vim.current.buffer.append("}") 
 
-        mock_run.return_value.stdout = json.dumps(js)
+        mock_run.return_value.stdout = "P\t1\t1\tcom.example.services\nR\t0\t0\nI\t0\t0\t0\tcom.example.services.MyService\n"
         mock_run.return_value.returncode = 0
 
         jim.jim_import_missing()
@@ -437,6 +810,181 @@ class TestJavaImpMissing(TestCase):
 
         self.assertEqual(len(expected_results), len(vim.current.buffer))
 
+    def append_async_source(self):
+        self.fs.create_file(".JavaImp/JavaImp.text")
+        self.fs.create_file(".JavaImp/choices.txt")
+
+        vim.set_eval("g:JimAsync", "1")
+        vim.set_eval("g:JimJavaOpts", "")
+        vim.set_eval("s:pluginHome", "/home/user/.vim")
+        vim.set_eval("g:JavaImpClassList", ".JavaImp/JavaImp.text")
+        vim.set_eval("g:JavaImpDataDir", ".JavaImp")
+
+        vim.current.buffer.append("package com.example;")
+        vim.current.buffer.append("")
+        vim.current.buffer.append("public class MyObject {")
+        vim.current.buffer.append("")
+        vim.current.buffer.append("}") 
+
+    @patch('subprocess.run')
+    def test_jim_import_missing_async(self, mock_run):
+        self.append_async_source()
+
+        jim.jim_import_missing()
+
+        self.assertEqual(0, mock_run.call_count)
+        self.assertEqual(2, len(vim.properties["job_calls"]))
+        self.assertTrue(vim.properties["job_calls"][0].startswith("s:JimJobStart(\"jim-"))
+        self.assertTrue("\"--stdin\"" in vim.properties["job_calls"][0])
+        self.assertTrue(vim.properties["job_calls"][1].endswith(", 1)"))
+
+        key = list(jim.jim_jobs)[0]
+
+        #records split across calls are joined before they are parsed
+        jim.jim_on_job_output(key, "P\t1\t1\tcom.example.services\nR\t0")
+        jim.jim_on_job_output(key, "\t0\nI\t0\t0\t0\tcom.example.services.MyService")
+        jim.jim_on_job_close(key)
+
+        self.assertEqual(5, len(vim.current.buffer))
+
+        jim.jim_on_job_exit(key, 0)
+
+        expected_results = [
+            "package com.example;",
+            "",
+            "import com.example.services.MyService;",
+            "",
+            "public class MyObject {",
+            "",
+            "}"
+        ]
+
+        self.assertEqual(expected_results, list(vim.current.buffer))
+        self.assertEqual(0, len(jim.jim_jobs))
+
+    def test_jim_import_missing_async_with_changed_buffer(self):
+        self.append_async_source()
+
+        jim.jim_import_missing()
+
+        key = list(jim.jim_jobs)[0]
+
+        vim.set_eval("b:changedtick", "2")
+
+        jim.jim_on_job_output(key, "I\t0\t0\t0\tcom.example.services.MyService\n")
+        jim.jim_on_job_close(key)
+        jim.jim_on_job_exit(key, 0)
+
+        self.assertEqual(5, len(vim.current.buffer))
+        self.assertEqual(0, len(vim.properties["error_messages"]))
+
+    def test_jim_import_missing_async_with_failed_java_command(self):
+        self.append_async_source()
+
+        jim.jim_import_missing()
+
+        key = list(jim.jim_jobs)[0]
+
+        jim.jim_on_job_error(key, "Failed to execute java command")
+        jim.jim_on_job_close(key)
+        jim.jim_on_job_exit(key, 255)
+
+        self.assertEqual(["Failed to execute java command"], vim.properties["error_messages"])
+
+    def test_jim_import_missing_async_with_coprocess(self):
+        self.append_async_source()
+
+        vim.set_eval("g:JimUseCoprocess", "1")
+
+        jim.jim_import_missing()
+
+        vim.set_eval("b:changedtick", "2")
+
+        jim.jim_import_missing()
+
+        #one process answers both requests, the first one was cancelled by the second
+        starts = [call for call in vim.properties["job_calls"] if call.startswith("s:JimJobStart")]
+
+        self.assertEqual(1, len(starts))
+        self.assertTrue("\"--serve-stdio\"" in starts[0])
+        self.assertEqual(0, len([call for call in vim.properties["job_calls"] if call.startswith("s:JimJobStop")]))
+
+        key = list(jim.jim_jobs)[0]
+
+        jim.jim_on_job_output(key, "I\t0\t0\t0\tcom.example.services.Cancelled\n\n")
+
+        self.assertEqual(5, len(vim.current.buffer))
+
+        jim.jim_on_job_output(key, "P\t1\t1\tcom.example.services\nR\t0\t0\nI\t0\t0\t0\tcom.example.services.MyService\n\n")
+
+        self.assertEqual("import com.example.services.MyService;", vim.current.buffer[2])
+        self.assertEqual(7, len(vim.current.buffer))
+        self.assertEqual(1, len(jim.jim_jobs))
+
+    def get_job_starts(self):
+        return [call for call in vim.properties["job_calls"] if call.startswith("s:JimJobStart")]
+
+    def finish_job(self, output):
+        key = list(jim.jim_jobs)[0]
+
+        jim.jim_on_job_output(key, output)
+        jim.jim_on_job_close(key)
+        jim.jim_on_job_exit(key, 0)
+
+    def test_jim_import_missing_with_speculative_result(self):
+        self.append_async_source()
+
+        jim.jim_speculate()
+        jim.jim_speculate()
+
+        self.assertEqual(1, len(self.get_job_starts()))
+
+        self.finish_job("P\t1\t1\tcom.example.services\nR\t0\t0\nI\t0\t0\t0\tcom.example.services.MyService\n")
+
+        #nothing is applied until :JIM
+        self.assertEqual(5, len(vim.current.buffer))
+
+        jim.jim_speculate()
+        jim.jim_import_missing()
+
+        self.assertEqual(1, len(self.get_job_starts()))
+        self.assertEqual("import com.example.services.MyService;", vim.current.buffer[2])
+        self.assertEqual(0, len(jim.jim_results))
+
+    def test_jim_import_missing_with_stale_speculative_result(self):
+        self.append_async_source()
+
+        jim.jim_speculate()
+
+        self.finish_job("I\t0\t0\t0\tcom.example.services.Stale\n")
+
+        vim.set_eval("b:changedtick", "2")
+
+        jim.jim_import_missing()
+
+        self.assertEqual(2, len(self.get_job_starts()))
+        self.assertEqual(5, len(vim.current.buffer))
+
+        self.finish_job("P\t1\t1\tcom.example.services\nR\t0\t0\nI\t0\t0\t0\tcom.example.services.MyService\n")
+
+        self.assertEqual("import com.example.services.MyService;", vim.current.buffer[2])
+        self.assertEqual(7, len(vim.current.buffer))
+
+    def test_jim_import_missing_with_running_speculative_request(self):
+        self.append_async_source()
+
+        jim.jim_speculate()
+        jim.jim_import_missing()
+
+        #the running request is waited for instead of stopped
+        self.assertEqual(1, len(self.get_job_starts()))
+        self.assertEqual(0, len([call for call in vim.properties["job_calls"] if call.startswith("s:JimJobStop")]))
+
+        self.finish_job("P\t1\t1\tcom.example.services\nR\t0\t0\nI\t0\t0\t0\tcom.example.services.MyService\n")
+
+        self.assertEqual("import com.example.services.MyService;", vim.current.buffer[2])
+        self.assertEqual(0, len(jim.jim_results))
+
     @patch('subprocess.run')
     def test_jim_import_missing_with_failed_java_command_stdout(self, mock_run):
         self.fs.create_file(".JavaImp/JavaImp.text")
@@ -503,7 +1051,7 @@ class TestJavaImpMissing(TestCase):
         vim.current.buffer.append("")
         vim.current.buffer.append("}") 
 
-        mock_run.return_value.stdout = json.dumps(js)
+        mock_run.return_value.stdout = "E\tParse Error - 1, 1\nE\tError ABC\nP\t0\t0\t\nR\t0\t0\n"
         mock_run.return_value.returncode = 0
 
         jim.jim_import_missing()
@@ -555,7 +1103,7 @@ class TestJavaImpMissing(TestCase):
         vim.current.buffer.append("MyService")
         vim.current.buffer.append("}") 
 
-        mock_run.return_value.stdout = json.dumps(js)
+        mock_run.return_value.stdout = "P\t1\t1\tcom.example\nR\t0\t0\nT\t4\t1\tMyService\tcom.example.services.MyService\tcom.module.services.MyService\n"
         mock_run.return_value.returncode = 0
 
         jim.jim_import_missing()
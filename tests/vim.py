@@ -49,6 +49,10 @@ def eval(arg):
         add_value(properties["input_messages"], arg)
     elif arg == "getcurpos()":
         return [0, 1, 1]
+    elif arg.startswith("s:Jim"):
+        properties["job_calls"].append(arg)
+
+        return "1"
 
     return properties["input_return_value"]
 
@@ -70,6 +74,16 @@ def reset():
     properties["error_messages"] = []
     properties["input_messages"] = []
     properties["input_return_value"] = "0"
+    properties["g:JimUseDaemon"] = "0"
+    properties["g:JimUseCoprocess"] = "0"
+    properties["g:JimAsync"] = "0"
+    properties["bufnr(\"%\")"] = "1"
+    properties["b:changedtick"] = "1"
+    properties["job_calls"] = []
+    properties["g:JimEngine"] = ""
+    properties["g:JimCacheDir"] = ""
+    properties["g:JimClassPath"] = ""
+    properties["g:JimSourcePath"] = ""
 
     current.buffer.name = ""
     current.buffer.clear()